@@ -0,0 +1,88 @@
+package benchmarks;
+
+public abstract class Benchmark
+{
+
+	private String name;
+	private int[] sizes;
+
+	/**
+	 * Creates a Benchmark that is run once for every size
+	 * 
+	 * @param name
+	 *            The name shown in the results
+	 * @param sizes
+	 *            The problem sizes to measure, from small to large
+	 */
+	protected Benchmark(String name, int... sizes)
+	{
+		this.name = name;
+		this.sizes = sizes;
+	}
+
+	/**
+	 * Prepares the state for a size. This is not measured.
+	 * 
+	 * @param size
+	 *            The problem size
+	 */
+	public void setUp(int size)
+	{
+	}
+
+	/**
+	 * Restores the state that an operation changed. This is not measured and
+	 * is only called if isResetEachOperation() returns true.
+	 */
+	public void reset()
+	{
+	}
+
+	/**
+	 * Runs the operation that is measured once
+	 * 
+	 * @return Any value that depends on the work done, so the JIT compiler
+	 *         cannot remove the work
+	 */
+	public abstract long run();
+
+	/**
+	 * Frees the state of the last size
+	 */
+	public void tearDown()
+	{
+	}
+
+	/**
+	 * Gets whether reset() has to be called before every operation, for
+	 * operations like sorts that change their own input
+	 * 
+	 * @return True if the state is reset before every operation
+	 */
+	public boolean isResetEachOperation()
+	{
+		return false;
+	}
+
+	/**
+	 * Gets whether the benchmark can run on this machine
+	 * 
+	 * @return False if something the benchmark needs (such as a display) is
+	 *         missing
+	 */
+	public boolean isAvailable()
+	{
+		return true;
+	}
+
+	public String getName()
+	{
+		return name;
+	}
+
+	public int[] getSizes()
+	{
+		return sizes;
+	}
+
+}
@@ -0,0 +1,153 @@
+package benchmarks;
+
+import java.util.Locale;
+
+public class BenchmarkResult
+{
+
+	private String name;
+	private int size;
+
+	// Measurements, or why there are none
+	private double nanosPerOperation;
+	private double error;
+	private double bytesPerOperation;
+	private long operations;
+	private String skipReason;
+
+	/**
+	 * Creates the result of a measured benchmark
+	 * 
+	 * @param name
+	 *            Name of the benchmark
+	 * @param size
+	 *            The problem size
+	 * @param nanosPerOperation
+	 *            Mean time per operation in nanoseconds
+	 * @param error
+	 *            Standard deviation between the measurement iterations
+	 *            relative to the mean (0-1)
+	 * @param bytesPerOperation
+	 *            Mean number of bytes allocated per operation
+	 * @param operations
+	 *            The number of operations that were measured
+	 */
+	public BenchmarkResult(String name, int size, double nanosPerOperation, double error, double bytesPerOperation,
+			long operations)
+	{
+		this.name = name;
+		this.size = size;
+		this.nanosPerOperation = nanosPerOperation;
+		this.error = error;
+		this.bytesPerOperation = bytesPerOperation;
+		this.operations = operations;
+	}
+
+	/**
+	 * Creates the result of a benchmark that was not measured
+	 * 
+	 * @param name
+	 *            Name of the benchmark
+	 * @param size
+	 *            The problem size
+	 * @param skipReason
+	 *            Why the benchmark was skipped
+	 */
+	public BenchmarkResult(String name, int size, String skipReason)
+	{
+		this.name = name;
+		this.size = size;
+		this.skipReason = skipReason;
+	}
+
+	/**
+	 * Formats the result as a line of CSV (name, size, ns/op, error, bytes/op,
+	 * operations)
+	 * 
+	 * @return The line, or null if the benchmark was skipped
+	 */
+	public String toCsv()
+	{
+		if (isSkipped())
+		{
+			return null;
+		}
+		return String.format(Locale.ROOT, "%s,%d,%.3f,%.5f,%.3f,%d", name, size, nanosPerOperation, error,
+				bytesPerOperation, operations);
+	}
+
+	/**
+	 * Reads a result written by toCsv()
+	 * 
+	 * @param line
+	 *            A line of CSV
+	 * @return The result, or null if the line is not a result
+	 */
+	public static BenchmarkResult fromCsv(String line)
+	{
+		String[] fields = line.split(",");
+		if (fields.length != 6)
+		{
+			return null;
+		}
+		try
+		{
+			return new BenchmarkResult(fields[0], Integer.parseInt(fields[1]), Double.parseDouble(fields[2]),
+					Double.parseDouble(fields[3]), Double.parseDouble(fields[4]), Long.parseLong(fields[5]));
+		} catch (NumberFormatException e)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * Gets a key that is the same for results of the same benchmark and size
+	 * 
+	 * @return The key
+	 */
+	public String getKey()
+	{
+		return name + "@" + size;
+	}
+
+	public boolean isSkipped()
+	{
+		return skipReason != null;
+	}
+
+	public String getSkipReason()
+	{
+		return skipReason;
+	}
+
+	public String getName()
+	{
+		return name;
+	}
+
+	public int getSize()
+	{
+		return size;
+	}
+
+	public double getNanosPerOperation()
+	{
+		return nanosPerOperation;
+	}
+
+	public double getError()
+	{
+		return error;
+	}
+
+	public double getBytesPerOperation()
+	{
+		return bytesPerOperation;
+	}
+
+	public long getOperations()
+	{
+		return operations;
+	}
+
+}
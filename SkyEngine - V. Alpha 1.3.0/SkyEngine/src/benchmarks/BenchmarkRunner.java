@@ -0,0 +1,503 @@
+package benchmarks;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import com.sun.management.ThreadMXBean;
+
+public class BenchmarkRunner
+{
+
+	// Keeps the results of the operations alive
+	private static volatile long sink;
+
+	// Settings
+	private int warmupIterations = 3;
+	private int measurementIterations = 5;
+	private long iterationTime = 500000000L;
+	private long operationLimit = 100000000L;
+	private Pattern filter = null;
+
+	// Allocation counter of the current thread
+	private ThreadMXBean threadBean;
+	private long threadID;
+	private long allocationOverhead = 0;
+
+	private ArrayList<Benchmark> benchmarks = new ArrayList<Benchmark>();
+
+	/**
+	 * Runs the benchmarks. Options:
+	 * 
+	 * <pre>
+	 * --filter regex    Only run benchmarks whose name matches
+	 * --warmup n        Warmup iterations per size (default 3)
+	 * --iterations n    Measurement iterations per size (default 5)
+	 * --time ms         Length of an iteration (default 500)
+	 * --limit ms        Skip larger sizes once one operation is slower (default 100)
+	 * --csv path        Write the results to a CSV file
+	 * --baseline path   Compare the results with a CSV file from an earlier run
+	 * </pre>
+	 * 
+	 * @param args
+	 *            The options
+	 */
+	public static void main(String[] args)
+	{
+		BenchmarkRunner runner = new BenchmarkRunner();
+		String csvPath = null;
+		String baselinePath = null;
+		for (int i = 0; i + 1 < args.length; i += 2)
+		{
+			String option = args[i];
+			String value = args[i + 1];
+			if (option.equals("--filter"))
+			{
+				runner.setFilter(value);
+			} else if (option.equals("--warmup"))
+			{
+				runner.setWarmupIterations(Integer.parseInt(value));
+			} else if (option.equals("--iterations"))
+			{
+				runner.setMeasurementIterations(Integer.parseInt(value));
+			} else if (option.equals("--time"))
+			{
+				runner.setIterationTime(Long.parseLong(value) * 1000000L);
+			} else if (option.equals("--limit"))
+			{
+				runner.setOperationLimit(Long.parseLong(value) * 1000000L);
+			} else if (option.equals("--csv"))
+			{
+				csvPath = value;
+			} else if (option.equals("--baseline"))
+			{
+				baselinePath = value;
+			} else
+			{
+				System.err.println("Unknown option " + option);
+			}
+		}
+
+		runner.addEngineBenchmarks();
+		HashMap<String, BenchmarkResult> baseline = baselinePath == null ? null : readCsv(baselinePath);
+		ArrayList<BenchmarkResult> results = runner.run(baseline);
+		if (csvPath != null)
+		{
+			writeCsv(csvPath, results);
+		}
+	}
+
+	/**
+	 * Creates a BenchmarkRunner that measures time with System.nanoTime() and
+	 * allocations with the allocation counter of the running thread
+	 */
+	public BenchmarkRunner()
+	{
+		threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		threadID = Thread.currentThread().getId();
+		if (threadBean.isThreadAllocatedMemorySupported())
+		{
+			threadBean.setThreadAllocatedMemoryEnabled(true);
+		}
+	}
+
+	/**
+	 * Adds the benchmarks of the engine's hot paths
+	 */
+	public void addEngineBenchmarks()
+	{
+		for (RendererBenchmark.Mode mode : RendererBenchmark.Mode.values())
+		{
+			benchmarks.add(new RendererBenchmark(mode));
+		}
+		for (InputBenchmark.Operation operation : InputBenchmark.Operation.values())
+		{
+			benchmarks.add(new InputBenchmark(operation));
+		}
+		for (InventoryBenchmark.Operation operation : InventoryBenchmark.Operation.values())
+		{
+			benchmarks.add(new InventoryBenchmark(false, operation));
+			benchmarks.add(new InventoryBenchmark(true, operation));
+		}
+		for (DisplayModeBenchmark.Order order : DisplayModeBenchmark.Order.values())
+		{
+			benchmarks.add(new DisplayModeBenchmark(order));
+		}
+		benchmarks.add(new RadioButtonBenchmark());
+	}
+
+	/**
+	 * Adds a benchmark to be run
+	 * 
+	 * @param benchmark
+	 *            The benchmark
+	 */
+	public void addBenchmark(Benchmark benchmark)
+	{
+		benchmarks.add(benchmark);
+	}
+
+	/**
+	 * Runs every benchmark that matches the filter at each of its sizes and
+	 * prints the results as they come in
+	 * 
+	 * @param baseline
+	 *            Results of an earlier run to compare with (can be null)
+	 * @return The results
+	 */
+	public ArrayList<BenchmarkResult> run(HashMap<String, BenchmarkResult> baseline)
+	{
+		allocationOverhead = measureAllocationOverhead();
+		ArrayList<BenchmarkResult> results = new ArrayList<BenchmarkResult>();
+		System.out.println(String.format(Locale.ROOT, "%-42s %9s %14s %8s %12s%s", "Benchmark", "Size", "ns/op",
+				"error", "B/op", baseline == null ? "" : "    change"));
+
+		for (Benchmark benchmark : benchmarks)
+		{
+			if (filter != null && !filter.matcher(benchmark.getName()).find())
+			{
+				continue;
+			}
+
+			String skipReason = benchmark.isAvailable() ? null : "not available";
+			for (int size : benchmark.getSizes())
+			{
+				BenchmarkResult result;
+				if (skipReason != null)
+				{
+					result = new BenchmarkResult(benchmark.getName(), size, skipReason);
+				} else
+				{
+					result = measure(benchmark, size);
+					if (result.isSkipped())
+					{
+						skipReason = result.getSkipReason();
+					}
+				}
+				results.add(result);
+				System.out.println(format(result, baseline));
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Measures a benchmark at one size
+	 */
+	private BenchmarkResult measure(Benchmark benchmark, int size)
+	{
+		try
+		{
+			benchmark.setUp(size);
+
+			// One operation tells how many fit in an iteration
+			long probe = measureOperations(benchmark, 1, null);
+			if (probe > operationLimit)
+			{
+				return new BenchmarkResult(benchmark.getName(), size, "slower than the limit");
+			}
+
+			long batch = Math.max(1, Math.min(iterationTime / 10 / Math.max(probe, 1), Integer.MAX_VALUE));
+			for (int i = 0; i < warmupIterations; i++)
+			{
+				long operations = runIteration(benchmark, batch, null);
+				batch = Math.max(1, operations / 10);
+			}
+
+			double[] iterationNanos = new double[measurementIterations];
+			long[] totals = new long[2];
+			long operations = 0;
+			for (int i = 0; i < measurementIterations; i++)
+			{
+				long[] iteration = new long[2];
+				long iterationOperations = runIteration(benchmark, batch, iteration);
+				iterationNanos[i] = (double) iteration[0] / iterationOperations;
+				totals[0] += iteration[0];
+				totals[1] += iteration[1];
+				operations += iterationOperations;
+			}
+
+			double mean = (double) totals[0] / operations;
+			double variance = 0;
+			for (double nanos : iterationNanos)
+			{
+				variance += (nanos - mean) * (nanos - mean);
+			}
+			double error = measurementIterations > 1
+					? Math.sqrt(variance / (measurementIterations - 1)) / mean : 0;
+			double bytes = Math.max(0, (double) totals[1] / operations);
+			return new BenchmarkResult(benchmark.getName(), size, mean, error, bytes, operations);
+		} catch (Throwable e)
+		{
+			e.printStackTrace();
+			return new BenchmarkResult(benchmark.getName(), size, "failed: " + e);
+		} finally
+		{
+			benchmark.tearDown();
+		}
+	}
+
+	/**
+	 * Runs batches of operations until the iteration time is used up
+	 * 
+	 * @return The number of operations that were run
+	 */
+	private long runIteration(Benchmark benchmark, long batch, long[] totals)
+	{
+		long start = System.nanoTime();
+		long operations = 0;
+		long[] measured = new long[2];
+		do
+		{
+			measureOperations(benchmark, batch, measured);
+			operations += batch;
+		} while (System.nanoTime() - start < iterationTime);
+
+		if (totals != null)
+		{
+			totals[0] = measured[0];
+			totals[1] = measured[1];
+		}
+		return operations;
+	}
+
+	/**
+	 * Runs a number of operations, adding the time and bytes they took to a
+	 * total. If the benchmark resets its state before every operation, only
+	 * the operations themselves are measured.
+	 * 
+	 * @return The time taken in nanoseconds
+	 */
+	private long measureOperations(Benchmark benchmark, long count, long[] totals)
+	{
+		long result = 0;
+		long nanos = 0;
+		long bytes = 0;
+		if (benchmark.isResetEachOperation())
+		{
+			for (long i = 0; i < count; i++)
+			{
+				benchmark.reset();
+				long allocated = getAllocatedBytes();
+				long start = System.nanoTime();
+				result ^= benchmark.run();
+				nanos += System.nanoTime() - start;
+				bytes += getAllocatedBytes() - allocated - allocationOverhead;
+			}
+		} else
+		{
+			long allocated = getAllocatedBytes();
+			long start = System.nanoTime();
+			for (long i = 0; i < count; i++)
+			{
+				result ^= benchmark.run();
+			}
+			nanos = System.nanoTime() - start;
+			bytes = getAllocatedBytes() - allocated - allocationOverhead;
+		}
+		sink ^= result;
+
+		if (totals != null)
+		{
+			totals[0] += nanos;
+			totals[1] += bytes;
+		}
+		return nanos;
+	}
+
+	/**
+	 * Gets the number of bytes the current thread has allocated
+	 */
+	private long getAllocatedBytes()
+	{
+		return threadBean.isThreadAllocatedMemoryEnabled() ? threadBean.getThreadAllocatedBytes(threadID) : 0;
+	}
+
+	/**
+	 * Measures how much reading the allocation counter allocates itself, so it
+	 * can be left out of the results
+	 */
+	private long measureAllocationOverhead()
+	{
+		long overhead = Long.MAX_VALUE;
+		for (int i = 0; i < 1000; i++)
+		{
+			long allocated = getAllocatedBytes();
+			overhead = Math.min(overhead, getAllocatedBytes() - allocated);
+		}
+		return overhead;
+	}
+
+	/**
+	 * Formats a result as a line of the results table
+	 */
+	private static String format(BenchmarkResult result, HashMap<String, BenchmarkResult> baseline)
+	{
+		if (result.isSkipped())
+		{
+			return String.format(Locale.ROOT, "%-42s %9d %s", result.getName(), result.getSize(),
+					"skipped (" + result.getSkipReason() + ")");
+		}
+
+		String change = "";
+		if (baseline != null)
+		{
+			BenchmarkResult previous = baseline.get(result.getKey());
+			change = previous == null ? "         -"
+					: String.format(Locale.ROOT, " %+8.1f%%",
+							(result.getNanosPerOperation() / previous.getNanosPerOperation() - 1) * 100);
+		}
+		return String.format(Locale.ROOT, "%-42s %9d %14.1f %7.1f%% %12.1f%s", result.getName(), result.getSize(),
+				result.getNanosPerOperation(), result.getError() * 100, result.getBytesPerOperation(), change);
+	}
+
+	/**
+	 * Writes results to a CSV file
+	 * 
+	 * @param path
+	 *            The file to write
+	 * @param results
+	 *            The results (skipped results are left out)
+	 */
+	public static void writeCsv(String path, ArrayList<BenchmarkResult> results)
+	{
+		PrintWriter writer = null;
+		try
+		{
+			writer = new PrintWriter(new FileWriter(path));
+			writer.println("benchmark,size,ns/op,error,bytes/op,operations");
+			for (BenchmarkResult result : results)
+			{
+				String line = result.toCsv();
+				if (line != null)
+				{
+					writer.println(line);
+				}
+			}
+		} catch (IOException e)
+		{
+			e.printStackTrace();
+		} finally
+		{
+			if (writer != null)
+			{
+				writer.close();
+			}
+		}
+	}
+
+	/**
+	 * Reads results from a CSV file written by writeCsv()
+	 * 
+	 * @param path
+	 *            The file to read
+	 * @return The results by benchmark name and size
+	 */
+	public static HashMap<String, BenchmarkResult> readCsv(String path)
+	{
+		HashMap<String, BenchmarkResult> results = new HashMap<String, BenchmarkResult>();
+		BufferedReader reader = null;
+		try
+		{
+			reader = new BufferedReader(new FileReader(path));
+			String line;
+			while ((line = reader.readLine()) != null)
+			{
+				BenchmarkResult result = BenchmarkResult.fromCsv(line);
+				if (result != null)
+				{
+					results.put(result.getKey(), result);
+				}
+			}
+		} catch (IOException e)
+		{
+			e.printStackTrace();
+		} finally
+		{
+			if (reader != null)
+			{
+				try
+				{
+					reader.close();
+				} catch (IOException e)
+				{
+					e.printStackTrace();
+				}
+			}
+		}
+		return results;
+	}
+
+	public int getWarmupIterations()
+	{
+		return warmupIterations;
+	}
+
+	public void setWarmupIterations(int warmupIterations)
+	{
+		this.warmupIterations = warmupIterations;
+	}
+
+	public int getMeasurementIterations()
+	{
+		return measurementIterations;
+	}
+
+	public void setMeasurementIterations(int measurementIterations)
+	{
+		this.measurementIterations = Math.max(1, measurementIterations);
+	}
+
+	public long getIterationTime()
+	{
+		return iterationTime;
+	}
+
+	/**
+	 * Sets how long each warmup and measurement iteration runs
+	 * 
+	 * @param iterationTime
+	 *            The time in nanoseconds
+	 */
+	public void setIterationTime(long iterationTime)
+	{
+		this.iterationTime = iterationTime;
+	}
+
+	public long getOperationLimit()
+	{
+		return operationLimit;
+	}
+
+	/**
+	 * Sets how long a single operation may take. Once a benchmark is slower
+	 * than this at some size, its larger sizes are skipped.
+	 * 
+	 * @param operationLimit
+	 *            The limit in nanoseconds
+	 */
+	public void setOperationLimit(long operationLimit)
+	{
+		this.operationLimit = operationLimit;
+	}
+
+	/**
+	 * Only runs benchmarks whose name contains a match for a regular
+	 * expression
+	 * 
+	 * @param filter
+	 *            The regular expression or null to run every benchmark
+	 */
+	public void setFilter(String filter)
+	{
+		this.filter = filter == null ? null : Pattern.compile(filter);
+	}
+
+}
@@ -0,0 +1,62 @@
+package benchmarks;
+
+import org.lwjgl.opengl.Display;
+import org.lwjgl.opengl.DisplayMode;
+
+import skyEngine.Core.Window;
+
+public class DisplayModeBenchmark extends Benchmark
+{
+
+	public enum Order
+	{
+		AspectRatio, Width, Height
+	}
+
+	private Order order;
+
+	/**
+	 * Creates a benchmark of Window.getIdealDisplayModes*(), which asks the
+	 * monitor for its modes and sorts them
+	 * 
+	 * @param order
+	 *            The order the display modes are sorted in
+	 */
+	public DisplayModeBenchmark(Order order)
+	{
+		super("Window.getIdealDisplayModesBy" + order, new int[] { 1 });
+		this.order = order;
+	}
+
+	public long run()
+	{
+		DisplayMode[] sorted;
+		if (order == Order.AspectRatio)
+		{
+			sorted = Window.getIdealDisplayModesByAspectRatio();
+		} else if (order == Order.Width)
+		{
+			sorted = Window.getIdealDisplayModesByWidth();
+		} else
+		{
+			sorted = Window.getIdealDisplayModesByHeight();
+		}
+		return sorted.length == 0 ? 0 : sorted[0].getWidth();
+	}
+
+	/**
+	 * The monitor's modes can only be read when the LWJGL natives for this
+	 * platform are installed
+	 */
+	public boolean isAvailable()
+	{
+		try
+		{
+			return Display.getAvailableDisplayModes().length > 0;
+		} catch (Throwable e)
+		{
+			return false;
+		}
+	}
+
+}
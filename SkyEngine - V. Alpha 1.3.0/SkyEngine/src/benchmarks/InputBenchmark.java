@@ -0,0 +1,79 @@
+package benchmarks;
+
+import org.lwjgl.input.Keyboard;
+
+import skyEngine.Core.Input;
+import skyEngine.Core.InputMap;
+import skyEngine.Core.InputSource;
+import skyEngine.Core.NullInputSource;
+
+public class InputBenchmark extends Benchmark
+{
+
+	public enum Operation
+	{
+		Update, MousePosition, Actions
+	}
+
+	private Operation operation;
+	private Input input;
+	private InputMap map;
+	private InputSource previousSource;
+
+	/**
+	 * Creates a benchmark of the input system. Input comes from a
+	 * NullInputSource, so only the engine's own work is measured.
+	 * 
+	 * @param operation
+	 *            What is measured
+	 */
+	public InputBenchmark(Operation operation)
+	{
+		super("Input." + operation, 1);
+		this.operation = operation;
+	}
+
+	public void setUp(int size)
+	{
+		previousSource = Input.getInputSource();
+		Input.setInputSource(new NullInputSource());
+		Input.setMousePosition(960, 540);
+		input = new Input();
+
+		// 32 actions with two keys, a mouse button and a pad button each
+		map = new InputMap();
+		for (int i = 0; i < 32; i++)
+		{
+			int action = map.addAction("action" + i);
+			map.bindKey(action, Keyboard.KEY_1 + i);
+			map.bindKey(action, Keyboard.KEY_F1 + i % 10);
+			map.bindMouseButton(action, i % 3);
+			map.bindPadButton(action, i % 10);
+		}
+		int axis = map.addAxis("moveX");
+		map.bindAxisKeys(axis, Keyboard.KEY_A, Keyboard.KEY_D);
+		map.bindAxisPadAxis(axis, 1, 0.2f, 1.0f);
+		map.compile();
+	}
+
+	public long run()
+	{
+		if (operation == Operation.Update)
+		{
+			input.update();
+			return Input.isKey(1) ? 1 : 0;
+		}
+		if (operation == Operation.Actions)
+		{
+			map.update();
+			return map.isAction(5) ? 1 : 0;
+		}
+		return Input.getMouseX() + Input.getMouseY();
+	}
+
+	public void tearDown()
+	{
+		Input.setInputSource(previousSource);
+	}
+
+}
@@ -0,0 +1,174 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import skyEngine.Inventory.AbstractItem;
+import skyEngine.Inventory.DynamicInventory;
+import skyEngine.Inventory.StaticInventory;
+
+public class InventoryBenchmark extends Benchmark
+{
+
+	public enum Operation
+	{
+		Add, Remove, Contains, Sort
+	}
+
+	private boolean dynamic;
+	private Operation operation;
+
+	// Inventory state
+	private StaticInventory staticInventory;
+	private DynamicInventory dynamicInventory;
+	private BenchmarkItem[] items;
+	private BenchmarkItem extraItem;
+	private int size;
+	private int nextID = 0;
+	private Random random = new Random(42);
+
+	/**
+	 * Creates a benchmark of an inventory operation on a full inventory
+	 * 
+	 * @param dynamic
+	 *            Measure a DynamicInventory instead of a StaticInventory
+	 * @param operation
+	 *            The operation to measure
+	 */
+	public InventoryBenchmark(boolean dynamic, Operation operation)
+	{
+		super((dynamic ? "DynamicInventory." : "StaticInventory.") + operation, 100, 1000, 10000, 100000, 1000000);
+		this.dynamic = dynamic;
+		this.operation = operation;
+	}
+
+	public void setUp(int size)
+	{
+		this.size = size;
+		items = new BenchmarkItem[size];
+		for (int i = 0; i < size; i++)
+		{
+			items[i] = new BenchmarkItem(i, 1 + random.nextInt(1000));
+		}
+		extraItem = new BenchmarkItem(size, 1);
+
+		// Filled directly, because adding one item at a time is quadratic
+		if (dynamic)
+		{
+			dynamicInventory = new DynamicInventory();
+			dynamicInventory.setInventory(new ArrayList<AbstractItem>(Arrays.asList(items)));
+		} else
+		{
+			// One free slot is left for Add
+			staticInventory = new StaticInventory(size + 1);
+			staticInventory.setInventory(Arrays.copyOf(items, size + 1, AbstractItem[].class));
+		}
+	}
+
+	/**
+	 * Undoes the last Add or Remove, or shuffles the quantities before a Sort
+	 */
+	public void reset()
+	{
+		if (operation == Operation.Add)
+		{
+			if (dynamic)
+			{
+				dynamicInventory.removeItemAtIndex(size);
+			} else
+			{
+				staticInventory.removeItemAtIndex(size);
+			}
+		} else if (operation == Operation.Remove)
+		{
+			if (dynamic)
+			{
+				if (dynamicInventory.getSize() < size)
+				{
+					dynamicInventory.getInventory().add(items[size - 1]);
+				}
+			} else
+			{
+				staticInventory.setItemAtIndex(items[size - 1], size - 1);
+			}
+		} else if (operation == Operation.Sort)
+		{
+			for (BenchmarkItem item : items)
+			{
+				item.setQuantity(1 + random.nextInt(1000));
+			}
+		}
+	}
+
+	public long run()
+	{
+		switch (operation)
+		{
+		case Add:
+			// A new item is compared with every item before it finds a place
+			if (dynamic)
+			{
+				dynamicInventory.addItem(extraItem);
+			} else
+			{
+				staticInventory.addItem(extraItem);
+			}
+			return 1;
+
+		case Remove:
+			// Every item is compared, and the last one is removed
+			if (dynamic)
+			{
+				dynamicInventory.removeItem(size - 1);
+			} else
+			{
+				staticInventory.removeItem(size - 1);
+			}
+			return 1;
+
+		case Contains:
+			// IDs are spread over the whole inventory
+			nextID = (nextID + 7919) % size;
+			boolean contains = dynamic ? dynamicInventory.containsItem(nextID) : staticInventory.containsItem(nextID);
+			return contains ? nextID : -1;
+
+		default:
+			if (dynamic)
+			{
+				dynamicInventory.sortByQuantityAscending();
+				return dynamicInventory.getItemAtIndex(0).getQuantity();
+			}
+			staticInventory.sortByQuantityAscending();
+			return staticInventory.getItemAtIndex(0).getQuantity();
+		}
+	}
+
+	public boolean isResetEachOperation()
+	{
+		return operation != Operation.Contains;
+	}
+
+	public void tearDown()
+	{
+		staticInventory = null;
+		dynamicInventory = null;
+		items = null;
+	}
+
+	/**
+	 * An item with an ID, a name and a quantity
+	 */
+	private static class BenchmarkItem extends AbstractItem
+	{
+
+		public BenchmarkItem(int itemID, int quantity)
+		{
+			this.itemID = itemID;
+			this.quantity = quantity;
+			name = "Item " + itemID;
+		}
+
+	}
+
+}
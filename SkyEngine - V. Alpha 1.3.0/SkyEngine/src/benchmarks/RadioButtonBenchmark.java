@@ -0,0 +1,49 @@
+package benchmarks;
+
+import org.newdawn.slick.opengl.EmptyImageData;
+import org.newdawn.slick.opengl.Texture;
+
+import skyEngine.Core.HeadlessTexture;
+import skyEngine.Core.Input;
+import skyEngine.Core.InputSource;
+import skyEngine.Core.NullInputSource;
+import skyEngine.Menu.RadioButton;
+
+public class RadioButtonBenchmark extends Benchmark
+{
+
+	private RadioButton radioButton;
+	private InputSource previousSource;
+
+	/**
+	 * Creates a benchmark of RadioButton.update() with many options. No mouse
+	 * button is pressed, so it measures the work done every frame.
+	 */
+	public RadioButtonBenchmark()
+	{
+		super("RadioButton.update", 10, 100, 1000, 10000);
+	}
+
+	public void setUp(int size)
+	{
+		previousSource = Input.getInputSource();
+		Input.setInputSource(new NullInputSource());
+		Texture unchecked = new HeadlessTexture("unchecked", new EmptyImageData(32, 32));
+		Texture checked = new HeadlessTexture("checked", new EmptyImageData(32, 32));
+		radioButton = new RadioButton(size, 0, 0, unchecked, checked);
+		radioButton.setChecked(size - 1);
+	}
+
+	public long run()
+	{
+		radioButton.update();
+		return radioButton.getSelectedIndex();
+	}
+
+	public void tearDown()
+	{
+		radioButton = null;
+		Input.setInputSource(previousSource);
+	}
+
+}
@@ -0,0 +1,77 @@
+package benchmarks;
+
+import org.newdawn.slick.opengl.EmptyImageData;
+import org.newdawn.slick.opengl.Texture;
+
+import skyEngine.Core.HeadlessTexture;
+import skyEngine.Core.RecordingRenderBackend;
+import skyEngine.Core.Renderer;
+
+public class RendererBenchmark extends Benchmark
+{
+
+	public enum Mode
+	{
+		Immediate, Deferred
+	}
+
+	private Mode mode;
+	private int quads;
+	private RecordingRenderBackend backend;
+	private Renderer renderer;
+	private Texture[] textures;
+
+	/**
+	 * Creates a benchmark that submits a frame of quads through a Renderer to
+	 * a RecordingRenderBackend. One operation is one frame.
+	 * 
+	 * @param mode
+	 *            Whether the quads are drawn right away or through the render
+	 *            queue
+	 */
+	public RendererBenchmark(Mode mode)
+	{
+		super("Renderer." + mode, 100, 1000, 10000, 100000);
+		this.mode = mode;
+	}
+
+	public void setUp(int size)
+	{
+		quads = size;
+		backend = new RecordingRenderBackend();
+		renderer = new Renderer(backend);
+		renderer.setDeferred(mode == Mode.Deferred);
+		textures = new Texture[4];
+		for (int i = 0; i < textures.length; i++)
+		{
+			textures[i] = new HeadlessTexture("benchmark" + i, new EmptyImageData(64, 64));
+		}
+	}
+
+	public long run()
+	{
+		for (int i = 0; i < quads; i++)
+		{
+			renderer.setLayer(i & 7);
+			if ((i & 3) == 3)
+			{
+				renderer.drawColorQuad(i % 1920, i % 1080, 32, 32, 255, 128, 0, 255, i % 360);
+			} else
+			{
+				renderer.drawTextureQuad(i % 1920, i % 1080, 64, 64, textures[i % textures.length], true);
+			}
+		}
+		renderer.endFrame();
+		long size = backend.getRecordingSize();
+		backend.clearRecording();
+		return size;
+	}
+
+	public void tearDown()
+	{
+		backend = null;
+		renderer = null;
+		textures = null;
+	}
+
+}
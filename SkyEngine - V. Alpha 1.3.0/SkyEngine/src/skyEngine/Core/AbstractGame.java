@@ -7,6 +7,11 @@ public abstract class AbstractGame
 	 * This method should call all of the update functions for the objects in
 	 * your game. It should also tell the engine which objects to update.
 	 * 
+	 * When the GameContainer uses threaded updates, this runs on the update
+	 * thread at the same time as render(). It must not call the Renderer or
+	 * anything else that uses OpenGL, but it may read Input, update GamePads
+	 * and request textures from the AsyncTextureLoader.
+	 * 
 	 * @param gc
 	 *            A GameContainer object that will hold your game
 	 * @param deltaTime
@@ -18,6 +23,10 @@ public abstract class AbstractGame
 	 * This method should call all of the render functions for the objects in
 	 * your game. It should also tell the engine which objects to render.
 	 * 
+	 * When the GameContainer uses threaded updates, this runs on the render
+	 * thread at the same time as update(). It should only draw what it reads
+	 * from gc.getRenderSnapshot() and must not change game state.
+	 * 
 	 * @param gc
 	 *            A GameContainer object that will hold your game
 	 * @param r
@@ -25,4 +34,43 @@ public abstract class AbstractGame
 	 */
 	public abstract void render(GameContainer gc, Renderer r);
 
+	/**
+	 * Renders the game with an interpolation alpha. The engine calls this
+	 * method every frame; by default it ignores the alpha and calls
+	 * render(gc, r). Override it to draw objects between their previous and
+	 * current positions, which keeps motion smooth when the display refreshes
+	 * faster than the game updates (see GameContainer.setUpdateRate()).
+	 * 
+	 * @param gc
+	 *            A GameContainer object that will hold your game
+	 * @param r
+	 *            The main renderer object of your game
+	 * @param alpha
+	 *            How far the frame is between the last update and the next
+	 *            one (0-1)
+	 */
+	public void render(GameContainer gc, Renderer r, float alpha)
+	{
+		render(gc, r);
+	}
+
+	/**
+	 * Copies the state that render() needs so it can be drawn while update()
+	 * keeps changing the game. This is only called when the GameContainer uses
+	 * threaded updates; it runs on the update thread after each round of
+	 * updates, and the result is handed to render() through
+	 * gc.getRenderSnapshot(). A snapshot must not be changed after it is
+	 * returned. Games that use threaded updates must override this: the
+	 * default returns null, which stops the game rather than letting render()
+	 * read state that update() is changing.
+	 * 
+	 * @param gc
+	 *            A GameContainer object that will hold your game
+	 * @return A snapshot of the state to render (never null in threaded mode)
+	 */
+	public Object createSnapshot(GameContainer gc)
+	{
+		return null;
+	}
+
 }
@@ -0,0 +1,195 @@
+package skyEngine.Core;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.newdawn.slick.opengl.ImageData;
+import org.newdawn.slick.opengl.Texture;
+
+public class AsyncTextureLoader
+{
+
+	// Threads that decode images
+	private ExecutorService decodePool;
+
+	// Images that are decoded and waiting for the render thread
+	private ConcurrentLinkedQueue<TextureHandle> uploadQueue = new ConcurrentLinkedQueue<TextureHandle>();
+	private AtomicInteger pendingCount = new AtomicInteger(0);
+
+	// Time the render thread may spend uploading each frame
+	private long uploadBudget = 2000000;
+
+	/**
+	 * Creates an AsyncTextureLoader that decodes on one thread per spare
+	 * processor core
+	 */
+	public AsyncTextureLoader()
+	{
+		this(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+	}
+
+	/**
+	 * Creates an AsyncTextureLoader that decodes on a specified number of
+	 * threads. It does not need an OpenGL context, so textures can start
+	 * decoding before the window is created.
+	 * 
+	 * @param threads
+	 *            The number of decoding threads
+	 */
+	public AsyncTextureLoader(int threads)
+	{
+		decodePool = Executors.newFixedThreadPool(Math.max(1, threads), new ThreadFactory()
+		{
+			private AtomicInteger threadNumber = new AtomicInteger(0);
+
+			public Thread newThread(Runnable r)
+			{
+				Thread thread = new Thread(r, "SkyEngine Texture Decoder " + threadNumber.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Starts loading a texture in the background. The image is decoded on a
+	 * worker thread and uploaded by processUploads().
+	 * 
+	 * @param path
+	 *            The path to the texture resource
+	 * @return A handle that holds the texture once it has loaded
+	 */
+	public TextureHandle loadTexture(String path)
+	{
+		return loadTexture(path, null);
+	}
+
+	/**
+	 * Starts loading a texture in the background. The image is decoded on a
+	 * worker thread and uploaded by processUploads().
+	 * 
+	 * @param path
+	 *            The path to the texture resource
+	 * @param placeholder
+	 *            The texture the handle returns until loading finishes
+	 * @return A handle that holds the texture once it has loaded
+	 */
+	public TextureHandle loadTexture(String path, Texture placeholder)
+	{
+		final TextureHandle handle = new TextureHandle(path, placeholder);
+		pendingCount.incrementAndGet();
+		decodePool.execute(new Runnable()
+		{
+			public void run()
+			{
+				ImageData image = Renderer.decodeImage(handle.getPath());
+				if (image == null)
+				{
+					handle.setFailed();
+					pendingCount.decrementAndGet();
+					return;
+				}
+				handle.setDecodedImage(image);
+				uploadQueue.add(handle);
+			}
+		});
+		return handle;
+	}
+
+	/**
+	 * Uploads decoded images until the upload budget for this frame is used
+	 * up. At least one image is uploaded per call (if one is waiting) so
+	 * loading always makes progress. This must be called on the render thread;
+	 * the GameContainer calls it once per frame.
+	 * 
+	 * @param backend
+	 *            The backend that creates the textures
+	 * @return The number of textures that were uploaded
+	 */
+	public int processUploads(RenderBackend backend)
+	{
+		return processUploads(backend, uploadBudget);
+	}
+
+	/**
+	 * Uploads decoded images until a time budget is used up. At least one
+	 * image is uploaded per call (if one is waiting) so loading always makes
+	 * progress. This must be called on the render thread.
+	 * 
+	 * @param backend
+	 *            The backend that creates the textures
+	 * @param budget
+	 *            The time that may be spent uploading in nanoseconds
+	 * @return The number of textures that were uploaded
+	 */
+	public int processUploads(RenderBackend backend, long budget)
+	{
+		if (uploadQueue.isEmpty())
+		{
+			return 0;
+		}
+
+		long start = System.nanoTime();
+		int uploaded = 0;
+		TextureHandle handle;
+		while ((handle = uploadQueue.poll()) != null)
+		{
+			try
+			{
+				handle.setTexture(backend.createTexture(handle.getDecodedImage()));
+			} catch (Exception e)
+			{
+				e.printStackTrace();
+				handle.setFailed();
+			}
+			pendingCount.decrementAndGet();
+			uploaded++;
+
+			if (System.nanoTime() - start >= budget)
+			{
+				break;
+			}
+		}
+		return uploaded;
+	}
+
+	/**
+	 * Stops the decoding threads. Textures that have not started decoding are
+	 * never loaded.
+	 */
+	public void shutdown()
+	{
+		decodePool.shutdownNow();
+	}
+
+	/**
+	 * Gets the number of textures that have been requested but are not done
+	 * loading
+	 * 
+	 * @return The number of textures still loading
+	 */
+	public int getPendingCount()
+	{
+		return pendingCount.get();
+	}
+
+	public long getUploadBudget()
+	{
+		return uploadBudget;
+	}
+
+	/**
+	 * Sets the time the render thread may spend uploading textures each frame
+	 * 
+	 * @param uploadBudget
+	 *            The budget in nanoseconds
+	 */
+	public void setUploadBudget(long uploadBudget)
+	{
+		this.uploadBudget = uploadBudget;
+	}
+
+}
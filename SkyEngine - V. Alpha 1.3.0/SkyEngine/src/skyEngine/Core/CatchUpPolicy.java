@@ -0,0 +1,17 @@
+package skyEngine.Core;
+
+public enum CatchUpPolicy
+{
+	/**
+	 * Updates that do not fit in the budget of a frame are skipped, so the
+	 * game jumps ahead to the current time
+	 */
+	Drop,
+	/**
+	 * Updates that do not fit in the budget of a frame are run over the next
+	 * frames, so the game slows down for a moment and then catches up. The
+	 * backlog is limited to one more frame of updates and anything beyond it
+	 * is clamped.
+	 */
+	Dilate;
+}
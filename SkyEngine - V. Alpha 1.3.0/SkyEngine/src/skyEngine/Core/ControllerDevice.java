@@ -0,0 +1,222 @@
+package skyEngine.Core;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+
+import net.java.games.input.Component;
+import net.java.games.input.Controller;
+import net.java.games.input.ControllerEnvironment;
+
+class ControllerDevice
+{
+
+	// Most buttons that fit in the button bits
+	private static final int MAX_BUTTONS = 32;
+
+	private Controller device;
+	private int index;
+
+	// Components in the order the device lists them, the same way LWJGL
+	// numbers the buttons and axes of a controller
+	private Component[] buttonComponents;
+	private Component[] axisComponents;
+	private Component povComponent;
+	private float deadZone = 0.0f;
+
+	/**
+	 * Creates a device that reads a JInput controller. A device is read by one
+	 * thread at a time: the thread that updates its GamePad, or the
+	 * GamePadPoller of that GamePad.
+	 * 
+	 * @param device
+	 *            The JInput controller
+	 * @param index
+	 *            The position of the device in its scan
+	 */
+	ControllerDevice(Controller device, int index)
+	{
+		this.device = device;
+		this.index = index;
+
+		ArrayList<Component> buttons = new ArrayList<Component>();
+		ArrayList<Component> axes = new ArrayList<Component>();
+		for (Component component : device.getComponents())
+		{
+			if (component.getIdentifier() instanceof Component.Identifier.Button)
+			{
+				buttons.add(component);
+			} else if (component.getIdentifier().equals(Component.Identifier.Axis.POV))
+			{
+				povComponent = povComponent == null ? component : povComponent;
+			} else
+			{
+				axes.add(component);
+			}
+		}
+		buttonComponents = buttons.toArray(new Component[buttons.size()]);
+		axisComponents = axes.toArray(new Component[axes.size()]);
+	}
+
+	/**
+	 * Lists the controllers that are connected now. JInput's default
+	 * environment (which LWJGL's Controllers uses) keeps the list it found
+	 * first, so every scan asks a new environment; if one can not be created
+	 * the default environment is used and new devices are not seen.
+	 * 
+	 * @return The devices, excluding keyboards and mice
+	 */
+	static ControllerDevice[] scan()
+	{
+		ControllerEnvironment environment;
+		try
+		{
+			// The class is not public, but its constructor is
+			Class<?> type = Class.forName("net.java.games.input.DefaultControllerEnvironment");
+			Constructor<?> constructor = type.getDeclaredConstructor();
+			constructor.setAccessible(true);
+			environment = (ControllerEnvironment) constructor.newInstance();
+		} catch (Exception e)
+		{
+			e.printStackTrace();
+			environment = ControllerEnvironment.getDefaultEnvironment();
+		}
+
+		ArrayList<ControllerDevice> devices = new ArrayList<ControllerDevice>();
+		try
+		{
+			for (Controller controller : environment.getControllers())
+			{
+				if (controller.getType() != Controller.Type.KEYBOARD && controller.getType() != Controller.Type.MOUSE)
+				{
+					addDevices(controller, devices);
+				}
+			}
+		} catch (Throwable e)
+		{
+			// JInput could not load its natives
+			e.printStackTrace();
+		}
+		return devices.toArray(new ControllerDevice[devices.size()]);
+	}
+
+	/**
+	 * Adds a controller, or the controllers inside it if it has any
+	 */
+	private static void addDevices(Controller controller, ArrayList<ControllerDevice> devices)
+	{
+		Controller[] children = controller.getControllers();
+		if (children.length == 0)
+		{
+			devices.add(new ControllerDevice(controller, devices.size()));
+			return;
+		}
+		for (Controller child : children)
+		{
+			addDevices(child, devices);
+		}
+	}
+
+	/**
+	 * Reads the current state of the device
+	 * 
+	 * @return Whether or not the device is still connected
+	 */
+	boolean poll()
+	{
+		return device.poll();
+	}
+
+	/**
+	 * Gets the buttons that were down at the last poll
+	 * 
+	 * @return One bit per device button
+	 */
+	int readButtons()
+	{
+		int buttons = 0;
+		for (int i = 0; i < buttonComponents.length && i < MAX_BUTTONS; i++)
+		{
+			if (buttonComponents[i].getPollData() != 0.0f)
+			{
+				buttons |= 1 << i;
+			}
+		}
+		return buttons;
+	}
+
+	/**
+	 * Gets the axis values of the last poll, with the dead zone applied
+	 * 
+	 * @param values
+	 *            The array to fill
+	 * @return The number of axes read
+	 */
+	int readAxes(float[] values)
+	{
+		int count = Math.min(values.length, axisComponents.length);
+		for (int i = 0; i < count; i++)
+		{
+			float value = axisComponents[i].getPollData();
+			values[i] = Math.abs(value) < deadZone ? 0.0f : value;
+		}
+		return count;
+	}
+
+	/**
+	 * Gets the hat position of the last poll as d-pad bits
+	 * 
+	 * @return One bit per direction (see GamePad.dpadUp)
+	 */
+	int readDPad()
+	{
+		if (povComponent == null)
+		{
+			return 0;
+		}
+		float pov = povComponent.getPollData();
+		int dPad = 0;
+		if (pov == Component.POV.UP_LEFT || pov == Component.POV.UP || pov == Component.POV.UP_RIGHT)
+		{
+			dPad |= 1 << GamePad.dpadUp;
+		}
+		if (pov == Component.POV.DOWN_LEFT || pov == Component.POV.DOWN || pov == Component.POV.DOWN_RIGHT)
+		{
+			dPad |= 1 << GamePad.dpadDown;
+		}
+		if (pov == Component.POV.UP_LEFT || pov == Component.POV.LEFT || pov == Component.POV.DOWN_LEFT)
+		{
+			dPad |= 1 << GamePad.dpadLeft;
+		}
+		if (pov == Component.POV.UP_RIGHT || pov == Component.POV.RIGHT || pov == Component.POV.DOWN_RIGHT)
+		{
+			dPad |= 1 << GamePad.dpadRight;
+		}
+		return dPad;
+	}
+
+	String getName()
+	{
+		return device.getName();
+	}
+
+	int getIndex()
+	{
+		return index;
+	}
+
+	int getButtonCount()
+	{
+		return buttonComponents.length;
+	}
+
+	int getAxisCount()
+	{
+		return axisComponents.length;
+	}
+
+	void setDeadZone(float deadZone)
+	{
+		this.deadZone = deadZone;
+	}
+
+}
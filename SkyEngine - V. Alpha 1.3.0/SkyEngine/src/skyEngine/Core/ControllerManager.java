@@ -0,0 +1,418 @@
+package skyEngine.Core;
+
+import java.util.ArrayList;
+
+public class ControllerManager
+{
+
+	// Number of controllers (players) that can be connected at once
+	public static final int MAX_CONTROLLERS = 8;
+
+	// Most device axes that are read
+	private static final int MAX_DEVICE_AXES = 16;
+
+	// The manager used by GamePads created without one
+	private static ControllerManager shared = null;
+
+	// Profiles that are checked in order; the generic profile is used when
+	// none matches
+	private ArrayList<ControllerProfile> profiles = new ArrayList<ControllerProfile>();
+
+	// Devices and their state, one slot per controller. The arrays are
+	// allocated once so rescans do not make garbage.
+	private ControllerDevice[] devices = new ControllerDevice[MAX_CONTROLLERS];
+	private ControllerProfile[] slotProfiles = new ControllerProfile[MAX_CONTROLLERS];
+	private GamePad[] gamePads = new GamePad[MAX_CONTROLLERS];
+
+	// GamePads that read their controller on a polling thread
+	private ArrayList<GamePad> polledPads = new ArrayList<GamePad>();
+	private int[] buttons = new int[MAX_CONTROLLERS];
+	private int[] buttonsLast = new int[MAX_CONTROLLERS];
+	private int[] dPads = new int[MAX_CONTROLLERS];
+	private int[] dPadsLast = new int[MAX_CONTROLLERS];
+	private float[] axes = new float[MAX_CONTROLLERS * GamePad.axisCount];
+	private float[] axisDeltas = new float[MAX_CONTROLLERS * GamePad.axisCount];
+	private int connectedCount = 0;
+
+	// Reused while reading and rescanning
+	private float[] deviceAxes = new float[MAX_DEVICE_AXES];
+	private float[] axisInput = new float[GamePad.axisCount];
+	private float[] noAxes = new float[GamePad.axisCount];
+	private boolean[] claimed = new boolean[0];
+
+	/**
+	 * Creates a ControllerManager and gives a slot to every controller that is
+	 * connected. Controllers with a known profile get the first slots.
+	 */
+	public ControllerManager()
+	{
+		profiles.add(ControllerProfile.xbox);
+		profiles.add(ControllerProfile.playStation);
+		rescan();
+	}
+
+	/**
+	 * Gets the manager used by GamePads that are created without one, and
+	 * creates it the first time
+	 * 
+	 * @return The shared manager
+	 */
+	public static ControllerManager getShared()
+	{
+		if (shared == null)
+		{
+			shared = new ControllerManager();
+		}
+		return shared;
+	}
+
+	/**
+	 * Destroys the shared manager if it has been created
+	 */
+	static void destroyShared()
+	{
+		if (shared != null)
+		{
+			shared.destroy();
+			shared = null;
+		}
+	}
+
+	/**
+	 * Looks for controllers that were connected or disconnected. Controllers
+	 * that are still there keep their slot (and player number), slots of
+	 * missing controllers are released and new controllers fill the free
+	 * slots. Every rescan lists the devices through a new JInput environment,
+	 * which opens each device again, so call it from a menu or when the player
+	 * asks rather than every frame. GamePads that poll their controller stop
+	 * while the slots change and start again for the device now in their
+	 * slot, or once a later rescan fills it.
+	 */
+	public void rescan()
+	{
+		// The pollers read the old devices through the old profiles
+		for (int i = 0; i < polledPads.size(); i++)
+		{
+			polledPads.get(i).pausePolling();
+		}
+		synchronized (Input.lock)
+		{
+			assignSlots();
+		}
+		for (int i = 0; i < polledPads.size(); i++)
+		{
+			polledPads.get(i).resumePolling();
+		}
+	}
+
+	/**
+	 * Lists the connected devices and gives every device a slot
+	 */
+	private void assignSlots()
+	{
+		ControllerDevice[] found = ControllerDevice.scan();
+		int count = found.length;
+		if (claimed.length < count)
+		{
+			claimed = new boolean[count];
+		}
+		for (int i = 0; i < count; i++)
+		{
+			claimed[i] = false;
+		}
+
+		// Slots keep the device with the same name, preferring the same index
+		for (int slot = 0; slot < MAX_CONTROLLERS; slot++)
+		{
+			ControllerDevice previous = devices[slot];
+			devices[slot] = null;
+			if (previous == null)
+			{
+				continue;
+			}
+			int match = -1;
+			for (int i = 0; i < count; i++)
+			{
+				ControllerDevice candidate = found[i];
+				if (!claimed[i] && candidate.getName().equals(previous.getName()))
+				{
+					match = i;
+					if (candidate.getIndex() == previous.getIndex())
+					{
+						break;
+					}
+				}
+			}
+			if (match >= 0)
+			{
+				claimed[match] = true;
+				assign(slot, found[match]);
+			} else
+			{
+				release(slot);
+			}
+		}
+
+		// New devices with a profile first, then every other device
+		for (int pass = 0; pass < 2; pass++)
+		{
+			for (int i = 0; i < count; i++)
+			{
+				ControllerDevice device = found[i];
+				if (claimed[i] || device.getButtonCount() == 0 || (pass == 0) != (findProfile(device) != null))
+				{
+					continue;
+				}
+				int slot = findFreeSlot();
+				if (slot < 0)
+				{
+					return;
+				}
+				claimed[i] = true;
+				assign(slot, device);
+			}
+		}
+	}
+
+	/**
+	 * Puts a device in a slot and sets it up with its profile
+	 */
+	private void assign(int slot, ControllerDevice device)
+	{
+		if (devices[slot] == null)
+		{
+			connectedCount++;
+		}
+		devices[slot] = device;
+		ControllerProfile profile = findProfile(device);
+		slotProfiles[slot] = profile == null ? ControllerProfile.generic : profile;
+		device.setDeadZone(slotProfiles[slot].getDeadZone());
+	}
+
+	/**
+	 * Empties a slot and clears its state
+	 */
+	private void release(int slot)
+	{
+		if (devices[slot] != null)
+		{
+			connectedCount--;
+		}
+		devices[slot] = null;
+		slotProfiles[slot] = null;
+		setState(slot, 0, noAxes, 0);
+		setState(slot, 0, noAxes, 0);
+	}
+
+	/**
+	 * Finds the first slot that has no controller
+	 */
+	private int findFreeSlot()
+	{
+		for (int slot = 0; slot < MAX_CONTROLLERS; slot++)
+		{
+			if (devices[slot] == null)
+			{
+				return slot;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Finds the profile of a device
+	 * 
+	 * @return The first matching profile, or null if there is none
+	 */
+	private ControllerProfile findProfile(ControllerDevice device)
+	{
+		for (int i = 0; i < profiles.size(); i++)
+		{
+			if (profiles.get(i).matches(device.getName()))
+			{
+				return profiles.get(i);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Updates every GamePad that has been handed out by getGamePad()
+	 */
+	public void update()
+	{
+		for (int slot = 0; slot < MAX_CONTROLLERS; slot++)
+		{
+			if (gamePads[slot] != null)
+			{
+				gamePads[slot].update();
+			}
+		}
+	}
+
+	/**
+	 * Polls the device in a slot and reads it through its profile. An empty
+	 * slot, or a device that was pulled out, reads as nothing pressed. The
+	 * device is polled and read under the input lock, so in threaded mode
+	 * the render thread can not poll devices or rescan in the middle of it.
+	 */
+	void readController(int slot)
+	{
+		synchronized (Input.lock)
+		{
+			ControllerDevice device = devices[slot];
+			if (device == null || !device.poll())
+			{
+				setState(slot, 0, noAxes, 0);
+				return;
+			}
+
+			ControllerProfile profile = slotProfiles[slot];
+			int axisCount = device.readAxes(deviceAxes);
+			setState(slot, profile.mapButtons(device.readButtons()),
+					profile.mapAxes(deviceAxes, axisCount, axisInput), device.readDPad());
+		}
+	}
+
+	/**
+	 * Moves the current state of a slot to its last state and sets a new one
+	 */
+	void setState(int slot, int newButtons, float[] newAxes, int newDPad)
+	{
+		buttonsLast[slot] = buttons[slot];
+		buttons[slot] = newButtons;
+		dPadsLast[slot] = dPads[slot];
+		dPads[slot] = newDPad;
+		int offset = slot * GamePad.axisCount;
+		for (int i = 0; i < GamePad.axisCount; i++)
+		{
+			axisDeltas[offset + i] = axes[offset + i] - (axes[offset + i] = newAxes[i]);
+		}
+	}
+
+	/**
+	 * Gets the GamePad of a player. The same GamePad is returned every time,
+	 * and it keeps its player number when controllers are rescanned.
+	 * 
+	 * @param player
+	 *            The player (0 to MAX_CONTROLLERS - 1)
+	 * @return The GamePad of the player
+	 */
+	public GamePad getGamePad(int player)
+	{
+		if (gamePads[player] == null)
+		{
+			gamePads[player] = new GamePad(this, player);
+		}
+		return gamePads[player];
+	}
+
+	/**
+	 * Adds a profile that is checked before the profiles that are already
+	 * added. It is used for devices found by the next rescan().
+	 * 
+	 * @param profile
+	 *            The profile to add
+	 */
+	public void addProfile(ControllerProfile profile)
+	{
+		profiles.add(0, profile);
+	}
+
+	/**
+	 * Stops every GamePad from polling and destroys the controllers
+	 */
+	public void destroy()
+	{
+		while (!polledPads.isEmpty())
+		{
+			polledPads.get(polledPads.size() - 1).stopPolling();
+		}
+		for (int slot = 0; slot < MAX_CONTROLLERS; slot++)
+		{
+			devices[slot] = null;
+		}
+		connectedCount = 0;
+	}
+
+	public boolean isConnected(int slot)
+	{
+		return devices[slot] != null;
+	}
+
+	public int getConnectedCount()
+	{
+		return connectedCount;
+	}
+
+	/**
+	 * Gets the name of the device in a slot
+	 * 
+	 * @param slot
+	 *            The slot of the device
+	 * @return The name, or null if the slot is empty
+	 */
+	public String getName(int slot)
+	{
+		ControllerDevice device = devices[slot];
+		return device == null ? null : device.getName();
+	}
+
+	/**
+	 * Keeps track of a GamePad that polls its controller, so rescan() can
+	 * move its poller to a new device
+	 */
+	void addPolledPad(GamePad pad)
+	{
+		if (!polledPads.contains(pad))
+		{
+			polledPads.add(pad);
+		}
+	}
+
+	void removePolledPad(GamePad pad)
+	{
+		polledPads.remove(pad);
+	}
+
+	ControllerDevice getDevice(int slot)
+	{
+		return devices[slot];
+	}
+
+	ControllerProfile getProfile(int slot)
+	{
+		return slotProfiles[slot];
+	}
+
+	int getButtons(int slot)
+	{
+		return buttons[slot];
+	}
+
+	int getButtonsLast(int slot)
+	{
+		return buttonsLast[slot];
+	}
+
+	int getDPad(int slot)
+	{
+		return dPads[slot];
+	}
+
+	int getDPadLast(int slot)
+	{
+		return dPadsLast[slot];
+	}
+
+	float getAxis(int slot, int axis)
+	{
+		return axes[slot * GamePad.axisCount + axis];
+	}
+
+	float getAxisDelta(int slot, int axis)
+	{
+		return axisDeltas[slot * GamePad.axisCount + axis];
+	}
+
+}
@@ -0,0 +1,170 @@
+package skyEngine.Core;
+
+public class ControllerProfile
+{
+
+	// Profiles for common controllers
+	public static final ControllerProfile xbox = new ControllerProfile("Xbox", new int[] { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 },
+			new int[] { 0, 1, 2, 3, 4 }, "xbox");
+	public static final ControllerProfile playStation = new ControllerProfile("PlayStation",
+			new int[] { 1, 2, 0, 3, 4, 5, 8, 9, 10, 11 }, new int[] { 0, 1, 2, 3, 4 }, "wireless controller",
+			"playstation", "dualshock", "dualsense");
+	public static final ControllerProfile generic = new ControllerProfile("Generic",
+			new int[] { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 }, new int[] { 0, 1, 2, 3, 4 });
+
+	private String name;
+
+	// Lower case parts of device names the profile is used for
+	private String[] namePatterns;
+
+	// Device button and axis of every GamePad button and axis (-1 for none)
+	private int[] buttonMap;
+	private int[] axisMap;
+	private float[] axisScales;
+	private float deadZone = 0.3f;
+
+	/**
+	 * Creates a profile that maps the buttons and axes of a kind of controller
+	 * onto the GamePad layout (btnA, btnB, ..., leftJoyY, leftJoyX, ...)
+	 * 
+	 * @param name
+	 *            The name of the profile
+	 * @param buttonMap
+	 *            The device button of each GamePad button, in the order of
+	 *            the GamePad.btn constants (-1 if there is none)
+	 * @param axisMap
+	 *            The device axis of each GamePad axis, in the order of the
+	 *            GamePad axis constants (-1 if there is none)
+	 * @param namePatterns
+	 *            Parts of the device names the profile is used for (case is
+	 *            ignored)
+	 */
+	public ControllerProfile(String name, int[] buttonMap, int[] axisMap, String... namePatterns)
+	{
+		this.name = name;
+		this.buttonMap = buttonMap.clone();
+		this.axisMap = axisMap.clone();
+		axisScales = new float[axisMap.length];
+		for (int i = 0; i < axisScales.length; i++)
+		{
+			axisScales[i] = 1.0f;
+		}
+		this.namePatterns = new String[namePatterns.length];
+		for (int i = 0; i < namePatterns.length; i++)
+		{
+			this.namePatterns[i] = namePatterns[i].toLowerCase();
+		}
+	}
+
+	/**
+	 * Determines if the profile is meant for a device
+	 * 
+	 * @param deviceName
+	 *            The name the device reports
+	 * @return Whether or not a name pattern is part of the device name
+	 */
+	public boolean matches(String deviceName)
+	{
+		String lowerName = deviceName.toLowerCase();
+		for (String pattern : namePatterns)
+		{
+			if (lowerName.contains(pattern))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Converts device button bits (bit n is device button n) into GamePad
+	 * button bits
+	 * 
+	 * @param deviceButtons
+	 *            The device buttons that are down
+	 * @return The GamePad buttons that are down
+	 */
+	public int mapButtons(int deviceButtons)
+	{
+		int buttons = 0;
+		for (int i = 0; i < buttonMap.length; i++)
+		{
+			int deviceButton = buttonMap[i];
+			if (deviceButton >= 0 && deviceButton < 32 && (deviceButtons & (1 << deviceButton)) != 0)
+			{
+				buttons |= 1 << i;
+			}
+		}
+		return buttons;
+	}
+
+	/**
+	 * Converts device axis values into GamePad axis values
+	 * 
+	 * @param deviceAxes
+	 *            The values of the device axes
+	 * @param deviceAxisCount
+	 *            The number of device axes
+	 * @param axes
+	 *            The array the GamePad axis values are written to
+	 * @return The axes array
+	 */
+	public float[] mapAxes(float[] deviceAxes, int deviceAxisCount, float[] axes)
+	{
+		for (int i = 0; i < axes.length; i++)
+		{
+			int deviceAxis = i < axisMap.length ? axisMap[i] : -1;
+			if (deviceAxis >= 0 && deviceAxis < deviceAxisCount)
+			{
+				axes[i] = deviceAxes[deviceAxis] * axisScales[i];
+			} else
+			{
+				axes[i] = 0.0f;
+			}
+		}
+		return axes;
+	}
+
+	/**
+	 * Makes an axis read the other way round (such as an inverted Y-axis)
+	 * 
+	 * @param axis
+	 *            The GamePad axis
+	 * @param inverted
+	 *            Whether or not the axis is inverted
+	 */
+	public void setInverted(int axis, boolean inverted)
+	{
+		if (axis >= 0 && axis < axisScales.length)
+		{
+			axisScales[axis] = inverted ? -1.0f : 1.0f;
+		}
+	}
+
+	public boolean isInverted(int axis)
+	{
+		return axis >= 0 && axis < axisScales.length && axisScales[axis] < 0;
+	}
+
+	public String getName()
+	{
+		return name;
+	}
+
+	public float getDeadZone()
+	{
+		return deadZone;
+	}
+
+	/**
+	 * Sets the dead zone given to the axes of devices that use the profile
+	 * 
+	 * @param deadZone
+	 *            The dead zone (0-1)
+	 */
+	public void setDeadZone(float deadZone)
+	{
+		this.deadZone = deadZone;
+	}
+
+}
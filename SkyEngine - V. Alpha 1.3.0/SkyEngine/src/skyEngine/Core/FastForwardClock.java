@@ -0,0 +1,84 @@
+package skyEngine.Core;
+
+public class FastForwardClock implements GameClock
+{
+
+	// Replaced as a whole, so the render thread never reads the start of one
+	// speed change with the base time of another
+	private volatile Segment segment;
+
+	/**
+	 * Creates a clock that follows real time multiplied by a speed. Frames are
+	 * still paced in real time while the game updates faster (or slower).
+	 * 
+	 * @param speed
+	 *            How many seconds of game time pass per real second
+	 */
+	public FastForwardClock(double speed)
+	{
+		segment = new Segment(System.nanoTime(), 0, Math.max(speed, 0));
+	}
+
+	public void reset()
+	{
+		segment = new Segment(System.nanoTime(), 0, segment.speed);
+	}
+
+	/**
+	 * Real time moves on by itself
+	 */
+	public void advance(double step)
+	{
+	}
+
+	public double getTime()
+	{
+		return segment.getTime(System.nanoTime());
+	}
+
+	public double getSpeed()
+	{
+		return segment.speed;
+	}
+
+	/**
+	 * Changes the speed of the clock without making the time jump
+	 * 
+	 * @param speed
+	 *            How many seconds of game time pass per real second
+	 */
+	public void setSpeed(double speed)
+	{
+		long now = System.nanoTime();
+		segment = new Segment(now, segment.getTime(now), Math.max(speed, 0));
+	}
+
+	/**
+	 * The stretch of time since the last speed change. It is immutable so
+	 * getTime() always sees a start, base time and speed that belong
+	 * together.
+	 */
+	private static class Segment
+	{
+
+		private final long start;
+
+		// Time reached before the speed changed
+		private final double baseTime;
+		private final double speed;
+
+		public Segment(long start, double baseTime, double speed)
+		{
+			this.start = start;
+			this.baseTime = baseTime;
+			this.speed = speed;
+		}
+
+		private double getTime(long now)
+		{
+			return baseTime + (now - start) / 1000000000.0 * speed;
+		}
+
+	}
+
+}
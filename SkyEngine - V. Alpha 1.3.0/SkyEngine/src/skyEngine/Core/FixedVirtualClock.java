@@ -0,0 +1,65 @@
+package skyEngine.Core;
+
+public class FixedVirtualClock implements GameClock
+{
+
+	private int stepsPerPass;
+
+	// Written by the update thread, read by the render thread
+	private volatile double time = 0;
+
+	/**
+	 * Creates a clock that moves forward by exactly one update step every pass
+	 * of the game loop. The game then runs as fast as the processor allows and
+	 * every run produces the same sequence of updates.
+	 */
+	public FixedVirtualClock()
+	{
+		this(1);
+	}
+
+	/**
+	 * Creates a clock that moves forward by a fixed number of update steps
+	 * every pass of the game loop. More steps per pass means fewer frames are
+	 * rendered per update.
+	 * 
+	 * @param stepsPerPass
+	 *            The number of update steps per pass of the loop
+	 */
+	public FixedVirtualClock(int stepsPerPass)
+	{
+		this.stepsPerPass = Math.max(stepsPerPass, 1);
+	}
+
+	public void reset()
+	{
+		time = 0;
+	}
+
+	/**
+	 * Moves the clock forward by a whole number of steps
+	 */
+	public void advance(double step)
+	{
+		time += step * stepsPerPass;
+	}
+
+	public double getTime()
+	{
+		return time;
+	}
+
+	/**
+	 * Virtual time does not depend on real time at all
+	 */
+	public double getSpeed()
+	{
+		return Double.POSITIVE_INFINITY;
+	}
+
+	public int getStepsPerPass()
+	{
+		return stepsPerPass;
+	}
+
+}
@@ -0,0 +1,215 @@
+package skyEngine.Core;
+
+import java.util.concurrent.locks.LockSupport;
+
+public class FramePacer
+{
+
+	// Coarse sleeps are made in slices of this length so each oversleep can be
+	// measured
+	private static final long SLEEP_SLICE = 1000000;
+
+	// Frame timing. The target period may be set from another thread; the
+	// pacing thread copies it into framePeriod and restarts its own grid.
+	private volatile long targetPeriod = 0;
+	private volatile boolean restart = false;
+	private long framePeriod = 0;
+	private long nextFrame = 0;
+
+	// Estimate of how long a sleep slice really takes (Welford's algorithm)
+	private double sleepEstimate = SLEEP_SLICE * 2;
+	private double sleepMean = SLEEP_SLICE;
+	private double sleepVariance = 0;
+	private long sleepSamples = 0;
+
+	// Pacing error statistics
+	private long lastError = 0;
+	private long maxError = 0;
+	private long totalError = 0;
+	private long frames = 0;
+
+	/**
+	 * Creates a FramePacer that does not limit the frame rate until a target
+	 * rate is set
+	 */
+	public FramePacer()
+	{
+	}
+
+	/**
+	 * Creates a FramePacer that paces frames at a specified rate
+	 * 
+	 * @param framesPerSecond
+	 *            The target frame rate
+	 */
+	public FramePacer(double framesPerSecond)
+	{
+		setTargetRate(framesPerSecond);
+	}
+
+	/**
+	 * Waits until the next frame is due. Frames are scheduled on a fixed grid
+	 * so that small wake up delays do not add up; if the game falls more than
+	 * a frame behind the grid restarts from now instead of rushing frames out
+	 * to catch up.
+	 */
+	public void waitForNextFrame()
+	{
+		if (restart)
+		{
+			restart = false;
+			framePeriod = targetPeriod;
+			nextFrame = 0;
+		}
+		if (framePeriod == 0)
+		{
+			return;
+		}
+
+		long now = System.nanoTime();
+		if (nextFrame == 0 || now - nextFrame > framePeriod)
+		{
+			nextFrame = now + framePeriod;
+		}
+
+		long deadline = nextFrame;
+		sleepUntil(deadline);
+		nextFrame = deadline + framePeriod;
+
+		lastError = System.nanoTime() - deadline;
+		totalError += Math.abs(lastError);
+		maxError = Math.max(maxError, Math.abs(lastError));
+		frames++;
+	}
+
+	/**
+	 * Sleeps for a precise amount of time. Most of the time is spent parked,
+	 * and the last part (which the operating system cannot time precisely) is
+	 * spent spinning.
+	 * 
+	 * @param nanoseconds
+	 *            The time to sleep
+	 */
+	public void sleep(long nanoseconds)
+	{
+		sleepUntil(System.nanoTime() + nanoseconds);
+	}
+
+	/**
+	 * Parks in short slices while there is enough time left for a slice to
+	 * safely finish, then spins until the deadline
+	 */
+	private void sleepUntil(long deadline)
+	{
+		long now = System.nanoTime();
+		while (deadline - now > sleepEstimate)
+		{
+			LockSupport.parkNanos(SLEEP_SLICE);
+			long woke = System.nanoTime();
+			updateSleepEstimate(woke - now);
+			now = woke;
+		}
+		while (System.nanoTime() - deadline < 0)
+		{
+			Thread.yield();
+		}
+	}
+
+	/**
+	 * Updates the estimate of how long a sleep slice takes. The estimate is
+	 * one standard deviation above the mean, so it adapts to the timer
+	 * resolution of the operating system.
+	 */
+	private void updateSleepEstimate(long observed)
+	{
+		sleepSamples++;
+		double delta = observed - sleepMean;
+		sleepMean += delta / sleepSamples;
+		sleepVariance += delta * (observed - sleepMean);
+		sleepEstimate = sleepMean + Math.sqrt(sleepVariance / sleepSamples);
+
+		// Forget old samples slowly so the estimate follows changes
+		if (sleepSamples >= 1000)
+		{
+			sleepSamples = 500;
+			sleepVariance /= 2;
+		}
+	}
+
+	/**
+	 * Restarts the frame grid from the next call to waitForNextFrame()
+	 */
+	public void reset()
+	{
+		restart = true;
+	}
+
+	/**
+	 * Resets the pacing error statistics
+	 */
+	public void resetStatistics()
+	{
+		lastError = 0;
+		maxError = 0;
+		totalError = 0;
+		frames = 0;
+	}
+
+	/**
+	 * Sets the number of frames per second to pace at. This may be called from
+	 * any thread; the new rate is applied by the next call to
+	 * waitForNextFrame().
+	 * 
+	 * @param framesPerSecond
+	 *            The target frame rate, or 0 to not limit the frame rate
+	 */
+	public void setTargetRate(double framesPerSecond)
+	{
+		targetPeriod = framesPerSecond > 0 ? (long) (1000000000.0 / framesPerSecond) : 0;
+		restart = true;
+	}
+
+	public double getTargetRate()
+	{
+		long period = targetPeriod;
+		return period == 0 ? 0 : 1000000000.0 / period;
+	}
+
+	/**
+	 * Gets how late the last frame started compared to when it was due
+	 * 
+	 * @return The pacing error in nanoseconds
+	 */
+	public long getLastError()
+	{
+		return lastError;
+	}
+
+	/**
+	 * Gets the average distance between when frames were due and when they
+	 * started
+	 * 
+	 * @return The mean pacing error in nanoseconds
+	 */
+	public double getMeanError()
+	{
+		return frames == 0 ? 0 : (double) totalError / frames;
+	}
+
+	public long getMaxError()
+	{
+		return maxError;
+	}
+
+	/**
+	 * Gets how long the pacer currently expects a coarse sleep to take. When
+	 * less time than this is left, the pacer spins instead of sleeping.
+	 * 
+	 * @return The sleep estimate in nanoseconds
+	 */
+	public long getSleepEstimate()
+	{
+		return (long) sleepEstimate;
+	}
+
+}
@@ -0,0 +1,10 @@
+package skyEngine.Core;
+
+public enum FramePhase
+{
+	Update,
+	Render,
+	Swap,
+	Sleep,
+	Frame;
+}
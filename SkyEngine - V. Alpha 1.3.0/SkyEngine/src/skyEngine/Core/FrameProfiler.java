@@ -0,0 +1,307 @@
+package skyEngine.Core;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class FrameProfiler
+{
+
+	// Histogram layout: values below 64 get their own bucket, larger values
+	// are split into 32 buckets per power of two (about 3% precision)
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int LINEAR_BUCKET_COUNT = SUB_BUCKET_COUNT * 2;
+	private static final int BUCKET_COUNT = LINEAR_BUCKET_COUNT + (63 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+	private static final int PHASE_COUNT = FramePhase.values().length;
+
+	// Recent samples of each phase. Every phase has a single writing thread,
+	// which publishes a sample by advancing the written count.
+	private int capacity;
+	private long[][] samples;
+	private AtomicLongArray written = new AtomicLongArray(PHASE_COUNT);
+
+	// Histograms of every sample since the last reset
+	private long[][] histograms = new long[PHASE_COUNT][BUCKET_COUNT];
+	private long[] totals = new long[PHASE_COUNT];
+	private long[] maximums = new long[PHASE_COUNT];
+
+	/**
+	 * Creates a FrameProfiler that keeps the last 4096 samples of each phase
+	 */
+	public FrameProfiler()
+	{
+		this(4096);
+	}
+
+	/**
+	 * Creates a FrameProfiler that keeps a specified number of recent samples
+	 * of each phase
+	 * 
+	 * @param capacity
+	 *            The number of samples kept per phase
+	 */
+	public FrameProfiler(int capacity)
+	{
+		this.capacity = Math.max(capacity, 16);
+		samples = new long[PHASE_COUNT][this.capacity];
+	}
+
+	/**
+	 * Records how long a phase took. Each phase must only be recorded from one
+	 * thread at a time; the GameContainer records update timings on the
+	 * update thread and everything else on the render thread.
+	 * 
+	 * @param phase
+	 *            The phase that was measured
+	 * @param nanoseconds
+	 *            The duration of the phase
+	 */
+	public void record(FramePhase phase, long nanoseconds)
+	{
+		int p = phase.ordinal();
+		long value = Math.max(nanoseconds, 0);
+		long count = written.get(p);
+
+		samples[p][(int) (count % capacity)] = value;
+		histograms[p][getBucket(value)]++;
+		totals[p] += value;
+		if (value > maximums[p])
+		{
+			maximums[p] = value;
+		}
+		written.lazySet(p, count + 1);
+	}
+
+	/**
+	 * Gets the histogram bucket of a value
+	 */
+	private static int getBucket(long value)
+	{
+		if (value < LINEAR_BUCKET_COUNT)
+		{
+			return (int) value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+		return LINEAR_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_COUNT + subBucket;
+	}
+
+	/**
+	 * Gets the value in the middle of a histogram bucket
+	 */
+	private static long getBucketValue(int bucket)
+	{
+		if (bucket < LINEAR_BUCKET_COUNT)
+		{
+			return bucket;
+		}
+		int shift = (bucket - LINEAR_BUCKET_COUNT) / SUB_BUCKET_COUNT + 1;
+		long subBucket = (bucket - LINEAR_BUCKET_COUNT) % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+		return (subBucket << shift) + ((1L << shift) >> 1);
+	}
+
+	/**
+	 * Gets a percentile of the durations of a phase since the last reset. The
+	 * result is accurate to about 3%.
+	 * 
+	 * @param phase
+	 *            The phase to look up
+	 * @param percentile
+	 *            The percentile (such as 50, 99 or 99.9)
+	 * @return The duration in nanoseconds, or 0 if nothing was recorded
+	 */
+	public long getPercentile(FramePhase phase, double percentile)
+	{
+		int p = phase.ordinal();
+		long count = written.get(p);
+		if (count == 0)
+		{
+			return 0;
+		}
+
+		long target = (long) Math.ceil(Math.min(Math.max(percentile, 0), 100) / 100.0 * count);
+		target = Math.max(target, 1);
+		long seen = 0;
+		for (int bucket = 0; bucket < BUCKET_COUNT; bucket++)
+		{
+			seen += histograms[p][bucket];
+			if (seen >= target)
+			{
+				return Math.min(getBucketValue(bucket), maximums[p]);
+			}
+		}
+		return maximums[p];
+	}
+
+	/**
+	 * Gets the average duration of a phase since the last reset
+	 * 
+	 * @param phase
+	 *            The phase to look up
+	 * @return The average duration in nanoseconds
+	 */
+	public double getMean(FramePhase phase)
+	{
+		long count = written.get(phase.ordinal());
+		if (count == 0)
+		{
+			return 0;
+		}
+		return (double) totals[phase.ordinal()] / count;
+	}
+
+	public long getMax(FramePhase phase)
+	{
+		return maximums[phase.ordinal()];
+	}
+
+	public long getCount(FramePhase phase)
+	{
+		return written.get(phase.ordinal());
+	}
+
+	public int getCapacity()
+	{
+		return capacity;
+	}
+
+	/**
+	 * Copies the most recent samples of a phase, oldest first
+	 * 
+	 * @param phase
+	 *            The phase to copy
+	 * @return The recent durations in nanoseconds
+	 */
+	public long[] getRecentSamples(FramePhase phase)
+	{
+		int p = phase.ordinal();
+		long count = written.get(p);
+		int size = (int) Math.min(count, capacity);
+		long[] recent = new long[size];
+		for (int i = 0; i < size; i++)
+		{
+			recent[i] = samples[p][(int) ((count - size + i) % capacity)];
+		}
+		return recent;
+	}
+
+	/**
+	 * Creates a readable table with the percentiles of every phase
+	 * 
+	 * @return The summary in milliseconds
+	 */
+	public String getSummary()
+	{
+		StringBuilder summary = new StringBuilder();
+		summary.append(String.format("%-8s %10s %10s %10s %10s %10s %10s%n", "phase", "count", "mean", "p50", "p99",
+				"p99.9", "max"));
+		for (FramePhase phase : FramePhase.values())
+		{
+			summary.append(String.format("%-8s %10d %10.3f %10.3f %10.3f %10.3f %10.3f%n", phase, getCount(phase),
+					getMean(phase) / 1000000.0, getPercentile(phase, 50) / 1000000.0,
+					getPercentile(phase, 99) / 1000000.0, getPercentile(phase, 99.9) / 1000000.0,
+					getMax(phase) / 1000000.0));
+		}
+		return summary.toString();
+	}
+
+	/**
+	 * Writes the recent samples of every phase to a CSV file with the columns
+	 * phase, sample and nanoseconds
+	 * 
+	 * @param path
+	 *            The file to write
+	 */
+	public void writeCsv(String path)
+	{
+		PrintWriter writer = null;
+		try
+		{
+			writer = new PrintWriter(new FileWriter(path));
+			writer.println("phase,sample,nanoseconds");
+			for (FramePhase phase : FramePhase.values())
+			{
+				long[] recent = getRecentSamples(phase);
+				long first = getCount(phase) - recent.length;
+				for (int i = 0; i < recent.length; i++)
+				{
+					writer.println(phase + "," + (first + i) + "," + recent[i]);
+				}
+			}
+		} catch (IOException e)
+		{
+			e.printStackTrace();
+		} finally
+		{
+			if (writer != null)
+			{
+				writer.close();
+			}
+		}
+	}
+
+	/**
+	 * Writes the recent samples of every phase to a binary file. For each
+	 * phase the file holds the phase name (UTF), the number of samples (int)
+	 * and the samples in nanoseconds (long), oldest first.
+	 * 
+	 * @param path
+	 *            The file to write
+	 */
+	public void writeBinary(String path)
+	{
+		DataOutputStream output = null;
+		try
+		{
+			output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)));
+			for (FramePhase phase : FramePhase.values())
+			{
+				long[] recent = getRecentSamples(phase);
+				output.writeUTF(phase.name());
+				output.writeInt(recent.length);
+				for (long sample : recent)
+				{
+					output.writeLong(sample);
+				}
+			}
+		} catch (IOException e)
+		{
+			e.printStackTrace();
+		} finally
+		{
+			if (output != null)
+			{
+				try
+				{
+					output.close();
+				} catch (IOException e)
+				{
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Forgets every sample. This should not be called while the game is
+	 * recording from another thread.
+	 */
+	public void reset()
+	{
+		for (int p = 0; p < PHASE_COUNT; p++)
+		{
+			Arrays.fill(histograms[p], 0);
+			totals[p] = 0;
+			maximums[p] = 0;
+			written.set(p, 0);
+		}
+	}
+
+}
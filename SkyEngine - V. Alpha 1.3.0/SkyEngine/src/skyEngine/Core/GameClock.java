@@ -0,0 +1,37 @@
+package skyEngine.Core;
+
+public interface GameClock
+{
+
+	/**
+	 * Starts the clock over from zero. The GameContainer calls this when the
+	 * game starts.
+	 */
+	public void reset();
+
+	/**
+	 * Called once at the start of every pass of the game loop, before the time
+	 * is read
+	 * 
+	 * @param step
+	 *            The length of one update in seconds
+	 */
+	public void advance(double step);
+
+	/**
+	 * Gets the current time of the clock
+	 * 
+	 * @return The time in seconds
+	 */
+	public double getTime();
+
+	/**
+	 * Gets how fast the clock runs compared to real time. The GameContainer
+	 * divides its sleeps by this, and does not sleep or pace frames at all
+	 * when it is infinite.
+	 * 
+	 * @return The speed of the clock
+	 */
+	public double getSpeed();
+
+}
@@ -1,5 +1,8 @@
 package skyEngine.Core;
 
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
 import org.lwjgl.opengl.Display;
 
 import skyEngine.RenderingUtilities.AntiAliasing;
@@ -10,10 +13,11 @@ public class GameContainer implements Runnable
 	// Core Components
 	private AbstractGame game;
 	private Thread gameThread;
-	private boolean isGameRunning = false;
+	private volatile boolean isGameRunning = false;
 	private Window window;
 	private Renderer renderer;
 	private Input input;
+	private AsyncTextureLoader textureLoader;
 
 	// Window Data
 	private static int designWidth;
@@ -30,11 +34,41 @@ public class GameContainer implements Runnable
 	// Frame Rates
 	private double frameRateTime;
 	private int findFrameRate;
-	private int currentFrameRate;
-	private double frameRateCap = Display.getDesktopDisplayMode().getFrequency();
+	private volatile int currentFrameRate;
+	private volatile double frameRateCap = -1;
 	private double deltaTimeCap;
+	private double updateRate = 0;
+	private volatile double stateTime;
 	private boolean doRender = false;
 
+	// Catch-Up Budget
+	private int maxUpdatesPerFrame = 5;
+	private CatchUpPolicy catchUpPolicy = CatchUpPolicy.Dilate;
+	private volatile long droppedUpdates = 0;
+	private volatile long clampedUpdates = 0;
+
+	// Frame Pacing
+	private FramePacer framePacer = new FramePacer();
+	private FramePacer updatePacer = new FramePacer();
+
+	// Profiling
+	private FrameProfiler profiler = new FrameProfiler();
+	private volatile boolean profiling = false;
+	private long lastFrameStart = 0;
+
+	// Headless Mode
+	private boolean headless = false;
+	private RenderBackend renderBackend = null;
+
+	// Time
+	private GameClock clock = new RealTimeClock();
+
+	// Threaded Updates
+	private boolean threadedUpdates = false;
+	private Thread updateThread;
+	private AtomicReference<Object> renderSnapshot = new AtomicReference<Object>();
+	private AtomicLong updateCount = new AtomicLong(0);
+
 	/**
 	 * This is the constructor for a GameContainer object. It essentially takes
 	 * your AbstractGame and runs it on SkyEngine.
@@ -49,6 +83,7 @@ public class GameContainer implements Runnable
 		designHeight = 1080;
 		fullscreenOnStart = true;
 		maxResolutionOnStart = true;
+		textureLoader = new AsyncTextureLoader();
 	}
 
 	/**
@@ -59,10 +94,18 @@ public class GameContainer implements Runnable
 		if (isGameRunning)
 		{
 			return;
+		} else if (headless)
+		{
+			renderer = new Renderer(renderBackend != null ? renderBackend : new NullRenderBackend());
+			Input.setInputSource(new NullInputSource());
+			input = new Input();
+
+			gameThread = new Thread(this);
+			gameThread.run();
 		} else
 		{
 			window = new Window(this);
-			renderer = new Renderer();
+			renderer = new Renderer(renderBackend != null ? renderBackend : new SpriteBatch());
 			input = new Input();
 
 			gameThread = new Thread(this);
@@ -92,26 +135,62 @@ public class GameContainer implements Runnable
 		isGameRunning = true;
 
 		firstTime = 0;
-		lastTime = System.nanoTime() / 1000000000.0;
+		clock.reset();
+		lastTime = clock.getTime();
 		passedTime = 0;
 		unprocessedTime = 0;
-		deltaTimeCap = 1.0 / (double) frameRateCap;
+		if (frameRateCap < 0)
+		{
+			frameRateCap = getFrameRateCap();
+		}
+		if (updateRate > 0)
+		{
+			deltaTimeCap = 1.0 / updateRate;
+		} else if (frameRateCap > 0)
+		{
+			deltaTimeCap = 1.0 / frameRateCap;
+		} else if (headless)
+		{
+			deltaTimeCap = 1.0 / 60.0;
+		} else
+		{
+			deltaTimeCap = 1.0 / Display.getDesktopDisplayMode().getFrequency();
+		}
+		framePacer.setTargetRate(frameRateCap);
+
+		if (threadedUpdates)
+		{
+			runThreaded();
+		} else
+		{
+			runSingleThreaded();
+		}
+
+		cleanUp();
+	}
 
-		while (!Display.isCloseRequested())
+	/**
+	 * Runs updates and rendering one after the other on the current thread
+	 */
+	private void runSingleThreaded()
+	{
+		while (isGameRunning && !isCloseRequested())
 		{
 			doRender = false;
 
-			firstTime = System.nanoTime() / 1000000000.0;
+			clock.advance(deltaTimeCap);
+			firstTime = clock.getTime();
 			passedTime = firstTime - lastTime;
 			lastTime = firstTime;
 			unprocessedTime += passedTime;
 			frameRateTime += passedTime;
 
-			while (unprocessedTime >= deltaTimeCap)
+			int updates = 0;
+			while (unprocessedTime >= deltaTimeCap && updates < getUpdateBudget())
 			{
-				game.update(this, (float) deltaTimeCap);
-				input.update();
+				runUpdate();
 				unprocessedTime -= deltaTimeCap;
+				updates++;
 				doRender = true;
 
 				if (frameRateTime >= 1)
@@ -123,23 +202,284 @@ public class GameContainer implements Runnable
 			}
 			if (doRender)
 			{
-				renderer.clearScreen();
-				game.render(this, renderer);
-				window.update();
-				findFrameRate++;
+				limitBacklog();
+				stateTime = firstTime - unprocessedTime;
+			}
+			if (doRender || updateRate > 0)
+			{
+				renderFrame();
+				idle(-1);
 			} else
 			{
-				try
+				// Wait until the next update is due
+				idle(getSleepTime(deltaTimeCap - unprocessedTime));
+			}
+		}
+	}
+
+	/**
+	 * Runs updates on a separate update thread while the current thread (which
+	 * owns the OpenGL context) renders. Once the first state is published, a
+	 * frame of the newest state is rendered at every paced frame.
+	 */
+	private void runThreaded()
+	{
+		updateCount.set(0);
+		renderSnapshot.set(null);
+		updateThread = new Thread(new Runnable()
+		{
+			public void run()
+			{
+				updateLoop();
+			}
+		}, "SkyEngine Update");
+		updateThread.start();
+
+		double renderLastTime = clock.getTime();
+		while (isGameRunning && !isCloseRequested())
+		{
+			if (updateCount.get() > 0)
+			{
+				renderFrame();
+			}
+			idle(-1);
+
+			double renderTime = clock.getTime();
+			frameRateTime += renderTime - renderLastTime;
+			renderLastTime = renderTime;
+			if (frameRateTime >= 1)
+			{
+				frameRateTime = 0;
+				currentFrameRate = findFrameRate;
+				findFrameRate = 0;
+			}
+		}
+
+		isGameRunning = false;
+		try
+		{
+			updateThread.join();
+		} catch (InterruptedException e)
+		{
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * The loop of the update thread. After each batch of fixed updates it asks
+	 * the game for a render snapshot and publishes it to the render thread.
+	 */
+	private void updateLoop()
+	{
+		try
+		{
+			while (isGameRunning)
+			{
+				boolean updated = false;
+
+				clock.advance(deltaTimeCap);
+				firstTime = clock.getTime();
+				passedTime = firstTime - lastTime;
+				lastTime = firstTime;
+				unprocessedTime += passedTime;
+
+				int updates = 0;
+				while (unprocessedTime >= deltaTimeCap && updates < getUpdateBudget())
 				{
-					Thread.sleep(1);
-				} catch (Exception e)
+					runUpdate();
+					unprocessedTime -= deltaTimeCap;
+					updates++;
+					updated = true;
+				}
+				if (updated)
+				{
+					limitBacklog();
+					stateTime = firstTime - unprocessedTime;
+					Object snapshot = game.createSnapshot(this);
+					if (snapshot == null)
+					{
+						throw new IllegalStateException(
+								"Threaded updates need AbstractGame.createSnapshot() to return the state render() draws");
+					}
+					renderSnapshot.set(snapshot);
+					updateCount.incrementAndGet();
+				} else
 				{
-					e.printStackTrace();
+					updatePacer.sleep(getSleepTime(deltaTimeCap - unprocessedTime));
 				}
 			}
+		} catch (Exception e)
+		{
+			e.printStackTrace();
+			isGameRunning = false;
 		}
+	}
 
-		cleanUp();
+	/**
+	 * Applies the catch-up policy to updates that are still waiting after the
+	 * update budget of a frame is used up. Without a limit a single slow frame
+	 * can queue so many updates that the game never recovers.
+	 */
+	private void limitBacklog()
+	{
+		if (unprocessedTime < deltaTimeCap)
+		{
+			return;
+		}
+
+		long backlog = (long) (unprocessedTime / deltaTimeCap);
+		int budget = getUpdateBudget();
+		if (catchUpPolicy == CatchUpPolicy.Drop)
+		{
+			droppedUpdates += backlog;
+			unprocessedTime -= backlog * deltaTimeCap;
+		} else if (backlog > budget)
+		{
+			clampedUpdates += backlog - budget;
+			unprocessedTime -= (backlog - budget) * deltaTimeCap;
+		}
+	}
+
+	/**
+	 * Renders and presents a single frame. This must be called on the thread
+	 * that owns the OpenGL context.
+	 */
+	private void renderFrame()
+	{
+		long renderStart = System.nanoTime();
+		if (profiling && lastFrameStart != 0)
+		{
+			profiler.record(FramePhase.Frame, renderStart - lastFrameStart);
+		}
+		lastFrameStart = renderStart;
+
+		textureLoader.processUploads(renderer.getBackend());
+		renderer.clearScreen();
+		game.render(this, renderer, getInterpolationAlpha());
+		renderer.endFrame();
+
+		long swapStart = System.nanoTime();
+		// Only reading the messages polls the devices that Input reads, so the
+		// update thread never waits on the swap and the vertical sync
+		if (window != null)
+		{
+			window.swapBuffers();
+			synchronized (Input.lock)
+			{
+				window.processMessages();
+			}
+		}
+		if (profiling)
+		{
+			profiler.record(FramePhase.Render, swapStart - renderStart);
+			profiler.record(FramePhase.Swap, System.nanoTime() - swapStart);
+		}
+		findFrameRate++;
+	}
+
+	/**
+	 * Runs a single fixed update of the game and reads new input
+	 */
+	private void runUpdate()
+	{
+		long updateStart = System.nanoTime();
+		game.update(this, (float) deltaTimeCap);
+		updateInput();
+		if (profiling)
+		{
+			profiler.record(FramePhase.Update, System.nanoTime() - updateStart);
+		}
+	}
+
+	/**
+	 * Gets how far the current time is between the last update and the next
+	 * one as a fraction of the update step
+	 * 
+	 * @return The interpolation alpha (0-1)
+	 */
+	private float getInterpolationAlpha()
+	{
+		double alpha = (clock.getTime() - stateTime) / deltaTimeCap;
+		return (float) Math.min(Math.max(alpha, 0), 1);
+	}
+
+	/**
+	 * Gets the number of updates that may run before a frame is rendered. A
+	 * clock that runs faster than real time needs a larger budget, and a
+	 * virtual clock never falls behind, so it is not limited.
+	 */
+	private int getUpdateBudget()
+	{
+		double speed = clock.getSpeed();
+		if (Double.isInfinite(speed))
+		{
+			return Integer.MAX_VALUE;
+		}
+		return (int) Math.min(maxUpdatesPerFrame * Math.max(Math.ceil(speed), 1), Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Converts game time to the real time the loop should sleep for
+	 * 
+	 * @param seconds
+	 *            The game time to wait for
+	 * @return The real time in nanoseconds
+	 */
+	private long getSleepTime(double seconds)
+	{
+		double speed = clock.getSpeed();
+		if (speed <= 0)
+		{
+			// A stopped clock is checked again every millisecond
+			return 1000000;
+		}
+		return (long) (seconds / speed * 1000000000.0);
+	}
+
+	/**
+	 * Checks whether the player has asked to close the window
+	 */
+	private boolean isCloseRequested()
+	{
+		return window != null && Display.isCloseRequested();
+	}
+
+	/**
+	 * Reads new keyboard and mouse events
+	 */
+	private void updateInput()
+	{
+		synchronized (Input.lock)
+		{
+			input.update();
+		}
+	}
+
+	/**
+	 * Sleeps on the render thread, either until the next frame is due or for a
+	 * set time
+	 * 
+	 * @param nanoseconds
+	 *            The time to sleep, or -1 to wait for the next frame
+	 */
+	private void idle(long nanoseconds)
+	{
+		if (Double.isInfinite(clock.getSpeed()))
+		{
+			return;
+		}
+		long sleepStart = System.nanoTime();
+		if (nanoseconds < 0)
+		{
+			framePacer.waitForNextFrame();
+		} else
+		{
+			framePacer.sleep(nanoseconds);
+		}
+		if (profiling)
+		{
+			profiler.record(FramePhase.Sleep, System.nanoTime() - sleepStart);
+		}
 	}
 
 	/**
@@ -166,7 +506,11 @@ public class GameContainer implements Runnable
 	 */
 	private void cleanUp()
 	{
-		window.cleanUp();
+		textureLoader.shutdown();
+		if (window != null)
+		{
+			window.cleanUp();
+		}
 	}
 
 	public static int getDesignWidth()
@@ -204,11 +548,59 @@ public class GameContainer implements Runnable
 		return input;
 	}
 
+	/**
+	 * Gets the loader that decodes textures in the background. Textures can be
+	 * requested before startGame() is called so that decoding overlaps with
+	 * creating the window.
+	 * 
+	 * @return The AsyncTextureLoader of the game
+	 */
+	public AsyncTextureLoader getTextureLoader()
+	{
+		return textureLoader;
+	}
+
 	public int getCurrentFrameRate()
 	{
 		return currentFrameRate;
 	}
 
+	/**
+	 * Gets the newest snapshot that was created by AbstractGame.createSnapshot()
+	 * on the update thread. Snapshots are replaced as a whole, so a snapshot
+	 * that render() has fetched does not change while it is being drawn.
+	 * 
+	 * @return The newest render snapshot, or null if there is none yet
+	 */
+	public Object getRenderSnapshot()
+	{
+		return renderSnapshot.get();
+	}
+
+	public boolean isThreadedUpdates()
+	{
+		return threadedUpdates;
+	}
+
+	/**
+	 * Sets whether updates run on their own thread. In threaded mode update()
+	 * and render() of the AbstractGame run at the same time on different
+	 * threads (see AbstractGame for what each may touch), so the game must
+	 * override AbstractGame.createSnapshot(); the update thread stops the game
+	 * if it returns null. This must be set before startGame() is called.
+	 * 
+	 * @param threadedUpdates
+	 *            True to run updates on a separate thread
+	 */
+	public void setThreadedUpdates(boolean threadedUpdates)
+	{
+		if (isGameRunning)
+		{
+			return;
+		}
+		this.threadedUpdates = threadedUpdates;
+	}
+
 	public void setDesignWidth(int designWidth)
 	{
 		GameContainer.designWidth = designWidth;
@@ -229,14 +621,231 @@ public class GameContainer implements Runnable
 		GameContainer.maxResolutionOnStart = maxResolutionOnStart;
 	}
 
+	/**
+	 * Gets the number of frames per second the game is paced at. Unless it is
+	 * set, this is the refresh rate of the monitor (or uncapped when the game
+	 * is headless).
+	 * 
+	 * @return The frame rate cap
+	 */
 	public double getFrameRateCap()
 	{
-		return frameRateCap;
+		double cap = frameRateCap;
+		if (cap < 0)
+		{
+			return headless ? 0 : Display.getDesktopDisplayMode().getFrequency();
+		}
+		return cap;
 	}
 
+	/**
+	 * Sets the number of frames per second the game is paced at. Unless an
+	 * update rate is set, this is also the number of updates per second.
+	 * 
+	 * @param frameRateCap
+	 *            The frame rate cap, or 0 to render as fast as possible (the
+	 *            game then updates at the refresh rate of the monitor unless
+	 *            an update rate is set)
+	 */
 	public void setFrameRateCap(double frameRateCap)
 	{
 		this.frameRateCap = frameRateCap;
+		framePacer.setTargetRate(frameRateCap);
+	}
+
+	/**
+	 * Gets the scheduler that paces frames at the frame rate cap. It reports
+	 * how far frames start from when they were due.
+	 * 
+	 * @return The FramePacer of the game
+	 */
+	public FramePacer getFramePacer()
+	{
+		return framePacer;
+	}
+
+	/**
+	 * Gets the profiler that records how long each phase of a frame takes. It
+	 * only records while profiling is turned on.
+	 * 
+	 * @return The FrameProfiler of the game
+	 */
+	public FrameProfiler getProfiler()
+	{
+		return profiler;
+	}
+
+	public boolean isProfiling()
+	{
+		return profiling;
+	}
+
+	/**
+	 * Turns recording of update, render, swap, sleep and whole frame timings
+	 * on or off
+	 * 
+	 * @param profiling
+	 *            True to record timings
+	 */
+	public void setProfiling(boolean profiling)
+	{
+		this.profiling = profiling;
+		lastFrameStart = 0;
+	}
+
+	public boolean isHeadless()
+	{
+		return headless;
+	}
+
+	/**
+	 * Sets whether the game runs without a window. A headless game never
+	 * touches the LWJGL Display: quads go to a NullRenderBackend (unless
+	 * another backend is set), input comes from a NullInputSource, textures
+	 * are decoded into memory, getWindow() returns null and frames are not
+	 * capped unless a frame rate cap is set. SkyFont and GamePad still need
+	 * LWJGL and should not be used. This must be set before startGame() is
+	 * called.
+	 * 
+	 * @param headless
+	 *            True to run without a window
+	 */
+	public void setHeadless(boolean headless)
+	{
+		if (isGameRunning)
+		{
+			return;
+		}
+		this.headless = headless;
+	}
+
+	public RenderBackend getRenderBackend()
+	{
+		return renderBackend;
+	}
+
+	/**
+	 * Sets the backend the Renderer draws through. By default a SpriteBatch
+	 * is used, or a NullRenderBackend when the game is headless. This must be
+	 * set before startGame() is called.
+	 * 
+	 * @param renderBackend
+	 *            The backend, or null for the default
+	 */
+	public void setRenderBackend(RenderBackend renderBackend)
+	{
+		if (isGameRunning)
+		{
+			return;
+		}
+		this.renderBackend = renderBackend;
+	}
+
+	public GameClock getClock()
+	{
+		return clock;
+	}
+
+	/**
+	 * Sets the clock that drives the game loop. The default RealTimeClock
+	 * follows the system timer. A FixedVirtualClock moves forward by whole
+	 * update steps and skips all sleeping, so a headless game runs as fast as
+	 * the processor allows and every run gets the same sequence of updates. A
+	 * FastForwardClock runs updates a number of times faster than real time.
+	 * This must be set before startGame() is called.
+	 * 
+	 * @param clock
+	 *            The clock of the game loop
+	 */
+	public void setClock(GameClock clock)
+	{
+		if (isGameRunning || clock == null)
+		{
+			return;
+		}
+		this.clock = clock;
+	}
+
+	public int getMaxUpdatesPerFrame()
+	{
+		return maxUpdatesPerFrame;
+	}
+
+	/**
+	 * Sets the most updates that may run before a frame is rendered. When the
+	 * game falls further behind, the catch-up policy decides what happens to
+	 * the remaining updates.
+	 * 
+	 * @param maxUpdatesPerFrame
+	 *            The update budget of a frame (at least 1)
+	 */
+	public void setMaxUpdatesPerFrame(int maxUpdatesPerFrame)
+	{
+		this.maxUpdatesPerFrame = Math.max(maxUpdatesPerFrame, 1);
+	}
+
+	public CatchUpPolicy getCatchUpPolicy()
+	{
+		return catchUpPolicy;
+	}
+
+	public void setCatchUpPolicy(CatchUpPolicy catchUpPolicy)
+	{
+		this.catchUpPolicy = catchUpPolicy;
+	}
+
+	/**
+	 * Gets the number of updates that were skipped by the Drop catch-up policy
+	 * 
+	 * @return The number of dropped updates
+	 */
+	public long getDroppedUpdates()
+	{
+		return droppedUpdates;
+	}
+
+	/**
+	 * Gets the number of updates that were discarded because the backlog of
+	 * the Dilate catch-up policy was full
+	 * 
+	 * @return The number of clamped updates
+	 */
+	public long getClampedUpdates()
+	{
+		return clampedUpdates;
+	}
+
+	/**
+	 * Resets the dropped and clamped update counters
+	 */
+	public void resetCatchUpStatistics()
+	{
+		droppedUpdates = 0;
+		clampedUpdates = 0;
+	}
+
+	public double getUpdateRate()
+	{
+		return updateRate;
+	}
+
+	/**
+	 * Sets a fixed number of updates per second that does not depend on the
+	 * frame rate cap. Frames are then rendered at the display rate between
+	 * updates and render() receives an interpolation alpha so motion stays
+	 * smooth. Set to 0 (the default) to update once per frame at the frame
+	 * rate cap. This must be set before startGame() is called.
+	 * 
+	 * @param updateRate
+	 *            The number of updates per second, or 0
+	 */
+	public void setUpdateRate(double updateRate)
+	{
+		if (isGameRunning)
+		{
+			return;
+		}
+		this.updateRate = Math.max(updateRate, 0);
 	}
 
 }
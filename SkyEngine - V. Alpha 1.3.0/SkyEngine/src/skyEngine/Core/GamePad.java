@@ -1,13 +1,21 @@
 package skyEngine.Core;
 
-import org.lwjgl.LWJGLException;
-import org.lwjgl.input.Controller;
-import org.lwjgl.input.Controllers;
-
 public class GamePad
 {
 
-	private Controller controller = null;
+	// The manager that holds the state and the slot of this pad in it
+	private ControllerManager manager;
+	private int slot;
+	private boolean sharedManager = false;
+
+	// Where the state is recorded to or replayed from (usually neither)
+	private InputRecorder recorder = null;
+	private InputReplay replay = null;
+	
+	// Reads the controller on a background thread when polling is started;
+	// the rate is kept while a rescan has no controller for the slot
+	private GamePadPoller poller = null;
+	private double pollRate = 0;
 	
 	public static final int btnA = 0;
 	public static final int btnB = 1;
@@ -31,106 +39,155 @@ public class GamePad
 	public static final int dpadLeft = 2;
 	public static final int dpadRight = 3;
 	
-	private static boolean[] btnCurrent = new boolean[10];
-	private static boolean[] btnLast = new boolean[10];
-	
-	private static float[] axisCurrent = new float[5];
-	private static float[] axisDelta = new float[5];
-	
-	private static boolean[] dPadCurrent = new boolean[4];
-	private static boolean[] dPadLast = new boolean[4];
+	// Number of buttons, d-pad directions and axes, one bit per button or
+	// direction
+	private static final int buttonCount = 10;
+	private static final int dPadCount = 4;
+	static final int axisCount = 5;
 
 	/**
-	 * Tries to create an instance of a GamePad object. If there is no
-	 * controller attached to the computer, this is going to crash your program.
+	 * Creates a GamePad for the first controller of the shared ControllerManager
+	 * (a controller with a known profile, such as an Xbox controller, if one is
+	 * connected). If there is no controller, nothing is ever pressed.
 	 */
 	public GamePad()
 	{
-		try
-		{
-			Controllers.create();
-			Controllers.poll();
-			for (int i = 0; i < Controllers.getControllerCount(); i++)
-			{
-				controller = Controllers.getController(i);
-				System.out.println(controller.getName());
-				if (controller.getName().equals("Controller (XBOX One For Windows)"))
-				{
-					break;
-				}
-				if (controller.getName().equals("Controller (XBOX 360 For Windows)"))
-				{
-					break;
-				}
-			}
-			for (int i = 0; i < controller.getAxisCount(); i++)
-			{
-				controller.setDeadZone(i, 0.3f);
-			}
-		} catch (LWJGLException e)
-		{
-			e.printStackTrace();
-		}
-		
-		for (int i = 0; i < btnCurrent.length; i++)
+		this(ControllerManager.getShared(), 0);
+		sharedManager = true;
+	}
+
+	/**
+	 * Creates a GamePad for a player of a ControllerManager. Use
+	 * ControllerManager.getGamePad() to get the same GamePad every time.
+	 * @param manager The manager that holds the controllers
+	 * @param player The player (0 to ControllerManager.MAX_CONTROLLERS - 1)
+	 */
+	public GamePad(ControllerManager manager, int player)
+	{
+		this.manager = manager;
+		slot = player;
+	}
+
+	/**
+	 * The method to update the controller's variables
+	 */
+	public void update()
+	{
+		if (replay != null)
 		{
-			btnCurrent[i] = false;
-		}
-		for (int i = 0; i < btnLast.length; i++)
+			// The replay passes the recorded state to setState()
+			replay.readGamePad(this);
+		} else if (poller != null)
+		{
+			// The latest state published by the polling thread
+			poller.read(this);
+		} else
 		{
-			btnLast[i] = false;
+			// Read the buttons, axes and d-pad through the controller's profile
+			manager.readController(slot);
 		}
-		for (int i = 0; i < axisCurrent.length; i++)
+		
+		if (recorder != null)
 		{
-			axisCurrent[i] = 0.0f;
+			recorder.writeGamePad(this);
 		}
-		for (int i = 0; i < axisDelta.length; i++)
+	}
+	
+	/**
+	 * Moves the current state to the last state and sets a new one
+	 */
+	void setState(int buttons, float[] axes, int dPad)
+	{
+		manager.setState(slot, buttons, axes, dPad);
+	}
+	
+	/**
+	 * The method to destroy the GamePad object. A GamePad of the shared
+	 * manager destroys the manager's controllers; other GamePads leave that to
+	 * ControllerManager.destroy().
+	 */
+	public void destroy()
+	{
+		stopPolling();
+		if (sharedManager)
 		{
-			axisDelta[i] = 0.0f;
+			ControllerManager.destroyShared();
 		}
+	}
+	
+	/**
+	 * Starts reading the controller 1000 times per second on a background thread
+	 * @return If polling could be started
+	 */
+	public boolean startPolling()
+	{
+		return startPolling(1000);
+	}
 	
-		for (int i = 0; i < dPadCurrent.length; i++)
+	/**
+	 * Starts reading the controller on a background thread. update() then takes
+	 * the latest state without waiting for the controller, so slow drivers do
+	 * not hold up the game and the state is at most one poll old.
+	 * @param rate The number of times per second the controller is read
+	 * @return If polling could be started
+	 */
+	public boolean startPolling(double rate)
+	{
+		ControllerDevice device = manager.getDevice(slot);
+		if (device == null || poller != null)
 		{
-			dPadCurrent[i] = false;
+			return poller != null;
 		}
-		for (int i = 0; i < dPadLast.length; i++)
+		GamePadPoller newPoller = new GamePadPoller(device, manager.getProfile(slot), rate);
+		if (!newPoller.start())
 		{
-			dPadLast[i] = false;
+			return false;
 		}
+		poller = newPoller;
+		pollRate = rate;
+		manager.addPolledPad(this);
+		return true;
 	}
-
+	
 	/**
-	 * The method to update the controller's variables
+	 * Stops the polling thread, so update() reads the controller itself again
 	 */
-	public void update()
+	public void stopPolling()
 	{
-		// Update button variables
-		btnLast = btnCurrent.clone();
-		for (int i = 0; i < btnCurrent.length; i++)
-		{
-			btnCurrent[i] = controller.isButtonPressed(i);
-		}
-		
-		// Update axis variables
-		for (int i = 0; i < axisDelta.length; i++)
+		pausePolling();
+		pollRate = 0;
+		manager.removePolledPad(this);
+	}
+	
+	/**
+	 * Stops the polling thread but keeps the rate, so resumePolling() can
+	 * start it again for another device. Used by ControllerManager.rescan().
+	 */
+	void pausePolling()
+	{
+		if (poller != null)
 		{
-			axisDelta[i] = axisCurrent[i] - (axisCurrent[i] = controller.getAxisValue(i));
+			poller.stop();
+			poller = null;
 		}
-		
-		// Update d-pad variables
-		dPadLast = dPadCurrent.clone();
-		dPadCurrent[0] = (controller.getPovY() == -1.0f);
-		dPadCurrent[1] = (controller.getPovY() == 1.0f);
-		dPadCurrent[2] = (controller.getPovX() == -1.0f);
-		dPadCurrent[3] = (controller.getPovX() == 1.0f);
 	}
 	
 	/**
-	 * The method to destroy the GamePad object
+	 * Starts polling the device now in the slot at the rate polling was
+	 * started with. An empty slot stays unpolled until a rescan fills it.
 	 */
-	public void destroy()
+	void resumePolling()
 	{
-		Controllers.destroy();
+		ControllerDevice device = manager.getDevice(slot);
+		if (pollRate <= 0 || poller != null || device == null)
+		{
+			return;
+		}
+		GamePadPoller newPoller = new GamePadPoller(device, manager.getProfile(slot), pollRate);
+		if (newPoller.start())
+		{
+			poller = newPoller;
+		}
 	}
 	
 	/**
@@ -140,9 +197,9 @@ public class GamePad
 	 */
 	public boolean isButton(int button)
 	{
-		if (button >= 0 && button < btnCurrent.length)
+		if (button >= 0 && button < buttonCount)
 		{
-			return btnCurrent[button];
+			return (manager.getButtons(slot) & (1 << button)) != 0;
 		}
 		return false;
 	}
@@ -154,9 +211,9 @@ public class GamePad
 	 */
 	public boolean isButtonPressed(int button)
 	{
-		if (button >= 0 && button < btnCurrent.length)
+		if (button >= 0 && button < buttonCount)
 		{
-			return (btnCurrent[button] && !btnLast[button]);
+			return (manager.getButtons(slot) & ~manager.getButtonsLast(slot) & (1 << button)) != 0;
 		}
 		return false;
 	}
@@ -168,54 +225,115 @@ public class GamePad
 	 */
 	public boolean isButtonReleased(int button)
 	{
-		if (button >= 0 && button < btnCurrent.length)
+		if (button >= 0 && button < buttonCount)
 		{
-			return (!btnCurrent[button] && btnLast[button]);
+			return (~manager.getButtons(slot) & manager.getButtonsLast(slot) & (1 << button)) != 0;
 		}
 		return false;
 	}
 	
+	/**
+	 * Gets whether or not any button was just pressed
+	 * @return If a button was just pressed
+	 */
+	public boolean isAnyButtonPressed()
+	{
+		return (manager.getButtons(slot) & ~manager.getButtonsLast(slot)) != 0;
+	}
+	
+	/**
+	 * Gets the buttons that are down as bits (bit 0 is btnA)
+	 * @return The button bits
+	 */
+	public int getButtonBits()
+	{
+		return manager.getButtons(slot);
+	}
+	
+	/**
+	 * Gets the d-pad directions that are down as bits (bit 0 is dpadUp)
+	 * @return The d-pad bits
+	 */
+	public int getDPadBits()
+	{
+		return manager.getDPad(slot);
+	}
+	
+	/**
+	 * Gets whether or not a controller is connected to this pad
+	 * @return If the pad has a controller
+	 */
+	public boolean isConnected()
+	{
+		return manager.isConnected(slot);
+	}
+	
+	public int getPlayer()
+	{
+		return slot;
+	}
+	
+	public ControllerManager getManager()
+	{
+		return manager;
+	}
+	
+	public GamePadPoller getPoller()
+	{
+		return poller;
+	}
+	
+	void setRecorder(InputRecorder recorder)
+	{
+		this.recorder = recorder;
+	}
+	
+	void setReplay(InputReplay replay)
+	{
+		this.replay = replay;
+	}
+	
 	public float getAxisValue(int axis)
 	{
-		if (axis >= 0 && axis < axisCurrent.length)
+		if (axis >= 0 && axis < axisCount)
 		{
-			return axisCurrent[axis];
+			return manager.getAxis(slot, axis);
 		}
 		return 0.0f;
 	}
 	
 	public float getAxisDelta(int axis)
 	{
-		if (axis >= 0 && axis < axisDelta.length)
+		if (axis >= 0 && axis < axisCount)
 		{
-			return axisDelta[axis];
+			return manager.getAxisDelta(slot, axis);
 		}
 		return 0.0f;
 	}
 	
 	public boolean isDPad(int direction)
 	{
-		if (direction >= 0 && direction < dPadCurrent.length)
+		if (direction >= 0 && direction < dPadCount)
 		{
-			return dPadCurrent[direction];
+			return (manager.getDPad(slot) & (1 << direction)) != 0;
 		}
 		return false;
 	}
 	
 	public boolean isDPadPressed(int direction)
 	{
-		if (direction >= 0 && direction < dPadCurrent.length)
+		if (direction >= 0 && direction < dPadCount)
 		{
-			return (dPadCurrent[direction] && !dPadLast[direction]);
+			return (manager.getDPad(slot) & ~manager.getDPadLast(slot) & (1 << direction)) != 0;
 		}
 		return false;
 	}
 	
 	public boolean isDPadReleased(int direction)
 	{
-		if (direction >= 0 && direction < dPadCurrent.length)
+		if (direction >= 0 && direction < dPadCount)
 		{
-			return (!dPadCurrent[direction] && dPadLast[direction]);
+			return (~manager.getDPad(slot) & manager.getDPadLast(slot) & (1 << direction)) != 0;
 		}
 		return false;
 	}
@@ -0,0 +1,261 @@
+package skyEngine.Core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+public class GamePadPoller
+{
+
+	// Index bits of the shared state and the bit that marks it as not read yet
+	private static final int INDEX_MASK = 3;
+	private static final int FRESH = 4;
+
+	// The device is only read by the polling thread while it runs
+	private ControllerDevice device;
+	private float[] deviceAxes;
+
+	// Maps the device onto the GamePad layout
+	private ControllerProfile profile;
+
+	// States handed from the polling thread to the game without locking: the
+	// poller fills one, the game reads another and the third is swapped
+	// between them
+	private PadState[] states = { new PadState(), new PadState(), new PadState() };
+	private AtomicInteger shared = new AtomicInteger(1);
+	private int writing = 2;
+	private int reading = 0;
+
+	// Presses seen by the poller that the game has not read yet
+	private int carryButtons = 0;
+	private int carryDPad = 0;
+
+	// Polling thread
+	private Thread thread;
+	private volatile boolean running = false;
+	private volatile boolean connected = true;
+	private long interval;
+	private volatile long pollCount = 0;
+
+	/**
+	 * Creates a poller for a device of the ControllerManager
+	 * 
+	 * @param device
+	 *            The device to read
+	 * @param profile
+	 *            The profile that maps the device onto the GamePad layout
+	 * @param rate
+	 *            The number of times per second the controller is read
+	 */
+	GamePadPoller(ControllerDevice device, ControllerProfile profile, double rate)
+	{
+		this.device = device;
+		this.profile = profile;
+		interval = (long) (1000000000 / rate);
+		deviceAxes = new float[device.getAxisCount()];
+	}
+
+	/**
+	 * Starts the polling thread
+	 * 
+	 * @return Whether or not polling is running
+	 */
+	boolean start()
+	{
+		if (running)
+		{
+			return true;
+		}
+
+		running = true;
+		thread = new Thread(new Runnable()
+		{
+			public void run()
+			{
+				pollLoop();
+			}
+		}, "SkyEngine Game Pad Poller");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MAX_PRIORITY);
+		thread.start();
+		return true;
+	}
+
+	/**
+	 * Stops the polling thread and waits for it to finish
+	 */
+	void stop()
+	{
+		running = false;
+		if (thread == null)
+		{
+			return;
+		}
+		try
+		{
+			thread.join();
+		} catch (InterruptedException e)
+		{
+			e.printStackTrace();
+		}
+		thread = null;
+	}
+
+	/**
+	 * Polls the device on a fixed schedule. If a poll takes longer than the
+	 * interval (a driver hiccup), the schedule restarts instead of polling in
+	 * a burst to catch up.
+	 */
+	private void pollLoop()
+	{
+		long next = System.nanoTime();
+		while (running)
+		{
+			poll();
+
+			next += interval;
+			long now = System.nanoTime();
+			if (now - next > interval)
+			{
+				next = now;
+			}
+			if (next - now > 0)
+			{
+				LockSupport.parkNanos(next - now);
+			}
+		}
+	}
+
+	/**
+	 * Reads the device once and publishes the state
+	 */
+	private void poll()
+	{
+		connected = device.poll();
+		PadState state = states[writing];
+		if (!connected)
+		{
+			// A device that is gone reads as nothing pressed, like an empty
+			// slot of the ControllerManager
+			carryButtons = 0;
+			carryDPad = 0;
+			for (int i = 0; i < state.axes.length; i++)
+			{
+				state.axes[i] = 0.0f;
+			}
+			publish(state, 0, 0);
+			return;
+		}
+
+		int axisCount = device.readAxes(deviceAxes);
+		profile.mapAxes(deviceAxes, axisCount, state.axes);
+		publish(state, profile.mapButtons(device.readButtons()), device.readDPad());
+	}
+
+	/**
+	 * Hands a filled state to the game and takes back the state to fill next
+	 */
+	private void publish(PadState state, int buttons, int dPad)
+	{
+		state.buttons = buttons;
+		state.dPad = dPad;
+		state.seenButtons = buttons | carryButtons;
+		state.seenDPad = dPad | carryDPad;
+		state.time = System.nanoTime();
+
+		int previous = shared.getAndSet(writing | FRESH);
+		writing = previous & INDEX_MASK;
+		if ((previous & FRESH) != 0)
+		{
+			// The game skipped that state, so its presses move to the next one
+			carryButtons = states[writing].seenButtons;
+			carryDPad = states[writing].seenDPad;
+		} else
+		{
+			carryButtons = 0;
+			carryDPad = 0;
+		}
+		pollCount++;
+	}
+
+	/**
+	 * Passes the latest published state to a game pad without blocking. A
+	 * button that was pressed and released between two reads still shows as
+	 * down for one update, so quick taps are not lost.
+	 * 
+	 * @param pad
+	 *            The pad to update
+	 */
+	void read(GamePad pad)
+	{
+		boolean fresh = (shared.get() & FRESH) != 0;
+		if (fresh)
+		{
+			reading = shared.getAndSet(reading) & INDEX_MASK;
+		}
+		PadState state = states[reading];
+		if (fresh)
+		{
+			pad.setState(state.seenButtons, state.axes, state.seenDPad);
+		} else
+		{
+			pad.setState(state.buttons, state.axes, state.dPad);
+		}
+	}
+
+	/**
+	 * Gets how old the state the game last read is
+	 * 
+	 * @return The time since the state was polled in nanoseconds, or -1 if
+	 *         nothing has been polled yet
+	 */
+	public long getStateAge()
+	{
+		long time = states[reading].time;
+		return time == 0 ? -1 : System.nanoTime() - time;
+	}
+
+	public boolean isRunning()
+	{
+		return running;
+	}
+
+	public boolean isConnected()
+	{
+		return connected;
+	}
+
+	public long getPollCount()
+	{
+		return pollCount;
+	}
+
+	/**
+	 * Gets the time between polls
+	 * 
+	 * @return The interval in nanoseconds
+	 */
+	public long getInterval()
+	{
+		return interval;
+	}
+
+	/**
+	 * A polled state of the game pad
+	 */
+	private static class PadState
+	{
+
+		private int buttons;
+		private int dPad;
+
+		// Every button and direction that was down since the last state the
+		// game read
+		private int seenButtons;
+		private int seenDPad;
+
+		private float[] axes = new float[GamePad.axisCount];
+		private long time = 0;
+
+	}
+
+}
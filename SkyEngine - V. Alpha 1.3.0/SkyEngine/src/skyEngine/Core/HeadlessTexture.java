@@ -0,0 +1,135 @@
+package skyEngine.Core;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.newdawn.slick.opengl.ImageData;
+import org.newdawn.slick.opengl.Texture;
+
+public class HeadlessTexture implements Texture
+{
+
+	// Headless textures are numbered from the top of the ID range so they do
+	// not look like textures that OpenGL created
+	private static AtomicInteger nextTextureID = new AtomicInteger(0x40000000);
+
+	private String name;
+	private int textureID;
+	private ImageData image;
+
+	// Image size and size of the (power of two) pixel buffer
+	private int imageWidth;
+	private int imageHeight;
+	private int textureWidth;
+	private int textureHeight;
+
+	/**
+	 * Creates a texture that keeps its pixels in memory instead of on the
+	 * graphics card. Headless textures are used when the game runs without an
+	 * OpenGL context.
+	 * 
+	 * @param name
+	 *            The name of the texture (usually its path)
+	 * @param image
+	 *            The decoded image
+	 */
+	public HeadlessTexture(String name, ImageData image)
+	{
+		this.name = name;
+		this.image = image;
+		textureID = nextTextureID.getAndIncrement();
+		imageWidth = image.getWidth();
+		imageHeight = image.getHeight();
+		textureWidth = image.getTexWidth();
+		textureHeight = image.getTexHeight();
+	}
+
+	/**
+	 * There is nothing to bind without an OpenGL context
+	 */
+	public void bind()
+	{
+	}
+
+	/**
+	 * Drops the pixels of the texture
+	 */
+	public void release()
+	{
+		image = null;
+	}
+
+	public boolean hasAlpha()
+	{
+		return image != null && image.getDepth() == 32;
+	}
+
+	public String getTextureRef()
+	{
+		return name;
+	}
+
+	public int getImageHeight()
+	{
+		return imageHeight;
+	}
+
+	public int getImageWidth()
+	{
+		return imageWidth;
+	}
+
+	public float getHeight()
+	{
+		return (float) imageHeight / textureHeight;
+	}
+
+	public float getWidth()
+	{
+		return (float) imageWidth / textureWidth;
+	}
+
+	public int getTextureHeight()
+	{
+		return textureHeight;
+	}
+
+	public int getTextureWidth()
+	{
+		return textureWidth;
+	}
+
+	public int getTextureID()
+	{
+		return textureID;
+	}
+
+	/**
+	 * Copies the pixels of the texture, row by row with the width of the
+	 * power of two pixel buffer
+	 * 
+	 * @return The pixel data, or null if the texture was released
+	 */
+	public byte[] getTextureData()
+	{
+		if (image == null)
+		{
+			return null;
+		}
+		ByteBuffer pixels = image.getImageBufferData().duplicate();
+		pixels.rewind();
+		byte[] data = new byte[pixels.remaining()];
+		pixels.get(data);
+		return data;
+	}
+
+	public void setTextureFilter(int textureFilter)
+	{
+	}
+
+	public ImageData getImageData()
+	{
+		return image;
+	}
+
+}
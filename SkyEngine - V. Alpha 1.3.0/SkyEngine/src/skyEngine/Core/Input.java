@@ -1,106 +1,269 @@
 package skyEngine.Core;
 
 import org.lwjgl.input.Keyboard;
-import org.lwjgl.input.Mouse;
-import org.lwjgl.opengl.Display;
 
 public class Input
 {
-	private static boolean[] keys = new boolean[Keyboard.KEYBOARD_SIZE];
-	private static boolean[] keysLast = new boolean[Keyboard.KEYBOARD_SIZE];
+	// Key states packed 64 keys to a word, for this update and the last one
+	static final int KEY_WORDS = (Keyboard.KEYBOARD_SIZE + 63) / 64;
+	private static long[] keys = new long[KEY_WORDS];
+	private static long[] keysLast = new long[KEY_WORDS];
 
-	private static boolean[] buttons = new boolean[10];
-	private static boolean[] buttonsLast = new boolean[10];
+	// Mouse button states, one bit per button
+	private static long buttons = 0;
+	private static long buttonsLast = 0;
 
 	public static int leftMouseButton = 0;
 	public static int rightMouseButton = 1;
 	public static int middleMouseButton = 2;
 
+	// Held while the window's messages are processed and while the keyboard,
+	// mouse or game pads are read, so in threaded mode the update thread
+	// never reads a device while the render thread is polling devices
+	static final Object lock = new Object();
+
+	// Where events come from
+	private static InputSource source = new LwjglInputSource();
+
+	// Events of the current update, in the order they happened
+	private static InputEventQueue events = new InputEventQueue(256);
+
 	/**
-	 * The method that updates the boolean arrays and checks for keyboard and
-	 * mouse updates
+	 * The method that updates the key and button states and checks for
+	 * keyboard and mouse updates
 	 */
 	public void update()
 	{
-		keysLast = keys.clone();
-		buttonsLast = buttons.clone();
-		keyboardUpdate();
-		mouseUpdate();
+		// Copied into the words of the last update so no garbage is made
+		System.arraycopy(keys, 0, keysLast, 0, KEY_WORDS);
+		buttonsLast = buttons;
+		events.clear();
+		source.poll(this);
+	}
+
+	/**
+	 * Determines if a key is down
+	 * 
+	 * @param keyCode
+	 *            The key that is being checked
+	 * @return Whether or not the key is down
+	 */
+	public static boolean isKey(int keyCode)
+	{
+		return (keys[keyCode >>> 6] & (1L << keyCode)) != 0;
 	}
 
 	/**
-	 * This checks for key events and determines if the key was pressed or
-	 * released
+	 * Determines if a key has just been pressed
+	 * 
+	 * @param keyCode
+	 *            The key that is being checked
+	 * @return Whether or not the key has just been pressed
 	 */
-	private void keyboardUpdate()
+	public static boolean isKeyPressed(int keyCode)
 	{
-		while (Keyboard.next())
+		int word = keyCode >>> 6;
+		return (keys[word] & ~keysLast[word] & (1L << keyCode)) != 0;
+	}
+
+	/**
+	 * Determines if a key has just been released
+	 * 
+	 * @param keyCode
+	 *            The key that is being checked
+	 * @return Whether or not the key has just been released
+	 */
+	public static boolean isKeyReleased(int keyCode)
+	{
+		int word = keyCode >>> 6;
+		return (~keys[word] & keysLast[word] & (1L << keyCode)) != 0;
+	}
+
+	/**
+	 * Determines if any key is down
+	 * 
+	 * @return Whether or not a key is down
+	 */
+	public static boolean isAnyKey()
+	{
+		for (int i = 0; i < KEY_WORDS; i++)
 		{
-			if (Keyboard.getEventKey() <= Keyboard.getKeyCount())
+			if (keys[i] != 0)
 			{
-				if (Keyboard.getEventKeyState())
-				{
-					keyDown(Keyboard.getEventKey());
-				} else
-				{
-					keyUp(Keyboard.getEventKey());
-				}
+				return true;
 			}
 		}
+		return false;
 	}
 
 	/**
-	 * This checks for mouse events and determines if the button was pressed or
-	 * released
+	 * Determines if any key has just been pressed
+	 * 
+	 * @return Whether or not a key has just been pressed
 	 */
-	private void mouseUpdate()
+	public static boolean isAnyKeyPressed()
 	{
-		if (Mouse.getEventButton() <= Mouse.getButtonCount())
+		for (int i = 0; i < KEY_WORDS; i++)
 		{
-			if (Mouse.isButtonDown(Mouse.getEventButton()))
+			if ((keys[i] & ~keysLast[i]) != 0)
 			{
-				buttonDown(Mouse.getEventButton());
-			} else
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Determines if any key has just been released
+	 * 
+	 * @return Whether or not a key has just been released
+	 */
+	public static boolean isAnyKeyReleased()
+	{
+		for (int i = 0; i < KEY_WORDS; i++)
+		{
+			if ((~keys[i] & keysLast[i]) != 0)
 			{
-				buttonUp(Mouse.getEventButton());
+				return true;
 			}
 		}
+		return false;
 	}
 
 	/**
-	 * Determines if a key is down
+	 * Gets the number of keys that are down
 	 * 
-	 * @param keyCode
-	 *            The key that is being checked
-	 * @return Whether or not the key is down
+	 * @return The number of keys down
 	 */
-	public static boolean isKey(int keyCode)
+	public static int getKeyCount()
 	{
-		return keys[keyCode];
+		int count = 0;
+		for (int i = 0; i < KEY_WORDS; i++)
+		{
+			count += Long.bitCount(keys[i]);
+		}
+		return count;
 	}
 
 	/**
-	 * Determines if a key has just been pressed
+	 * Finds the next key that is down. Every key that is down can be visited
+	 * with: for (int k = Input.nextKey(0); k >= 0; k = Input.nextKey(k + 1))
 	 * 
-	 * @param keyCode
-	 *            The key that is being checked
-	 * @return Whether or not the key has just been pressed
+	 * @param fromKeyCode
+	 *            The first key code to check
+	 * @return The key code of the next key that is down, or -1 if there is none
 	 */
-	public static boolean isKeyPressed(int keyCode)
+	public static int nextKey(int fromKeyCode)
 	{
-		return keys[keyCode] && !keysLast[keyCode];
+		return nextKey(fromKeyCode, false);
 	}
 
 	/**
-	 * Determines if a key has just been released
+	 * Finds the next key that has just been pressed. Every pressed key can be
+	 * visited with: for (int k = Input.nextKeyPressed(0); k >= 0; k =
+	 * Input.nextKeyPressed(k + 1))
 	 * 
-	 * @param keyCode
-	 *            The key that is being checked
-	 * @return Whether or not the key has just been released
+	 * @param fromKeyCode
+	 *            The first key code to check
+	 * @return The key code of the next key that has just been pressed, or -1
+	 *         if there is none
 	 */
-	public static boolean isKeyReleased(int keyCode)
+	public static int nextKeyPressed(int fromKeyCode)
+	{
+		return nextKey(fromKeyCode, true);
+	}
+
+	/**
+	 * Finds the next set bit in the key state or in the pressed edges
+	 */
+	private static int nextKey(int fromKeyCode, boolean pressed)
+	{
+		if (fromKeyCode < 0)
+		{
+			fromKeyCode = 0;
+		}
+		int word = fromKeyCode >>> 6;
+		if (word >= KEY_WORDS)
+		{
+			return -1;
+		}
+
+		// Bits below the starting key are masked away in the first word
+		long bits = (pressed ? keys[word] & ~keysLast[word] : keys[word]) & (-1L << fromKeyCode);
+		while (bits == 0)
+		{
+			word++;
+			if (word == KEY_WORDS)
+			{
+				return -1;
+			}
+			bits = pressed ? keys[word] & ~keysLast[word] : keys[word];
+		}
+		return word * 64 + Long.numberOfTrailingZeros(bits);
+	}
+
+	/**
+	 * Determines if every key of a chord is down
+	 * 
+	 * @param chord
+	 *            The keys that are checked
+	 * @return Whether or not all of the keys are down
+	 */
+	public static boolean isChord(KeyChord chord)
 	{
-		return !keys[keyCode] && keysLast[keyCode];
+		long[] mask = chord.getMask();
+		for (int i = 0; i < KEY_WORDS; i++)
+		{
+			if ((keys[i] & mask[i]) != mask[i])
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Determines if a chord has just been completed: every key of it is down
+	 * and at least one of them has just been pressed. The keys can be pressed
+	 * in any order over several updates.
+	 * 
+	 * @param chord
+	 *            The keys that are checked
+	 * @return Whether or not the chord has just been completed
+	 */
+	public static boolean isChordPressed(KeyChord chord)
+	{
+		long[] mask = chord.getMask();
+		long pressed = 0;
+		for (int i = 0; i < KEY_WORDS; i++)
+		{
+			if ((keys[i] & mask[i]) != mask[i])
+			{
+				return false;
+			}
+			pressed |= keys[i] & ~keysLast[i] & mask[i];
+		}
+		return pressed != 0;
+	}
+
+	/**
+	 * Determines if the keys of a chord are down and no other key is
+	 * 
+	 * @param chord
+	 *            The keys that are checked
+	 * @return Whether or not exactly the keys of the chord are down
+	 */
+	public static boolean isChordExact(KeyChord chord)
+	{
+		long[] mask = chord.getMask();
+		for (int i = 0; i < KEY_WORDS; i++)
+		{
+			if (keys[i] != mask[i])
+			{
+				return false;
+			}
+		}
+		return true;
 	}
 
 	/**
@@ -112,7 +275,7 @@ public class Input
 	 */
 	public static boolean isButton(int button)
 	{
-		return buttons[button];
+		return (buttons & buttonBit(button)) != 0;
 	}
 
 	/**
@@ -124,7 +287,7 @@ public class Input
 	 */
 	public static boolean isButtonPressed(int button)
 	{
-		return buttons[button] && !buttonsLast[button];
+		return (buttons & ~buttonsLast & buttonBit(button)) != 0;
 	}
 
 	/**
@@ -136,51 +299,214 @@ public class Input
 	 */
 	public static boolean isButtonReleased(int button)
 	{
-		return !buttons[button] && buttonsLast[button];
+		return (~buttons & buttonsLast & buttonBit(button)) != 0;
+	}
+
+	/**
+	 * Determines if any mouse button has just been pressed
+	 * 
+	 * @return Whether or not a button has just been pressed
+	 */
+	public static boolean isAnyButtonPressed()
+	{
+		return (buttons & ~buttonsLast) != 0;
+	}
+
+	/**
+	 * Gets the bit of a mouse button, or no bits if there is no such button
+	 */
+	private static long buttonBit(int button)
+	{
+		return button >= 0 && button < 64 ? 1L << button : 0;
+	}
+
+	/**
+	 * Determines if any key of a mask is down. The mask is laid out like the
+	 * key state and starts at an offset into a table of masks.
+	 */
+	static boolean isAnyKey(long[] masks, int offset)
+	{
+		for (int i = 0; i < KEY_WORDS; i++)
+		{
+			if ((keys[i] & masks[offset + i]) != 0)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	static long getButtonBits()
+	{
+		return buttons;
+	}
+
+	/**
+	 * Sets the bit of a key to show that it is down and queues a KeyDown event
+	 * stamped with the current time
+	 * 
+	 * @param keycode
+	 *            The key that went down
+	 */
+	public void keyDown(int keycode)
+	{
+		keyDown(keycode, (char) 0, System.nanoTime());
 	}
 
 	/**
-	 * Alters the keys boolean array to show which key is down
+	 * Sets the bit of a key to show that it is down and queues a KeyDown event
 	 * 
 	 * @param keycode
 	 *            The key that went down
+	 * @param character
+	 *            The character the key typed (or 0)
+	 * @param time
+	 *            When the key went down (System.nanoTime())
 	 */
-	private void keyDown(int keycode)
+	public void keyDown(int keycode, char character, long time)
 	{
-		keys[keycode] = true;
+		keys[keycode >>> 6] |= 1L << keycode;
+		events.add(InputEventType.KeyDown, time, keycode, character, source.getMouseX(), source.getMouseY(), 0, 0,
+				0);
 	}
 
 	/**
-	 * Alters the keys boolean array to show which key was released
+	 * Clears the bit of a key to show that it was released and queues a KeyUp
+	 * event stamped with the current time
 	 * 
 	 * @param keycode
 	 *            The key that was released
 	 */
-	private void keyUp(int keycode)
+	public void keyUp(int keycode)
+	{
+		keyUp(keycode, System.nanoTime());
+	}
+
+	/**
+	 * Clears the bit of a key to show that it was released and queues a KeyUp
+	 * event
+	 * 
+	 * @param keycode
+	 *            The key that was released
+	 * @param time
+	 *            When the key was released (System.nanoTime())
+	 */
+	public void keyUp(int keycode, long time)
+	{
+		keys[keycode >>> 6] &= ~(1L << keycode);
+		events.add(InputEventType.KeyUp, time, keycode, (char) 0, source.getMouseX(), source.getMouseY(), 0, 0, 0);
+	}
+
+	/**
+	 * Sets the bit of a button to show that it is pressed and queues a
+	 * ButtonDown event stamped with the current time
+	 * 
+	 * @param buttoncode
+	 *            The button that went down
+	 */
+	public void buttonDown(int buttoncode)
 	{
-		keys[keycode] = false;
+		buttonDown(buttoncode, source.getMouseX(), source.getMouseY(), System.nanoTime());
 	}
 
 	/**
-	 * Alters the buttons boolean array to show which button is pressed
+	 * Sets the bit of a button to show that it is pressed and queues a
+	 * ButtonDown event
 	 * 
 	 * @param buttoncode
 	 *            The button that went down
+	 * @param x
+	 *            X-coordinate of the mouse in design coordinates
+	 * @param y
+	 *            Y-coordinate of the mouse in design coordinates
+	 * @param time
+	 *            When the button went down (System.nanoTime())
 	 */
-	private void buttonDown(int buttoncode)
+	public void buttonDown(int buttoncode, int x, int y, long time)
 	{
-		buttons[buttoncode] = true;
+		buttons |= buttonBit(buttoncode);
+		events.add(InputEventType.ButtonDown, time, buttoncode, (char) 0, x, y, 0, 0, 0);
 	}
 
 	/**
-	 * Alters the buttons boolean array to show which button was released
+	 * Clears the bit of a button to show that it was released and queues a
+	 * ButtonUp event stamped with the current time
 	 * 
 	 * @param buttoncode
 	 *            The button that was released
 	 */
-	private void buttonUp(int buttoncode)
+	public void buttonUp(int buttoncode)
+	{
+		buttonUp(buttoncode, source.getMouseX(), source.getMouseY(), System.nanoTime());
+	}
+
+	/**
+	 * Clears the bit of a button to show that it was released and queues a
+	 * ButtonUp event
+	 * 
+	 * @param buttoncode
+	 *            The button that was released
+	 * @param x
+	 *            X-coordinate of the mouse in design coordinates
+	 * @param y
+	 *            Y-coordinate of the mouse in design coordinates
+	 * @param time
+	 *            When the button was released (System.nanoTime())
+	 */
+	public void buttonUp(int buttoncode, int x, int y, long time)
+	{
+		buttons &= ~buttonBit(buttoncode);
+		events.add(InputEventType.ButtonUp, time, buttoncode, (char) 0, x, y, 0, 0, 0);
+	}
+
+	/**
+	 * Queues a Motion event
+	 * 
+	 * @param x
+	 *            X-coordinate of the mouse in design coordinates
+	 * @param y
+	 *            Y-coordinate of the mouse in design coordinates
+	 * @param deltaX
+	 *            How far the mouse moved along the X-axis in window pixels
+	 * @param deltaY
+	 *            How far the mouse moved along the Y-axis in window pixels
+	 *            (down is positive)
+	 * @param time
+	 *            When the mouse moved (System.nanoTime())
+	 */
+	public void mouseMoved(int x, int y, int deltaX, int deltaY, long time)
+	{
+		events.add(InputEventType.Motion, time, 0, (char) 0, x, y, deltaX, deltaY, 0);
+	}
+
+	/**
+	 * Queues a Wheel event
+	 * 
+	 * @param x
+	 *            X-coordinate of the mouse in design coordinates
+	 * @param y
+	 *            Y-coordinate of the mouse in design coordinates
+	 * @param wheel
+	 *            How far the wheel turned (away from the user is positive)
+	 * @param time
+	 *            When the wheel turned (System.nanoTime())
+	 */
+	public void mouseWheel(int x, int y, int wheel, long time)
+	{
+		events.add(InputEventType.Wheel, time, 0, (char) 0, x, y, 0, 0, wheel);
+	}
+
+	/**
+	 * Gets the events of the current update, oldest first. Unlike the key and
+	 * button states, the events show keys that were pressed and released
+	 * within one update, and when exactly each event happened. The queue is
+	 * cleared by the next update.
+	 * 
+	 * @return The events
+	 */
+	public static InputEventQueue getEvents()
 	{
-		buttons[buttoncode] = false;
+		return events;
 	}
 
 	/**
@@ -190,21 +516,7 @@ public class Input
 	 */
 	public static int getMouseX()
 	{
-		if ((double) Display.getWidth() / (double) Display.getHeight() == (double) GameContainer.getDesignWidth()
-				/ (double) GameContainer.getDesignHeight())
-		{
-			return (int) (Mouse.getX() * ((double) GameContainer.getDesignWidth() / (double) Display.getWidth()));
-		} else if ((double) Display.getWidth() / (double) Display.getHeight() < (double) GameContainer.getDesignWidth()
-				/ (double) GameContainer.getDesignHeight())
-		{
-			return (int) (Mouse.getX() * ((double) GameContainer.getDesignWidth() / (double) Display.getWidth()));
-		} else
-		{
-			return (int) ((Mouse.getX() * ((double) GameContainer.getDesignHeight() / (double) Display.getHeight()))
-					- (((double) Display.getWidth() - (double) GameContainer.getDesignWidth()
-							* (double) Display.getHeight() / (double) GameContainer.getDesignHeight()) / (double) 2)
-							* ((double) GameContainer.getDesignHeight() / (double) Display.getHeight()));
-		}
+		return source.getMouseX();
 	}
 
 	/**
@@ -214,24 +526,7 @@ public class Input
 	 */
 	public static int getMouseY()
 	{
-		if ((double) Display.getWidth() / (double) Display.getHeight() == (double) GameContainer.getDesignWidth()
-				/ (double) GameContainer.getDesignHeight())
-		{
-			return (int) ((Display.getHeight() - Mouse.getY())
-					* ((double) GameContainer.getDesignHeight() / (double) Display.getHeight()));
-		} else if ((double) Display.getWidth() / (double) Display.getHeight() < (double) GameContainer.getDesignWidth()
-				/ (double) GameContainer.getDesignHeight())
-		{
-			return (int) (((Display.getHeight() - Mouse.getY())
-					* ((double) GameContainer.getDesignWidth() / (double) Display.getWidth()))
-					- (((double) Display.getHeight() - (double) GameContainer.getDesignHeight()
-							* (double) Display.getWidth() / (double) GameContainer.getDesignWidth()) / (double) 2)
-							* ((double) GameContainer.getDesignWidth() / (double) Display.getWidth()));
-		} else
-		{
-			return (int) ((Display.getHeight() - Mouse.getY())
-					* ((double) GameContainer.getDesignHeight() / (double) Display.getHeight()));
-		}
+		return source.getMouseY();
 	}
 
 	/**
@@ -244,33 +539,23 @@ public class Input
 	 */
 	public static void setMousePosition(int posX, int posY)
 	{
-		int x;
-		int y;
+		source.setMousePosition(posX, posY);
+	}
 
-		if ((double) Display.getWidth() / (double) Display.getHeight() == (double) GameContainer.getDesignWidth()
-				/ (double) GameContainer.getDesignHeight())
-		{
-			x = (int) (posX / ((double) GameContainer.getDesignWidth() / (double) Display.getWidth()));
-			y = (int) ((Display.getHeight()
-					- (double) posY / ((double) GameContainer.getDesignHeight() / (double) Display.getHeight())));
-		} else if ((double) Display.getWidth() / (double) Display.getHeight() < (double) GameContainer.getDesignWidth()
-				/ (double) GameContainer.getDesignHeight())
-		{
-			x = (int) (posX / ((double) GameContainer.getDesignWidth() / (double) Display.getWidth()));
-			y = (int) ((double) Display.getHeight()
-					- (((double) posY * ((double) Display.getWidth() / (double) GameContainer.getDesignWidth()))
-							+ (((double) Display.getHeight() - ((double) GameContainer.getDesignHeight()
-									* ((double) Display.getWidth() / (double) GameContainer.getDesignWidth())))
-							/ (double) 2)));
-		} else
-		{
-			x = (int) (((double) posX * ((double) Display.getHeight() / (double) GameContainer.getDesignHeight()))
-					+ (((double) Display.getWidth() - ((double) GameContainer.getDesignWidth()
-							* ((double) Display.getHeight() / (double) GameContainer.getDesignHeight())))
-							/ (double) 2));
-			y = (int) ((Display.getHeight()
-					- (double) posY / ((double) GameContainer.getDesignHeight() / (double) Display.getHeight())));
-		}
-		Mouse.setCursorPosition(x, y);
+	public static InputSource getInputSource()
+	{
+		return source;
+	}
+
+	/**
+	 * Sets where keyboard and mouse events come from. The default reads the
+	 * LWJGL Display; headless games use a NullInputSource.
+	 * 
+	 * @param source
+	 *            The source of input events
+	 */
+	public static void setInputSource(InputSource source)
+	{
+		Input.source = source;
 	}
 }
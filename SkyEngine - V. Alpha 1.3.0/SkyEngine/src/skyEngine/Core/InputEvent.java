@@ -0,0 +1,114 @@
+package skyEngine.Core;
+
+public class InputEvent
+{
+
+	private InputEventType type;
+	private long time;
+
+	// Key or button
+	private int code;
+	private char character;
+
+	// Mouse position in design coordinates and how far it moved
+	private int x;
+	private int y;
+	private int deltaX;
+	private int deltaY;
+	private int wheel;
+
+	/**
+	 * Overwrites the event with a new one. Events are reused by the
+	 * InputEventQueue, so every field is set.
+	 */
+	void set(InputEventType type, long time, int code, char character, int x, int y, int deltaX, int deltaY,
+			int wheel)
+	{
+		this.type = type;
+		this.time = time;
+		this.code = code;
+		this.character = character;
+		this.x = x;
+		this.y = y;
+		this.deltaX = deltaX;
+		this.deltaY = deltaY;
+		this.wheel = wheel;
+	}
+
+	/**
+	 * Copies another event into this one
+	 * 
+	 * @param event
+	 *            The event to copy
+	 */
+	public void set(InputEvent event)
+	{
+		set(event.type, event.time, event.code, event.character, event.x, event.y, event.deltaX, event.deltaY,
+				event.wheel);
+	}
+
+	public InputEventType getType()
+	{
+		return type;
+	}
+
+	/**
+	 * Gets when the event happened. Live input is stamped on the
+	 * System.nanoTime() clock, the same clock RealTimeClock and
+	 * GameContainer's frame timing use, so event times can be compared with
+	 * System.nanoTime(). A replayed event is stamped on the replay's fixed
+	 * tick clock instead (see InputReplay).
+	 * 
+	 * @return The time in nanoseconds
+	 */
+	public long getTime()
+	{
+		return time;
+	}
+
+	/**
+	 * Gets the key code of a key event or the button of a button event
+	 * 
+	 * @return The key code or button
+	 */
+	public int getCode()
+	{
+		return code;
+	}
+
+	/**
+	 * Gets the character typed by a KeyDown event
+	 * 
+	 * @return The character, or 0 if the key does not type one
+	 */
+	public char getCharacter()
+	{
+		return character;
+	}
+
+	public int getX()
+	{
+		return x;
+	}
+
+	public int getY()
+	{
+		return y;
+	}
+
+	public int getDeltaX()
+	{
+		return deltaX;
+	}
+
+	public int getDeltaY()
+	{
+		return deltaY;
+	}
+
+	public int getWheel()
+	{
+		return wheel;
+	}
+
+}
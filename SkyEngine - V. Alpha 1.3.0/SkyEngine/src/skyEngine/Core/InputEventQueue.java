@@ -0,0 +1,157 @@
+package skyEngine.Core;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class InputEventQueue implements Iterable<InputEvent>
+{
+
+	// Preallocated events, used as a ring
+	private InputEvent[] events;
+	private int mask;
+
+	// Positions in the ring; the queue holds the events from head to tail
+	private long head = 0;
+	private long tail = 0;
+	private long droppedEvents = 0;
+
+	private EventIterator iterator = new EventIterator();
+
+	/**
+	 * Creates an InputEventQueue. Every event is allocated up front, so adding
+	 * events never creates garbage.
+	 * 
+	 * @param capacity
+	 *            The number of events the queue holds (rounded up to a power
+	 *            of two). When it is full, the oldest event is dropped.
+	 */
+	public InputEventQueue(int capacity)
+	{
+		int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+		events = new InputEvent[size];
+		for (int i = 0; i < size; i++)
+		{
+			events[i] = new InputEvent();
+		}
+		mask = size - 1;
+	}
+
+	/**
+	 * Adds an event to the end of the queue
+	 * 
+	 * @param type
+	 *            The kind of event
+	 * @param time
+	 *            When the event happened (System.nanoTime())
+	 * @param code
+	 *            The key code or button (or 0)
+	 * @param character
+	 *            The typed character (or 0)
+	 * @param x
+	 *            X-coordinate of the mouse in design coordinates
+	 * @param y
+	 *            Y-coordinate of the mouse in design coordinates
+	 * @param deltaX
+	 *            How far the mouse moved along the X-axis
+	 * @param deltaY
+	 *            How far the mouse moved along the Y-axis
+	 * @param wheel
+	 *            How far the mouse wheel turned
+	 */
+	public void add(InputEventType type, long time, int code, char character, int x, int y, int deltaX, int deltaY,
+			int wheel)
+	{
+		if (tail - head == events.length)
+		{
+			head++;
+			droppedEvents++;
+		}
+		events[(int) (tail & mask)].set(type, time, code, character, x, y, deltaX, deltaY, wheel);
+		tail++;
+	}
+
+	/**
+	 * Removes every event from the queue
+	 */
+	public void clear()
+	{
+		head = tail;
+	}
+
+	/**
+	 * Gets an event by its position in the queue. The event is reused once it
+	 * is cleared, so copy it if it has to be kept.
+	 * 
+	 * @param index
+	 *            The position of the event, 0 being the oldest
+	 * @return The event
+	 */
+	public InputEvent get(int index)
+	{
+		if (index < 0 || index >= size())
+		{
+			throw new IndexOutOfBoundsException("Index " + index + " of " + size() + " events");
+		}
+		return events[(int) ((head + index) & mask)];
+	}
+
+	public int size()
+	{
+		return (int) (tail - head);
+	}
+
+	public boolean isEmpty()
+	{
+		return tail == head;
+	}
+
+	public int getCapacity()
+	{
+		return events.length;
+	}
+
+	/**
+	 * Gets the number of events that were dropped because the queue was full
+	 * 
+	 * @return The number of dropped events
+	 */
+	public long getDroppedEvents()
+	{
+		return droppedEvents;
+	}
+
+	/**
+	 * Iterates over the events, oldest first. The iterator is reused, so the
+	 * queue cannot be iterated by two loops at the same time.
+	 */
+	public Iterator<InputEvent> iterator()
+	{
+		iterator.position = head;
+		return iterator;
+	}
+
+	/**
+	 * Walks the events from head to tail
+	 */
+	private class EventIterator implements Iterator<InputEvent>
+	{
+
+		private long position;
+
+		public boolean hasNext()
+		{
+			return position < tail;
+		}
+
+		public InputEvent next()
+		{
+			if (position >= tail)
+			{
+				throw new NoSuchElementException();
+			}
+			return events[(int) (position++ & mask)];
+		}
+
+	}
+
+}
@@ -0,0 +1,6 @@
+package skyEngine.Core;
+
+public enum InputEventType
+{
+	KeyDown, KeyUp, ButtonDown, ButtonUp, Wheel, Motion
+}
@@ -0,0 +1,895 @@
+package skyEngine.Core;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.lwjgl.input.Keyboard;
+
+public class InputMap
+{
+
+	// Where a binding reads its input from
+	private static final int KEY = 0;
+	private static final int MOUSE_BUTTON = 1;
+	private static final int PAD_BUTTON = 2;
+	private static final int PAD_DPAD = 3;
+	private static final int PAD_AXIS = 4;
+	private static final String[] sourceNames = { "key", "mouse", "padButton", "dPad", "padAxis" };
+
+	// Names of the actions and axes (only used while binding)
+	private ArrayList<String> actionNames = new ArrayList<String>();
+	private ArrayList<String> axisNames = new ArrayList<String>();
+
+	// Bindings as they were added
+	private ArrayList<Binding> bindings = new ArrayList<Binding>();
+	private boolean compiled = false;
+
+	// Compiled action bindings: a mask of every input type for each action
+	// and a list of pad axes that are used as buttons
+	private long[] keyMasks = new long[0];
+	private long[] mouseMasks = new long[0];
+	private int[] padButtonMasks = new int[0];
+	private int[] dPadMasks = new int[0];
+	private int triggerCount = 0;
+	private int[] triggerActions = new int[0];
+	private int[] triggerAxes = new int[0];
+	private float[] triggerThresholds = new float[0];
+
+	// Compiled axis bindings
+	private int axisBindingCount = 0;
+	private int[] axisBindingAxes = new int[0];
+	private int[] axisBindingSources = new int[0];
+	private int[] axisBindingNegatives = new int[0];
+	private int[] axisBindingPositives = new int[0];
+	private float[] axisBindingDeadZones = new float[0];
+	private float[] axisBindingScales = new float[0];
+
+	// Action states, one bit per action, for this update and the last one
+	private long[] actions = new long[1];
+	private long[] actionsLast = new long[1];
+	private float[] axisValues = new float[0];
+
+	/**
+	 * Adds an action that bindings can be added to, such as "jump". Look the
+	 * index up once and use it to check the action every update.
+	 * 
+	 * @param name
+	 *            The name of the action
+	 * @return The index of the action (the existing one if the name is
+	 *         already used)
+	 */
+	public int addAction(String name)
+	{
+		int action = actionNames.indexOf(name);
+		if (action >= 0)
+		{
+			return action;
+		}
+		actionNames.add(name);
+		compiled = false;
+		return actionNames.size() - 1;
+	}
+
+	/**
+	 * Adds an axis that bindings can be added to, such as "moveX". Look the
+	 * index up once and use it to read the axis every update.
+	 * 
+	 * @param name
+	 *            The name of the axis
+	 * @return The index of the axis (the existing one if the name is already
+	 *         used)
+	 */
+	public int addAxis(String name)
+	{
+		int axis = axisNames.indexOf(name);
+		if (axis >= 0)
+		{
+			return axis;
+		}
+		axisNames.add(name);
+		compiled = false;
+		return axisNames.size() - 1;
+	}
+
+	/**
+	 * Binds a key to an action
+	 * 
+	 * @param action
+	 *            The index of the action
+	 * @param keyCode
+	 *            The key (one of the Keyboard.KEY_ constants)
+	 */
+	public void bindKey(int action, int keyCode)
+	{
+		addActionBinding(action, KEY, keyCode, 0);
+	}
+
+	/**
+	 * Binds a mouse button to an action
+	 * 
+	 * @param action
+	 *            The index of the action
+	 * @param button
+	 *            The mouse button
+	 */
+	public void bindMouseButton(int action, int button)
+	{
+		addActionBinding(action, MOUSE_BUTTON, button, 0);
+	}
+
+	/**
+	 * Binds a game pad button to an action
+	 * 
+	 * @param action
+	 *            The index of the action
+	 * @param button
+	 *            The button (one of the GamePad.btn constants)
+	 */
+	public void bindPadButton(int action, int button)
+	{
+		addActionBinding(action, PAD_BUTTON, button, 0);
+	}
+
+	/**
+	 * Binds a d-pad direction to an action
+	 * 
+	 * @param action
+	 *            The index of the action
+	 * @param direction
+	 *            The direction (one of the GamePad.dpad constants)
+	 */
+	public void bindPadDPad(int action, int direction)
+	{
+		addActionBinding(action, PAD_DPAD, direction, 0);
+	}
+
+	/**
+	 * Binds a game pad axis to an action, so the action is down while the axis
+	 * is pushed past a threshold
+	 * 
+	 * @param action
+	 *            The index of the action
+	 * @param axis
+	 *            The axis (such as GamePad.triggerAxis)
+	 * @param threshold
+	 *            How far the axis has to be pushed; a negative threshold
+	 *            means the axis has to be pushed the other way. A threshold
+	 *            of 0 is ignored, since the action would be down at rest.
+	 */
+	public void bindPadAxis(int action, int axis, float threshold)
+	{
+		if (threshold == 0.0f)
+		{
+			System.out.println("A game pad axis can not be bound to an action with a threshold of 0");
+			return;
+		}
+		addActionBinding(action, PAD_AXIS, axis, threshold);
+	}
+
+	/**
+	 * Binds two keys to an axis. The axis is -1 while the first key is down, 1
+	 * while the second one is and 0 while both or neither are.
+	 * 
+	 * @param axis
+	 *            The index of the axis
+	 * @param negativeKey
+	 *            The key that pushes the axis towards -1
+	 * @param positiveKey
+	 *            The key that pushes the axis towards 1
+	 */
+	public void bindAxisKeys(int axis, int negativeKey, int positiveKey)
+	{
+		addAxisBinding(axis, KEY, negativeKey, positiveKey, 0, 1);
+	}
+
+	/**
+	 * Binds two mouse buttons to an axis
+	 * 
+	 * @param axis
+	 *            The index of the axis
+	 * @param negativeButton
+	 *            The button that pushes the axis towards -1
+	 * @param positiveButton
+	 *            The button that pushes the axis towards 1
+	 */
+	public void bindAxisMouseButtons(int axis, int negativeButton, int positiveButton)
+	{
+		addAxisBinding(axis, MOUSE_BUTTON, negativeButton, positiveButton, 0, 1);
+	}
+
+	/**
+	 * Binds two game pad buttons to an axis
+	 * 
+	 * @param axis
+	 *            The index of the axis
+	 * @param negativeButton
+	 *            The button that pushes the axis towards -1
+	 * @param positiveButton
+	 *            The button that pushes the axis towards 1
+	 */
+	public void bindAxisPadButtons(int axis, int negativeButton, int positiveButton)
+	{
+		addAxisBinding(axis, PAD_BUTTON, negativeButton, positiveButton, 0, 1);
+	}
+
+	/**
+	 * Binds two d-pad directions to an axis
+	 * 
+	 * @param axis
+	 *            The index of the axis
+	 * @param negativeDirection
+	 *            The direction that pushes the axis towards -1
+	 * @param positiveDirection
+	 *            The direction that pushes the axis towards 1
+	 */
+	public void bindAxisDPad(int axis, int negativeDirection, int positiveDirection)
+	{
+		addAxisBinding(axis, PAD_DPAD, negativeDirection, positiveDirection, 0, 1);
+	}
+
+	/**
+	 * Binds a game pad axis to an axis. Values inside the dead zone read as 0
+	 * and the rest of the range is stretched so the axis still reaches 1.
+	 * 
+	 * @param axis
+	 *            The index of the axis
+	 * @param padAxis
+	 *            The game pad axis (such as GamePad.leftJoyX)
+	 * @param deadZone
+	 *            The dead zone (0-1)
+	 * @param scale
+	 *            What the value is multiplied by (-1 inverts the axis)
+	 */
+	public void bindAxisPadAxis(int axis, int padAxis, float deadZone, float scale)
+	{
+		addAxisBinding(axis, PAD_AXIS, padAxis, padAxis, deadZone, scale);
+	}
+
+	/**
+	 * Adds a binding to an action if the action exists
+	 */
+	private void addActionBinding(int action, int source, int code, float threshold)
+	{
+		if (action >= 0 && action < actionNames.size())
+		{
+			bindings.add(new Binding(false, action, source, code, code, threshold, 1));
+			compiled = false;
+		}
+	}
+
+	/**
+	 * Adds a binding to an axis if the axis exists
+	 */
+	private void addAxisBinding(int axis, int source, int negative, int positive, float deadZone, float scale)
+	{
+		if (axis >= 0 && axis < axisNames.size())
+		{
+			bindings.add(new Binding(true, axis, source, negative, positive, deadZone, scale));
+			compiled = false;
+		}
+	}
+
+	/**
+	 * Removes every binding of an action, so it can be bound again
+	 * 
+	 * @param action
+	 *            The index of the action
+	 */
+	public void unbindAction(int action)
+	{
+		removeBindings(false, action);
+	}
+
+	/**
+	 * Removes every binding of an axis, so it can be bound again
+	 * 
+	 * @param axis
+	 *            The index of the axis
+	 */
+	public void unbindAxis(int axis)
+	{
+		removeBindings(true, axis);
+	}
+
+	/**
+	 * Removes every binding. The actions and axes keep their indices.
+	 */
+	public void unbindAll()
+	{
+		bindings.clear();
+		compiled = false;
+	}
+
+	/**
+	 * Removes the bindings of an action or axis
+	 */
+	private void removeBindings(boolean axis, int target)
+	{
+		for (int i = bindings.size() - 1; i >= 0; i--)
+		{
+			Binding binding = bindings.get(i);
+			if (binding.axis == axis && binding.target == target)
+			{
+				bindings.remove(i);
+				compiled = false;
+			}
+		}
+	}
+
+	/**
+	 * Turns the bindings into the flat tables that update() reads. The keys,
+	 * mouse buttons, pad buttons and d-pad directions of an action are merged
+	 * into one bit mask each, so an action is checked with a few AND
+	 * operations however many bindings it has. This is done by the next
+	 * update() after the bindings change, but can be called earlier (such as
+	 * while loading) to keep the work out of a frame.
+	 */
+	public void compile()
+	{
+		int actionCount = actionNames.size();
+		keyMasks = new long[actionCount * Input.KEY_WORDS];
+		mouseMasks = new long[actionCount];
+		padButtonMasks = new int[actionCount];
+		dPadMasks = new int[actionCount];
+
+		int triggers = 0;
+		int axisBindings = 0;
+		for (Binding binding : bindings)
+		{
+			if (binding.axis)
+			{
+				axisBindings++;
+			} else if (binding.source == PAD_AXIS)
+			{
+				triggers++;
+			}
+		}
+		triggerActions = new int[triggers];
+		triggerAxes = new int[triggers];
+		triggerThresholds = new float[triggers];
+		axisBindingAxes = new int[axisBindings];
+		axisBindingSources = new int[axisBindings];
+		axisBindingNegatives = new int[axisBindings];
+		axisBindingPositives = new int[axisBindings];
+		axisBindingDeadZones = new float[axisBindings];
+		axisBindingScales = new float[axisBindings];
+		triggerCount = 0;
+		axisBindingCount = 0;
+
+		for (Binding binding : bindings)
+		{
+			// Bindings to inputs that do not exist are left out
+			if (!isValidCode(binding.source, binding.negative) || !isValidCode(binding.source, binding.positive))
+			{
+				continue;
+			}
+
+			if (binding.axis)
+			{
+				int i = axisBindingCount++;
+				axisBindingAxes[i] = binding.target;
+				axisBindingSources[i] = binding.source;
+				axisBindingNegatives[i] = binding.negative;
+				axisBindingPositives[i] = binding.positive;
+				axisBindingDeadZones[i] = binding.threshold;
+				axisBindingScales[i] = binding.scale;
+				continue;
+			}
+
+			int action = binding.target;
+			int code = binding.positive;
+			switch (binding.source)
+			{
+			case KEY:
+				keyMasks[action * Input.KEY_WORDS + (code >>> 6)] |= 1L << code;
+				break;
+			case MOUSE_BUTTON:
+				mouseMasks[action] |= 1L << code;
+				break;
+			case PAD_BUTTON:
+				padButtonMasks[action] |= 1 << code;
+				break;
+			case PAD_DPAD:
+				dPadMasks[action] |= 1 << code;
+				break;
+			case PAD_AXIS:
+				triggerActions[triggerCount] = action;
+				triggerAxes[triggerCount] = code;
+				triggerThresholds[triggerCount] = binding.threshold;
+				triggerCount++;
+				break;
+			}
+		}
+
+		int words = Math.max(1, (actionCount + 63) / 64);
+		if (actions.length != words)
+		{
+			actions = Arrays.copyOf(actions, words);
+			actionsLast = Arrays.copyOf(actionsLast, words);
+		}
+		if (axisValues.length != axisNames.size())
+		{
+			axisValues = Arrays.copyOf(axisValues, axisNames.size());
+		}
+		compiled = true;
+	}
+
+	/**
+	 * Determines if a binding code can be checked against the input state
+	 */
+	private static boolean isValidCode(int source, int code)
+	{
+		switch (source)
+		{
+		case KEY:
+			return code >= 0 && code < Keyboard.KEYBOARD_SIZE;
+		case MOUSE_BUTTON:
+			return code >= 0 && code < 64;
+		case PAD_AXIS:
+			return code >= 0 && code < GamePad.axisCount;
+		default:
+			return code >= 0 && code < 32;
+		}
+	}
+
+	/**
+	 * Updates the actions and axes from the keyboard and mouse. This should be
+	 * called once per update, after Input.update().
+	 */
+	public void update()
+	{
+		update(null);
+	}
+
+	/**
+	 * Updates the actions and axes from the keyboard, mouse and a game pad.
+	 * This should be called once per update, after Input.update() and
+	 * GamePad.update().
+	 * 
+	 * @param pad
+	 *            The game pad (can be null)
+	 */
+	public void update(GamePad pad)
+	{
+		if (!compiled)
+		{
+			compile();
+		}
+
+		long[] swap = actionsLast;
+		actionsLast = actions;
+		actions = swap;
+		for (int i = 0; i < actions.length; i++)
+		{
+			actions[i] = 0;
+		}
+
+		long mouse = Input.getButtonBits();
+		int padButtons = pad == null ? 0 : pad.getButtonBits();
+		int dPad = pad == null ? 0 : pad.getDPadBits();
+
+		int actionCount = mouseMasks.length;
+		for (int action = 0; action < actionCount; action++)
+		{
+			if ((mouse & mouseMasks[action]) != 0 || (padButtons & padButtonMasks[action]) != 0
+					|| (dPad & dPadMasks[action]) != 0 || Input.isAnyKey(keyMasks, action * Input.KEY_WORDS))
+			{
+				actions[action >>> 6] |= 1L << action;
+			}
+		}
+		for (int i = 0; pad != null && i < triggerCount; i++)
+		{
+			float value = pad.getAxisValue(triggerAxes[i]);
+			float threshold = triggerThresholds[i];
+			if (threshold >= 0 ? value >= threshold : value <= threshold)
+			{
+				actions[triggerActions[i] >>> 6] |= 1L << triggerActions[i];
+			}
+		}
+
+		for (int i = 0; i < axisValues.length; i++)
+		{
+			axisValues[i] = 0.0f;
+		}
+		for (int i = 0; i < axisBindingCount; i++)
+		{
+			int negative = axisBindingNegatives[i];
+			int positive = axisBindingPositives[i];
+			float value;
+			switch (axisBindingSources[i])
+			{
+			case KEY:
+				value = (Input.isKey(positive) ? 1 : 0) - (Input.isKey(negative) ? 1 : 0);
+				break;
+			case MOUSE_BUTTON:
+				value = (int) ((mouse >>> positive) & 1) - (int) ((mouse >>> negative) & 1);
+				break;
+			case PAD_BUTTON:
+				value = ((padButtons >>> positive) & 1) - ((padButtons >>> negative) & 1);
+				break;
+			case PAD_DPAD:
+				value = ((dPad >>> positive) & 1) - ((dPad >>> negative) & 1);
+				break;
+			default:
+				value = pad == null ? 0.0f : applyDeadZone(pad.getAxisValue(positive), axisBindingDeadZones[i]);
+				break;
+			}
+			value *= axisBindingScales[i];
+
+			// The binding pushed furthest wins
+			int axis = axisBindingAxes[i];
+			if (Math.abs(value) > Math.abs(axisValues[axis]))
+			{
+				axisValues[axis] = value;
+			}
+		}
+	}
+
+	/**
+	 * Sets values inside the dead zone to 0 and stretches the rest of the
+	 * range back to 0-1
+	 */
+	private static float applyDeadZone(float value, float deadZone)
+	{
+		float magnitude = Math.abs(value);
+		if (magnitude <= deadZone || deadZone >= 1.0f)
+		{
+			return 0.0f;
+		}
+		return Math.signum(value) * Math.min(1.0f, (magnitude - deadZone) / (1.0f - deadZone));
+	}
+
+	/**
+	 * Determines if an action is down
+	 * 
+	 * @param action
+	 *            The index of the action
+	 * @return Whether or not the action is down
+	 */
+	public boolean isAction(int action)
+	{
+		return actionBits(actions, action) != 0;
+	}
+
+	/**
+	 * Determines if an action has just been pressed
+	 * 
+	 * @param action
+	 *            The index of the action
+	 * @return Whether or not the action has just been pressed
+	 */
+	public boolean isActionPressed(int action)
+	{
+		return (actionBits(actions, action) & ~actionBits(actionsLast, action)) != 0;
+	}
+
+	/**
+	 * Determines if an action has just been released
+	 * 
+	 * @param action
+	 *            The index of the action
+	 * @return Whether or not the action has just been released
+	 */
+	public boolean isActionReleased(int action)
+	{
+		return (~actionBits(actions, action) & actionBits(actionsLast, action)) != 0;
+	}
+
+	/**
+	 * Gets the bit of an action in a state, or no bits if there is no such
+	 * action
+	 */
+	private static long actionBits(long[] state, int action)
+	{
+		if (action < 0 || (action >>> 6) >= state.length)
+		{
+			return 0;
+		}
+		return state[action >>> 6] & (1L << action);
+	}
+
+	/**
+	 * Gets the value of an axis
+	 * 
+	 * @param axis
+	 *            The index of the axis
+	 * @return The value of the axis (-1 to 1 unless a binding scales it
+	 *         further)
+	 */
+	public float getAxisValue(int axis)
+	{
+		if (axis >= 0 && axis < axisValues.length)
+		{
+			return axisValues[axis];
+		}
+		return 0.0f;
+	}
+
+	/**
+	 * Reads bindings from a file and adds them to the map. Each line binds one
+	 * input to an action or an axis, and lines starting with # are ignored:
+	 * 
+	 * <pre>
+	 * action jump key SPACE
+	 * action jump padButton 0
+	 * action accelerate padAxis 4 0.5
+	 * axis moveX key A D
+	 * axis moveX padAxis 1 0.2 1
+	 * </pre>
+	 * 
+	 * Keys are given by their LWJGL names and every other input by its
+	 * number. The bindings are compiled before this returns.
+	 * 
+	 * @param path
+	 *            The file to read
+	 * @return Whether or not the file could be read
+	 */
+	public boolean load(String path)
+	{
+		BufferedReader reader = null;
+		try
+		{
+			reader = new BufferedReader(new FileReader(path));
+			String line;
+			int lineNumber = 0;
+			while ((line = reader.readLine()) != null)
+			{
+				lineNumber++;
+				line = line.trim();
+				if (line.isEmpty() || line.startsWith("#"))
+				{
+					continue;
+				}
+				if (!parseBinding(line.split("\\s+")))
+				{
+					System.out.println("Invalid binding on line " + lineNumber + " of " + path);
+				}
+			}
+		} catch (IOException e)
+		{
+			e.printStackTrace();
+			return false;
+		} finally
+		{
+			if (reader != null)
+			{
+				try
+				{
+					reader.close();
+				} catch (IOException e)
+				{
+					e.printStackTrace();
+				}
+			}
+		}
+		compile();
+		return true;
+	}
+
+	/**
+	 * Adds the binding described by the words of a line
+	 */
+	private boolean parseBinding(String[] words)
+	{
+		if (words.length < 4)
+		{
+			return false;
+		}
+		boolean axis = words[0].equals("axis");
+		if (!axis && !words[0].equals("action"))
+		{
+			return false;
+		}
+		int source = Arrays.asList(sourceNames).indexOf(words[2]);
+		if (source < 0)
+		{
+			return false;
+		}
+
+		try
+		{
+			if (!axis)
+			{
+				float threshold = source == PAD_AXIS ? Float.parseFloat(words[4]) : 0.0f;
+				if (source == PAD_AXIS && threshold == 0.0f)
+				{
+					return false;
+				}
+				addActionBinding(addAction(words[1]), source, parseCode(source, words[3]), threshold);
+			} else if (source == PAD_AXIS)
+			{
+				int padAxis = parseCode(source, words[3]);
+				addAxisBinding(addAxis(words[1]), source, padAxis, padAxis, Float.parseFloat(words[4]),
+						words.length > 5 ? Float.parseFloat(words[5]) : 1.0f);
+			} else
+			{
+				addAxisBinding(addAxis(words[1]), source, parseCode(source, words[3]), parseCode(source, words[4]),
+						0.0f, 1.0f);
+			}
+		} catch (NumberFormatException e)
+		{
+			return false;
+		} catch (ArrayIndexOutOfBoundsException e)
+		{
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Reads a key name or an input number. Keys are read by name, since some
+	 * names are digits ("1" is KEY_1); a key without a name is written as its
+	 * code after a '#'.
+	 */
+	private static int parseCode(int source, String word)
+	{
+		if (source == KEY)
+		{
+			if (word.charAt(0) == '#')
+			{
+				return Integer.parseInt(word.substring(1));
+			}
+			int keyCode = Keyboard.getKeyIndex(word);
+			if (keyCode == Keyboard.KEY_NONE)
+			{
+				throw new NumberFormatException(word);
+			}
+			return keyCode;
+		}
+		return Integer.parseInt(word);
+	}
+
+	/**
+	 * Writes every binding to a file that load() can read, so rebound controls
+	 * can be kept between sessions
+	 * 
+	 * @param path
+	 *            The file to write
+	 * @return Whether or not the file could be written
+	 */
+	public boolean save(String path)
+	{
+		PrintWriter writer = null;
+		try
+		{
+			writer = new PrintWriter(new FileWriter(path));
+			for (Binding binding : bindings)
+			{
+				StringBuilder line = new StringBuilder();
+				line.append(binding.axis ? "axis " : "action ");
+				line.append(binding.axis ? axisNames.get(binding.target) : actionNames.get(binding.target));
+				line.append(' ').append(sourceNames[binding.source]);
+				if (binding.source == PAD_AXIS)
+				{
+					line.append(' ').append(binding.positive).append(' ').append(binding.threshold);
+					if (binding.axis)
+					{
+						line.append(' ').append(binding.scale);
+					}
+				} else
+				{
+					if (binding.axis)
+					{
+						line.append(' ').append(formatCode(binding.source, binding.negative));
+					}
+					line.append(' ').append(formatCode(binding.source, binding.positive));
+				}
+				writer.println(line);
+			}
+		} catch (IOException e)
+		{
+			e.printStackTrace();
+			return false;
+		} finally
+		{
+			if (writer != null)
+			{
+				writer.close();
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Writes a key name or an input number
+	 */
+	private static String formatCode(int source, int code)
+	{
+		if (source == KEY)
+		{
+			String name = Keyboard.getKeyName(code);
+			if (name != null && Keyboard.getKeyIndex(name) == code)
+			{
+				return name;
+			}
+			return "#" + code;
+		}
+		return Integer.toString(code);
+	}
+
+	/**
+	 * Gets the index of an action
+	 * 
+	 * @param name
+	 *            The name of the action
+	 * @return The index of the action or -1 if there is no such action
+	 */
+	public int getActionIndex(String name)
+	{
+		return actionNames.indexOf(name);
+	}
+
+	/**
+	 * Gets the index of an axis
+	 * 
+	 * @param name
+	 *            The name of the axis
+	 * @return The index of the axis or -1 if there is no such axis
+	 */
+	public int getAxisIndex(String name)
+	{
+		return axisNames.indexOf(name);
+	}
+
+	public String getActionName(int action)
+	{
+		return actionNames.get(action);
+	}
+
+	public String getAxisName(int axis)
+	{
+		return axisNames.get(axis);
+	}
+
+	public int getActionCount()
+	{
+		return actionNames.size();
+	}
+
+	public int getAxisCount()
+	{
+		return axisNames.size();
+	}
+
+	public int getBindingCount()
+	{
+		return bindings.size();
+	}
+
+	/**
+	 * A binding as it was added, before it is compiled
+	 */
+	private static class Binding
+	{
+
+		private boolean axis;
+		private int target;
+		private int source;
+		private int negative;
+		private int positive;
+
+		// The trigger point of a pad axis bound to an action, or the dead
+		// zone of a pad axis bound to an axis
+		private float threshold;
+		private float scale;
+
+		public Binding(boolean axis, int target, int source, int negative, int positive, float threshold,
+				float scale)
+		{
+			this.axis = axis;
+			this.target = target;
+			this.source = source;
+			this.negative = negative;
+			this.positive = positive;
+			this.threshold = threshold;
+			this.scale = scale;
+		}
+
+	}
+
+}
@@ -0,0 +1,361 @@
+package skyEngine.Core;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class InputRecorder implements InputSource
+{
+
+	// The file is mapped in chunks of this size as it grows
+	private static final int CHUNK_SIZE = 1024 * 1024;
+
+	// Largest encoding of an event (type, code, character, x, y, deltas, time)
+	private static final int MAX_EVENT_SIZE = 1 + 5 + 3 + 5 + 5 + 5 + 5 + 10;
+
+	// The source whose input is recorded
+	private InputSource source;
+
+	// Output file
+	private RandomAccessFile file;
+	private FileChannel channel;
+	private MappedByteBuffer header;
+	private MappedByteBuffer buffer;
+	private long bufferStart;
+	private long length = InputReplay.HEADER_SIZE;
+	private boolean closed = false;
+
+	// Every record is encoded here before it is copied into the file
+	private ByteBuffer record = ByteBuffer.allocate(64 + 256 * MAX_EVENT_SIZE);
+
+	// Recorded state that the next records are encoded against
+	private long ticks = 0;
+	private int mouseX = 0;
+	private int mouseY = 0;
+	private ArrayList<GamePad> gamePads = new ArrayList<GamePad>();
+	private int[] padButtons = new int[0];
+	private int[] padDPads = new int[0];
+	private float[][] padAxes = new float[0][];
+
+	/**
+	 * Creates an InputRecorder that passes on the input of a source and writes
+	 * it to a file. Every tick is stored as the change since the last tick, so
+	 * a tick without input takes two bytes. To record a game, wrap the current
+	 * source: Input.setInputSource(new InputRecorder(Input.getInputSource(),
+	 * path)).
+	 * 
+	 * @param source
+	 *            The source to record
+	 * @param path
+	 *            The file to write (it is replaced if it exists)
+	 * @throws IOException
+	 *             If the file can not be created
+	 */
+	public InputRecorder(InputSource source, String path) throws IOException
+	{
+		this.source = source;
+		file = new RandomAccessFile(path, "rw");
+		file.setLength(0);
+		channel = file.getChannel();
+
+		header = channel.map(FileChannel.MapMode.READ_WRITE, 0, InputReplay.HEADER_SIZE);
+		header.putInt(InputReplay.MAGIC);
+		header.putInt(InputReplay.VERSION);
+		header.putLong(length);
+
+		bufferStart = length;
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, bufferStart, CHUNK_SIZE);
+	}
+
+	/**
+	 * Polls the recorded source and writes a tick with the mouse movement and
+	 * the events it produced. Event times are stored relative to the earliest
+	 * event of the tick, so they stay small and do not depend on when the
+	 * recording was made.
+	 */
+	public void poll(Input input)
+	{
+		source.poll(input);
+		if (closed)
+		{
+			return;
+		}
+
+		InputEventQueue events = Input.getEvents();
+		int x = source.getMouseX();
+		int y = source.getMouseY();
+		boolean moved = x != mouseX || y != mouseY;
+
+		int size = 64 + events.size() * MAX_EVENT_SIZE;
+		if (record.capacity() < size)
+		{
+			record = ByteBuffer.allocate(size);
+		}
+		record.clear();
+		record.put((byte) InputReplay.TICK);
+		record.put((byte) ((moved ? InputReplay.MOUSE_MOVED : 0) | (events.isEmpty() ? 0 : InputReplay.HAS_EVENTS)));
+		if (moved)
+		{
+			writeSigned(x - mouseX);
+			writeSigned(y - mouseY);
+			mouseX = x;
+			mouseY = y;
+		}
+		if (!events.isEmpty())
+		{
+			writeUnsigned(events.size());
+			long firstTime = events.get(0).getTime();
+			for (int i = 1; i < events.size(); i++)
+			{
+				firstTime = Math.min(firstTime, events.get(i).getTime());
+			}
+			int eventX = x;
+			int eventY = y;
+			for (int i = 0; i < events.size(); i++)
+			{
+				InputEvent event = events.get(i);
+				record.put((byte) event.getType().ordinal());
+				writeUnsigned(event.getCode());
+				writeUnsigned(event.getCharacter());
+				writeSigned(event.getX() - eventX);
+				writeSigned(event.getY() - eventY);
+				eventX = event.getX();
+				eventY = event.getY();
+				if (event.getType() == InputEventType.Motion)
+				{
+					writeSigned(event.getDeltaX());
+					writeSigned(event.getDeltaY());
+				} else if (event.getType() == InputEventType.Wheel)
+				{
+					writeSigned(event.getWheel());
+				}
+				writeSignedLong(event.getTime() - firstTime);
+			}
+		}
+		writeRecord();
+		ticks++;
+	}
+
+	/**
+	 * Writes the state of a game pad as the change since its last record. This
+	 * is called by GamePad.update() once the pad is attached.
+	 * 
+	 * @param pad
+	 *            The pad that was updated
+	 */
+	void writeGamePad(GamePad pad)
+	{
+		int index = gamePads.indexOf(pad);
+		if (closed || index < 0)
+		{
+			return;
+		}
+
+		int buttons = pad.getButtonBits();
+		int dPad = pad.getDPadBits();
+		float[] axes = padAxes[index];
+		int changedAxes = 0;
+		for (int i = 0; i < GamePad.axisCount; i++)
+		{
+			if (Float.floatToIntBits(pad.getAxisValue(i)) != Float.floatToIntBits(axes[i]))
+			{
+				changedAxes |= 1 << i;
+			}
+		}
+
+		record.clear();
+		record.put((byte) InputReplay.GAME_PAD);
+		writeUnsigned(index);
+		record.put((byte) ((buttons != padButtons[index] ? InputReplay.BUTTONS_CHANGED : 0)
+				| (dPad != padDPads[index] ? InputReplay.DPAD_CHANGED : 0)
+				| (changedAxes != 0 ? InputReplay.AXES_CHANGED : 0)));
+		if (buttons != padButtons[index])
+		{
+			writeUnsigned(buttons ^ padButtons[index]);
+			padButtons[index] = buttons;
+		}
+		if (dPad != padDPads[index])
+		{
+			writeUnsigned(dPad ^ padDPads[index]);
+			padDPads[index] = dPad;
+		}
+		if (changedAxes != 0)
+		{
+			writeUnsigned(changedAxes);
+			for (int i = 0; i < GamePad.axisCount; i++)
+			{
+				if ((changedAxes & (1 << i)) != 0)
+				{
+					axes[i] = pad.getAxisValue(i);
+					record.putFloat(axes[i]);
+				}
+			}
+		}
+		writeRecord();
+	}
+
+	/**
+	 * Copies the encoded record into the mapped file, mapping the next chunk
+	 * if it does not fit. The length in the header is updated after every
+	 * record, so a recording that is never closed can still be replayed.
+	 */
+	private void writeRecord()
+	{
+		record.flip();
+		if (buffer.remaining() < record.remaining())
+		{
+			try
+			{
+				bufferStart += buffer.position();
+				buffer = channel.map(FileChannel.MapMode.READ_WRITE, bufferStart,
+						Math.max(CHUNK_SIZE, record.remaining()));
+			} catch (IOException e)
+			{
+				e.printStackTrace();
+				close();
+				return;
+			}
+		}
+		buffer.put(record);
+		length = bufferStart + buffer.position();
+		header.putLong(InputReplay.LENGTH_OFFSET, length);
+	}
+
+	/**
+	 * Writes an unsigned variable length integer (seven bits per byte)
+	 */
+	private void writeUnsigned(int value)
+	{
+		while ((value & ~0x7F) != 0)
+		{
+			record.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		record.put((byte) value);
+	}
+
+	/**
+	 * Writes a zigzag encoded signed variable length integer, so small
+	 * negative values stay small
+	 */
+	private void writeSigned(int value)
+	{
+		writeUnsigned((value << 1) ^ (value >> 31));
+	}
+
+	/**
+	 * Writes a zigzag encoded signed variable length long
+	 */
+	private void writeSignedLong(long value)
+	{
+		value = (value << 1) ^ (value >> 63);
+		while ((value & ~0x7FL) != 0)
+		{
+			record.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		record.put((byte) value);
+	}
+
+	/**
+	 * Makes a game pad write its state to the recording every time it is
+	 * updated
+	 * 
+	 * @param pad
+	 *            The pad to record
+	 */
+	public void attach(GamePad pad)
+	{
+		if (gamePads.contains(pad))
+		{
+			return;
+		}
+		gamePads.add(pad);
+		padButtons = Arrays.copyOf(padButtons, gamePads.size());
+		padDPads = Arrays.copyOf(padDPads, gamePads.size());
+		padAxes = Arrays.copyOf(padAxes, gamePads.size());
+		padAxes[gamePads.size() - 1] = new float[GamePad.axisCount];
+		pad.setRecorder(this);
+	}
+
+	/**
+	 * Finishes the recording and closes the file. The source keeps being
+	 * polled, but nothing more is written.
+	 */
+	public void close()
+	{
+		if (closed)
+		{
+			return;
+		}
+		closed = true;
+		for (GamePad pad : gamePads)
+		{
+			pad.setRecorder(null);
+		}
+
+		try
+		{
+			header.putLong(InputReplay.LENGTH_OFFSET, length);
+			buffer.force();
+			header.force();
+			try
+			{
+				// Cut off the unused part of the last chunk (not possible on
+				// some systems while the file is still mapped)
+				channel.truncate(length);
+			} catch (IOException e)
+			{
+			}
+			file.close();
+		} catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+	}
+
+	public int getMouseX()
+	{
+		return source.getMouseX();
+	}
+
+	public int getMouseY()
+	{
+		return source.getMouseY();
+	}
+
+	public void setMousePosition(int posX, int posY)
+	{
+		source.setMousePosition(posX, posY);
+	}
+
+	public InputSource getSource()
+	{
+		return source;
+	}
+
+	public long getTicks()
+	{
+		return ticks;
+	}
+
+	/**
+	 * Gets the size of the recording so far
+	 * 
+	 * @return The number of bytes written, including the header
+	 */
+	public long getLength()
+	{
+		return length;
+	}
+
+	public boolean isClosed()
+	{
+		return closed;
+	}
+
+}
@@ -0,0 +1,364 @@
+package skyEngine.Core;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class InputReplay implements InputSource
+{
+
+	// File layout: magic, version, length of the file in bytes (long), records
+	static final int MAGIC = 0x534B5949;
+	static final int VERSION = 2;
+	static final int HEADER_SIZE = 16;
+	static final int LENGTH_OFFSET = 8;
+
+	// Records
+	static final int TICK = 1;
+	static final int GAME_PAD = 2;
+
+	// Tick flags
+	static final int MOUSE_MOVED = 1;
+	static final int HAS_EVENTS = 2;
+
+	// Game pad flags
+	static final int BUTTONS_CHANGED = 1;
+	static final int DPAD_CHANGED = 2;
+	static final int AXES_CHANGED = 4;
+
+	private static final InputEventType[] eventTypes = InputEventType.values();
+
+	private MappedByteBuffer buffer;
+
+	// Fixed clock the recorded event times are replayed on
+	private long tick = 0;
+	private long tickNanos = 1000000000L / 60;
+
+	// Replayed state
+	private int mouseX = 0;
+	private int mouseY = 0;
+	private ArrayList<GamePad> gamePads = new ArrayList<GamePad>();
+	private int[] padButtons = new int[0];
+	private int[] padDPads = new int[0];
+	private float[][] padAxes = new float[0][];
+
+	private boolean finished = false;
+	private boolean desynchronized = false;
+
+	/**
+	 * Opens a file written by an InputRecorder. The file is memory mapped, so
+	 * no records are read until they are replayed.
+	 * 
+	 * @param path
+	 *            The file to replay
+	 * @throws IOException
+	 *             If the file can not be read or is not a recording
+	 */
+	public InputReplay(String path) throws IOException
+	{
+		RandomAccessFile file = new RandomAccessFile(path, "r");
+		try
+		{
+			// The mapping stays valid after the file is closed
+			FileChannel channel = file.getChannel();
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} finally
+		{
+			file.close();
+		}
+
+		if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+		{
+			throw new IOException(path + " is not an input recording");
+		}
+		if (buffer.getInt(4) != VERSION)
+		{
+			throw new IOException(path + " was recorded with an unsupported version");
+		}
+		long length = buffer.getLong(LENGTH_OFFSET);
+		buffer.limit((int) Math.max(HEADER_SIZE, Math.min(length, buffer.capacity())));
+		buffer.position(HEADER_SIZE);
+	}
+
+	/**
+	 * Replays the next recorded tick. The events are passed to the Input with
+	 * timestamps on a fixed clock (tick * tickNanos plus the recorded time
+	 * since the earliest event of the tick, kept inside the tick), so a game
+	 * run with a FixedVirtualClock at the recorded update rate sees exactly
+	 * the input it saw while recording. Once the recording ends no more events
+	 * are passed on.
+	 */
+	public void poll(Input input)
+	{
+		if (finished)
+		{
+			return;
+		}
+		if (!buffer.hasRemaining())
+		{
+			finished = true;
+			return;
+		}
+
+		try
+		{
+			if (buffer.get() != TICK)
+			{
+				desynchronize();
+				return;
+			}
+			long tickTime = tick * tickNanos;
+			tick++;
+
+			int flags = buffer.get();
+			if ((flags & MOUSE_MOVED) != 0)
+			{
+				mouseX += readSigned(buffer);
+				mouseY += readSigned(buffer);
+			}
+			if ((flags & HAS_EVENTS) != 0)
+			{
+				int count = readUnsigned(buffer);
+				int x = mouseX;
+				int y = mouseY;
+				for (int i = 0; i < count; i++)
+				{
+					InputEventType type = eventTypes[buffer.get()];
+					int code = readUnsigned(buffer);
+					char character = (char) readUnsigned(buffer);
+					x += readSigned(buffer);
+					y += readSigned(buffer);
+					int deltaX = 0;
+					int deltaY = 0;
+					int wheel = 0;
+					if (type == InputEventType.Motion)
+					{
+						deltaX = readSigned(buffer);
+						deltaY = readSigned(buffer);
+					} else if (type == InputEventType.Wheel)
+					{
+						wheel = readSigned(buffer);
+					}
+					long offset = Math.min(Math.max(readSignedLong(buffer), 0), tickNanos - 1);
+					long time = tickTime + offset;
+
+					switch (type)
+					{
+					case KeyDown:
+						input.keyDown(code, character, time);
+						break;
+					case KeyUp:
+						input.keyUp(code, time);
+						break;
+					case ButtonDown:
+						input.buttonDown(code, x, y, time);
+						break;
+					case ButtonUp:
+						input.buttonUp(code, x, y, time);
+						break;
+					case Wheel:
+						input.mouseWheel(x, y, wheel, time);
+						break;
+					case Motion:
+						input.mouseMoved(x, y, deltaX, deltaY, time);
+						break;
+					}
+				}
+			}
+		} catch (BufferUnderflowException e)
+		{
+			// The recording was cut off in the middle of a record
+			finished = true;
+		} catch (ArrayIndexOutOfBoundsException e)
+		{
+			desynchronize();
+		}
+	}
+
+	/**
+	 * Replays the next recorded state of a game pad. This is called by
+	 * GamePad.update() once the pad is attached. If the recording has ended
+	 * the pad keeps its last state.
+	 * 
+	 * @param pad
+	 *            The pad to pass the state to
+	 */
+	void readGamePad(GamePad pad)
+	{
+		int index = gamePads.indexOf(pad);
+		if (index < 0)
+		{
+			return;
+		}
+
+		if (!finished)
+		{
+			try
+			{
+				if (!buffer.hasRemaining())
+				{
+					finished = true;
+				} else if (buffer.get() != GAME_PAD || readUnsigned(buffer) != index)
+				{
+					desynchronize();
+				} else
+				{
+					int flags = buffer.get();
+					if ((flags & BUTTONS_CHANGED) != 0)
+					{
+						padButtons[index] ^= readUnsigned(buffer);
+					}
+					if ((flags & DPAD_CHANGED) != 0)
+					{
+						padDPads[index] ^= readUnsigned(buffer);
+					}
+					if ((flags & AXES_CHANGED) != 0)
+					{
+						int changed = readUnsigned(buffer);
+						for (int i = 0; i < GamePad.axisCount; i++)
+						{
+							if ((changed & (1 << i)) != 0)
+							{
+								padAxes[index][i] = buffer.getFloat();
+							}
+						}
+					}
+				}
+			} catch (BufferUnderflowException e)
+			{
+				finished = true;
+			}
+		}
+
+		pad.setState(padButtons[index], padAxes[index], padDPads[index]);
+	}
+
+	/**
+	 * Stops the replay because a record did not match what was expected
+	 */
+	private void desynchronize()
+	{
+		System.out.println("Input replay out of sync at tick " + tick);
+		desynchronized = true;
+		finished = true;
+	}
+
+	/**
+	 * Makes a game pad read its state from the recording instead of its
+	 * controller. Pads must be attached in the same order they were attached
+	 * to the InputRecorder.
+	 * 
+	 * @param pad
+	 *            The pad to replay
+	 */
+	public void attach(GamePad pad)
+	{
+		if (gamePads.contains(pad))
+		{
+			return;
+		}
+		gamePads.add(pad);
+		padButtons = Arrays.copyOf(padButtons, gamePads.size());
+		padDPads = Arrays.copyOf(padDPads, gamePads.size());
+		padAxes = Arrays.copyOf(padAxes, gamePads.size());
+		padAxes[gamePads.size() - 1] = new float[GamePad.axisCount];
+		pad.setReplay(this);
+	}
+
+	/**
+	 * Reads an unsigned variable length integer (seven bits per byte)
+	 */
+	static int readUnsigned(MappedByteBuffer buffer)
+	{
+		int value = 0;
+		int shift = 0;
+		int b;
+		do
+		{
+			b = buffer.get();
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+
+	/**
+	 * Reads a zigzag encoded signed variable length integer
+	 */
+	static int readSigned(MappedByteBuffer buffer)
+	{
+		int value = readUnsigned(buffer);
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * Reads a zigzag encoded signed variable length long
+	 */
+	static long readSignedLong(MappedByteBuffer buffer)
+	{
+		long value = 0;
+		int shift = 0;
+		int b;
+		do
+		{
+			b = buffer.get();
+			value |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * The replayed mouse does not move when the game moves it
+	 */
+	public void setMousePosition(int posX, int posY)
+	{
+	}
+
+	public int getMouseX()
+	{
+		return mouseX;
+	}
+
+	public int getMouseY()
+	{
+		return mouseY;
+	}
+
+	public boolean isFinished()
+	{
+		return finished;
+	}
+
+	public boolean isDesynchronized()
+	{
+		return desynchronized;
+	}
+
+	public long getTick()
+	{
+		return tick;
+	}
+
+	public long getTickNanos()
+	{
+		return tickNanos;
+	}
+
+	/**
+	 * Sets the length of a tick on the replay clock. This should match the
+	 * update rate the recording was made at.
+	 * 
+	 * @param tickNanos
+	 *            The length of a tick in nanoseconds
+	 */
+	public void setTickNanos(long tickNanos)
+	{
+		this.tickNanos = tickNanos;
+	}
+
+}
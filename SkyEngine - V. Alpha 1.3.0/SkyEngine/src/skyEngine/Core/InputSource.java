@@ -0,0 +1,40 @@
+package skyEngine.Core;
+
+public interface InputSource
+{
+
+	/**
+	 * Reads the events that happened since the last call and passes them to
+	 * an Input through keyDown(), keyUp(), buttonDown(), buttonUp(),
+	 * mouseMoved() and mouseWheel(), in the order they happened
+	 * 
+	 * @param input
+	 *            The Input that receives the events
+	 */
+	public void poll(Input input);
+
+	/**
+	 * Gets the X-coordinate of the mouse in design coordinates
+	 * 
+	 * @return The X-coordinate of the mouse
+	 */
+	public int getMouseX();
+
+	/**
+	 * Gets the Y-coordinate of the mouse in design coordinates
+	 * 
+	 * @return The Y-coordinate of the mouse
+	 */
+	public int getMouseY();
+
+	/**
+	 * Moves the mouse to a position in design coordinates
+	 * 
+	 * @param posX
+	 *            The desired position along the X-axis
+	 * @param posY
+	 *            The desired position along the Y-axis
+	 */
+	public void setMousePosition(int posX, int posY);
+
+}
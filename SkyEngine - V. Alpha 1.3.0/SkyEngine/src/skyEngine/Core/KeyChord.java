@@ -0,0 +1,56 @@
+package skyEngine.Core;
+
+import org.lwjgl.input.Keyboard;
+
+public class KeyChord
+{
+
+	// One bit per key code, laid out like the key state in Input
+	private long[] mask = new long[(Keyboard.KEYBOARD_SIZE + 63) / 64];
+	private int[] keyCodes;
+
+	/**
+	 * Creates a chord of keys that are held together, such as CTRL + SHIFT +
+	 * S. Checking a chord with Input.isChord() compares whole words of key
+	 * state, so it takes the same time however many keys are in the chord.
+	 * 
+	 * @param keyCodes
+	 *            The keys of the chord
+	 */
+	public KeyChord(int... keyCodes)
+	{
+		this.keyCodes = keyCodes.clone();
+		for (int keyCode : keyCodes)
+		{
+			mask[keyCode >>> 6] |= 1L << keyCode;
+		}
+	}
+
+	/**
+	 * Determines if a key is part of the chord
+	 * 
+	 * @param keyCode
+	 *            The key that is being checked
+	 * @return Whether or not the key is in the chord
+	 */
+	public boolean contains(int keyCode)
+	{
+		return (mask[keyCode >>> 6] & (1L << keyCode)) != 0;
+	}
+
+	/**
+	 * Gets the keys of the chord
+	 * 
+	 * @return A copy of the key codes
+	 */
+	public int[] getKeyCodes()
+	{
+		return keyCodes.clone();
+	}
+
+	long[] getMask()
+	{
+		return mask;
+	}
+
+}
@@ -0,0 +1,166 @@
+package skyEngine.Core;
+
+import org.lwjgl.input.Keyboard;
+import org.lwjgl.input.Mouse;
+
+public class LwjglInputSource implements InputSource
+{
+
+	// Mouse position in design coordinates, converted once per poll
+	private int mouseX = 0;
+	private int mouseY = 0;
+
+	// LWJGL stamps events with a clock that has no defined start (on Linux it
+	// is the X server's milliseconds), so its times are moved onto
+	// System.nanoTime()
+	private EventClock keyboardClock = new EventClock();
+	private EventClock mouseClock = new EventClock();
+
+	/**
+	 * Reads the keyboard and mouse events of the LWJGL Display
+	 * 
+	 * @param input
+	 *            The Input that receives the events
+	 */
+	public void poll(Input input)
+	{
+		long now = System.nanoTime();
+		keyboardClock.now = now;
+		mouseClock.now = now;
+		mouseX = Window.toDesignX(Mouse.getX());
+		mouseY = Window.toDesignY(Mouse.getY());
+		keyboardUpdate(input);
+		mouseUpdate(input);
+	}
+
+	/**
+	 * This checks for key events and determines if the key was pressed or
+	 * released. Every event is passed on, so a key that is pressed and released
+	 * between two updates still shows up in the event queue.
+	 */
+	private void keyboardUpdate(Input input)
+	{
+		while (Keyboard.next())
+		{
+			int key = Keyboard.getEventKey();
+			if (key < Keyboard.KEYBOARD_SIZE)
+			{
+				long time = keyboardClock.toNanoTime(Keyboard.getEventNanoseconds());
+				if (Keyboard.getEventKeyState())
+				{
+					input.keyDown(key, Keyboard.getEventCharacter(), time);
+				} else
+				{
+					input.keyUp(key, time);
+				}
+			}
+		}
+	}
+
+	/**
+	 * This drains the mouse events and passes on button presses and releases,
+	 * wheel turns and motion
+	 */
+	private void mouseUpdate(Input input)
+	{
+		while (Mouse.next())
+		{
+			long time = mouseClock.toNanoTime(Mouse.getEventNanoseconds());
+			int x = Window.toDesignX(Mouse.getEventX());
+			int y = Window.toDesignY(Mouse.getEventY());
+
+			int button = Mouse.getEventButton();
+			if (button >= 0)
+			{
+				if (Mouse.getEventButtonState())
+				{
+					input.buttonDown(button, x, y, time);
+				} else
+				{
+					input.buttonUp(button, x, y, time);
+				}
+			}
+			if (Mouse.getEventDWheel() != 0)
+			{
+				input.mouseWheel(x, y, Mouse.getEventDWheel(), time);
+			}
+			if (Mouse.getEventDX() != 0 || Mouse.getEventDY() != 0)
+			{
+				// LWJGL counts upwards from the bottom of the window
+				input.mouseMoved(x, y, Mouse.getEventDX(), -Mouse.getEventDY(), time);
+			}
+		}
+	}
+
+	/**
+	 * Gets the X-coordinate of the mouse in design coordinates, as of the
+	 * last poll or setMousePosition()
+	 * 
+	 * @return The X-coordinate of the mouse
+	 */
+	public int getMouseX()
+	{
+		return mouseX;
+	}
+
+	/**
+	 * Gets the Y-coordinate of the mouse in design coordinates, as of the
+	 * last poll or setMousePosition()
+	 * 
+	 * @return The Y-coordinate of the mouse
+	 */
+	public int getMouseY()
+	{
+		return mouseY;
+	}
+
+	/**
+	 * Sets the mouse's position along both the X-axis and Y-axis
+	 * 
+	 * @param posX
+	 *            The desired position along the X-axis
+	 * @param posY
+	 *            The desired position along the Y-axis
+	 */
+	public void setMousePosition(int posX, int posY)
+	{
+		Mouse.setCursorPosition(Window.toWindowX(posX), Window.toWindowY(posY));
+		mouseX = posX;
+		mouseY = posY;
+	}
+
+	/**
+	 * Moves the event times of one LWJGL device onto System.nanoTime(). An
+	 * event can not have happened after the poll that read it, so the offset
+	 * between the clocks is the smallest gap seen between a poll and an event
+	 * time; this keeps every event at or before its poll.
+	 */
+	private static class EventClock
+	{
+
+		// System.nanoTime() at the current poll
+		private long now;
+
+		private long offset;
+		private boolean synced = false;
+		private long lastTime = Long.MIN_VALUE;
+
+		/**
+		 * Converts an event time to System.nanoTime(). Times never go
+		 * backwards, even while the offset is still being narrowed down.
+		 */
+		private long toNanoTime(long eventTime)
+		{
+			long gap = now - eventTime;
+			if (!synced || gap < offset)
+			{
+				offset = gap;
+				synced = true;
+			}
+			lastTime = Math.max(eventTime + offset, lastTime);
+			return lastTime;
+		}
+
+	}
+
+}
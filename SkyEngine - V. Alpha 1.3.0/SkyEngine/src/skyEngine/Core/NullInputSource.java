@@ -0,0 +1,33 @@
+package skyEngine.Core;
+
+public class NullInputSource implements InputSource
+{
+
+	// Position set by setMousePosition()
+	private int mouseX = 0;
+	private int mouseY = 0;
+
+	/**
+	 * There are no devices to read, so no events are passed on
+	 */
+	public void poll(Input input)
+	{
+	}
+
+	public int getMouseX()
+	{
+		return mouseX;
+	}
+
+	public int getMouseY()
+	{
+		return mouseY;
+	}
+
+	public void setMousePosition(int posX, int posY)
+	{
+		mouseX = posX;
+		mouseY = posY;
+	}
+
+}
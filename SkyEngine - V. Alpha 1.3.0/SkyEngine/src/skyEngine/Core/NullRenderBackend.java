@@ -0,0 +1,98 @@
+package skyEngine.Core;
+
+import java.io.IOException;
+
+import org.newdawn.slick.opengl.ImageData;
+import org.newdawn.slick.opengl.Texture;
+
+import skyEngine.RenderingUtilities.BlendMode;
+
+public class NullRenderBackend implements RenderBackend
+{
+
+	private BlendMode blendMode = BlendMode.Alpha;
+
+	// Statistics
+	private long quadsDrawn = 0;
+	private long framesEnded = 0;
+
+	/**
+	 * Counts the quad without drawing it
+	 */
+	public void drawQuad(Texture tex, boolean interpolation, float x, float y, float width, float height, float u0,
+			float v0, float u1, float v1, float r, float g, float b, float a, float degrees)
+	{
+		quadsDrawn++;
+	}
+
+	public void setBlendMode(BlendMode blendMode)
+	{
+		this.blendMode = blendMode;
+	}
+
+	public BlendMode getBlendMode()
+	{
+		return blendMode;
+	}
+
+	public void flush()
+	{
+	}
+
+	public void clear()
+	{
+	}
+
+	public void setTextureClamping(boolean clamp)
+	{
+	}
+
+	public void endFrame()
+	{
+		framesEnded++;
+	}
+
+	/**
+	 * Decodes the image into a HeadlessTexture so that texture sizes are the
+	 * same as with OpenGL
+	 */
+	public Texture loadTexture(String path, String format) throws IOException
+	{
+		ImageData image = Renderer.decodeImage(path);
+		if (image == null)
+		{
+			throw new IOException("Unable to decode " + path);
+		}
+		return new HeadlessTexture(path, image);
+	}
+
+	public Texture createTexture(ImageData image) throws IOException
+	{
+		return new HeadlessTexture(null, image);
+	}
+
+	public void releaseTexture(Texture tex)
+	{
+		tex.release();
+	}
+
+	/**
+	 * Resets the quad and frame counters
+	 */
+	public void resetStatistics()
+	{
+		quadsDrawn = 0;
+		framesEnded = 0;
+	}
+
+	public long getQuadsDrawn()
+	{
+		return quadsDrawn;
+	}
+
+	public long getFramesEnded()
+	{
+		return framesEnded;
+	}
+
+}
@@ -0,0 +1,30 @@
+package skyEngine.Core;
+
+public class RealTimeClock implements GameClock
+{
+
+	private long start = System.nanoTime();
+
+	public void reset()
+	{
+		start = System.nanoTime();
+	}
+
+	/**
+	 * Real time moves on by itself
+	 */
+	public void advance(double step)
+	{
+	}
+
+	public double getTime()
+	{
+		return (System.nanoTime() - start) / 1000000000.0;
+	}
+
+	public double getSpeed()
+	{
+		return 1;
+	}
+
+}
@@ -0,0 +1,225 @@
+package skyEngine.Core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.IdentityHashMap;
+
+import org.newdawn.slick.opengl.ImageData;
+import org.newdawn.slick.opengl.Texture;
+
+import skyEngine.RenderingUtilities.BlendMode;
+
+public class RecordingRenderBackend implements RenderBackend
+{
+
+	// The backend that really draws (or a NullRenderBackend)
+	private RenderBackend delegate;
+
+	// Recorded commands
+	private ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+	private DataOutputStream log = new DataOutputStream(bytes);
+	private IdentityHashMap<Texture, Integer> textureIndices = new IdentityHashMap<Texture, Integer>();
+	private BlendMode blendMode = BlendMode.Alpha;
+
+	/**
+	 * Creates a RecordingRenderBackend that records commands without drawing
+	 * them. Textures are decoded into memory like with a NullRenderBackend.
+	 */
+	public RecordingRenderBackend()
+	{
+		this(new NullRenderBackend());
+	}
+
+	/**
+	 * Creates a RecordingRenderBackend that records every command and then
+	 * passes it on to another backend
+	 * 
+	 * @param delegate
+	 *            The backend that draws the commands
+	 */
+	public RecordingRenderBackend(RenderBackend delegate)
+	{
+		this.delegate = delegate;
+		clearRecording();
+	}
+
+	public void drawQuad(Texture tex, boolean interpolation, float x, float y, float width, float height, float u0,
+			float v0, float u1, float v1, float r, float g, float b, float a, float degrees)
+	{
+		delegate.drawQuad(tex, interpolation, x, y, width, height, u0, v0, u1, v1, r, g, b, a, degrees);
+
+		// Record what reaches the graphics card, so regions become their page
+		Texture recorded = tex;
+		if (tex instanceof TextureRegion)
+		{
+			TextureRegion region = (TextureRegion) tex;
+			recorded = region.getPage();
+			u0 = region.mapU(u0);
+			v0 = region.mapV(v0);
+			u1 = region.mapU(u1);
+			v1 = region.mapV(v1);
+		}
+
+		try
+		{
+			int texture = recorded == null ? -1 : getTextureIndex(recorded);
+			log.writeByte(RenderRecording.QUAD);
+			log.writeInt(texture);
+			log.writeBoolean(interpolation);
+			log.writeFloat(x);
+			log.writeFloat(y);
+			log.writeFloat(width);
+			log.writeFloat(height);
+			log.writeFloat(u0);
+			log.writeFloat(v0);
+			log.writeFloat(u1);
+			log.writeFloat(v1);
+			log.writeByte(toByte(r));
+			log.writeByte(toByte(g));
+			log.writeByte(toByte(b));
+			log.writeByte(toByte(a));
+			log.writeFloat(degrees);
+		} catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Gets the index of a texture in the recording, recording its name and
+	 * size the first time it is used
+	 */
+	private int getTextureIndex(Texture tex) throws IOException
+	{
+		Integer index = textureIndices.get(tex);
+		if (index == null)
+		{
+			index = textureIndices.size();
+			textureIndices.put(tex, index);
+			log.writeByte(RenderRecording.TEXTURE);
+			log.writeInt(index);
+			log.writeUTF(tex.getTextureRef() == null ? "" : tex.getTextureRef());
+			log.writeShort(tex.getTextureWidth());
+			log.writeShort(tex.getTextureHeight());
+		}
+		return index;
+	}
+
+	/**
+	 * Converts a color channel (0-1) to a byte (0-255)
+	 */
+	private static int toByte(float channel)
+	{
+		return Math.round(Math.min(Math.max(channel, 0), 1) * 255);
+	}
+
+	/**
+	 * Records a command without arguments
+	 */
+	private void record(int command)
+	{
+		try
+		{
+			log.writeByte(command);
+		} catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+	}
+
+	public void setBlendMode(BlendMode blendMode)
+	{
+		delegate.setBlendMode(blendMode);
+		if (blendMode == this.blendMode)
+		{
+			return;
+		}
+		this.blendMode = blendMode;
+		record(RenderRecording.BLEND_MODE);
+		record(blendMode.ordinal());
+	}
+
+	public BlendMode getBlendMode()
+	{
+		return blendMode;
+	}
+
+	public void flush()
+	{
+		delegate.flush();
+		record(RenderRecording.FLUSH);
+	}
+
+	public void clear()
+	{
+		delegate.clear();
+		record(RenderRecording.CLEAR);
+	}
+
+	public void setTextureClamping(boolean clamp)
+	{
+		delegate.setTextureClamping(clamp);
+		record(RenderRecording.TEXTURE_CLAMPING);
+		record(clamp ? 1 : 0);
+	}
+
+	public void endFrame()
+	{
+		delegate.endFrame();
+		record(RenderRecording.END_FRAME);
+	}
+
+	public Texture loadTexture(String path, String format) throws IOException
+	{
+		return delegate.loadTexture(path, format);
+	}
+
+	public Texture createTexture(ImageData image) throws IOException
+	{
+		return delegate.createTexture(image);
+	}
+
+	public void releaseTexture(Texture tex)
+	{
+		delegate.releaseTexture(tex);
+	}
+
+	/**
+	 * Gets everything that was recorded since the recording was last cleared
+	 * 
+	 * @return A copy of the recording
+	 */
+	public RenderRecording getRecording()
+	{
+		return new RenderRecording(bytes.toByteArray());
+	}
+
+	/**
+	 * Throws away the recording so far
+	 */
+	public void clearRecording()
+	{
+		bytes.reset();
+		textureIndices.clear();
+		// Start the new recording from the current blend mode
+		blendMode = BlendMode.Alpha;
+		setBlendMode(delegate.getBlendMode());
+	}
+
+	/**
+	 * Gets the size of the recording so far
+	 * 
+	 * @return The number of recorded bytes
+	 */
+	public int getRecordingSize()
+	{
+		return bytes.size();
+	}
+
+	public RenderBackend getDelegate()
+	{
+		return delegate;
+	}
+
+}
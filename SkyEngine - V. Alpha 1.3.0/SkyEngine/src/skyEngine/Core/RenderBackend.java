@@ -0,0 +1,115 @@
+package skyEngine.Core;
+
+import java.io.IOException;
+
+import org.newdawn.slick.opengl.ImageData;
+import org.newdawn.slick.opengl.Texture;
+
+import skyEngine.RenderingUtilities.BlendMode;
+
+public interface RenderBackend
+{
+
+	/**
+	 * Draws a quad
+	 * 
+	 * @param tex
+	 *            The texture of the quad or null for a colored quad
+	 * @param interpolation
+	 *            Should the renderer use interpolation when scaling the texture
+	 * @param x
+	 *            Upper-left X coordinate
+	 * @param y
+	 *            Upper-left Y coordinate
+	 * @param width
+	 *            Width of the quad
+	 * @param height
+	 *            Height of the quad
+	 * @param u0
+	 *            Left texture coordinate
+	 * @param v0
+	 *            Top texture coordinate
+	 * @param u1
+	 *            Right texture coordinate
+	 * @param v1
+	 *            Bottom texture coordinate
+	 * @param r
+	 *            Red (0-1)
+	 * @param g
+	 *            Green (0-1)
+	 * @param b
+	 *            Blue (0-1)
+	 * @param a
+	 *            Alpha (0-1)
+	 * @param degrees
+	 *            The number of degrees (clockwise) to rotate the quad
+	 */
+	public void drawQuad(Texture tex, boolean interpolation, float x, float y, float width, float height, float u0,
+			float v0, float u1, float v1, float r, float g, float b, float a, float degrees);
+
+	/**
+	 * Sets the blend mode used by quads that are drawn after this call
+	 * 
+	 * @param blendMode
+	 *            The desired blend mode
+	 */
+	public void setBlendMode(BlendMode blendMode);
+
+	public BlendMode getBlendMode();
+
+	/**
+	 * Finishes drawing every quad that is waiting in the backend
+	 */
+	public void flush();
+
+	/**
+	 * Clears the screen of color and depth data
+	 */
+	public void clear();
+
+	/**
+	 * Sets whether textures are clamped to the edge of the quad or repeated
+	 * 
+	 * @param clamp
+	 *            True to clamp, false to repeat
+	 */
+	public void setTextureClamping(boolean clamp);
+
+	/**
+	 * Called by the GameContainer after the last quad of a frame is flushed
+	 */
+	public void endFrame();
+
+	/**
+	 * Loads a texture from a resource
+	 * 
+	 * @param path
+	 *            The path to the texture resource
+	 * @param format
+	 *            The format of the image (such as PNG or GIF)
+	 * @return The loaded texture
+	 * @throws IOException
+	 *             If the image could not be read
+	 */
+	public Texture loadTexture(String path, String format) throws IOException;
+
+	/**
+	 * Creates a texture from an image that is already decoded
+	 * 
+	 * @param image
+	 *            The decoded image
+	 * @return The created texture
+	 * @throws IOException
+	 *             If the texture could not be created
+	 */
+	public Texture createTexture(ImageData image) throws IOException;
+
+	/**
+	 * Frees a texture that was created by this backend
+	 * 
+	 * @param tex
+	 *            The texture to free
+	 */
+	public void releaseTexture(Texture tex);
+
+}
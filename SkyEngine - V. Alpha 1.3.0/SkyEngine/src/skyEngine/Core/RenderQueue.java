@@ -0,0 +1,268 @@
+package skyEngine.Core;
+
+import java.util.Arrays;
+
+import org.newdawn.slick.opengl.Texture;
+
+import skyEngine.RenderingUtilities.BlendMode;
+
+public class RenderQueue
+{
+
+	// Command layout (x, y, width, height, u0, v0, u1, v1, r, g, b, a, degrees)
+	private static final int COMMAND_SIZE = 13;
+
+	// Sort key layout, from the most significant bit down:
+	// layer (16 bits), blend mode (4 bits), filtering (1 bit), texture (32 bits)
+	private static final int LAYER_SHIFT = 48;
+	private static final int BLEND_SHIFT = 44;
+	private static final int NEAREST_SHIFT = 43;
+	private static final int TEXTURE_SHIFT = 0;
+
+	public static final int MIN_LAYER = 0;
+	public static final int MAX_LAYER = 0xFFFF;
+
+	// Command storage
+	private float[] data;
+	private Texture[] textures;
+	private boolean[] interpolations;
+	private BlendMode[] blendModes;
+	private long[] keys;
+	private int count = 0;
+
+	// Radix sort buffers
+	private int[] order;
+	private int[] orderBuffer;
+	private long[] sortedKeys;
+	private long[] keyBuffer;
+	private int[] buckets = new int[256];
+
+	/**
+	 * Creates a RenderQueue with room for 1024 commands. The queue grows as
+	 * needed and keeps its size between frames.
+	 */
+	public RenderQueue()
+	{
+		this(1024);
+	}
+
+	/**
+	 * Creates a RenderQueue with room for a specified number of commands
+	 * 
+	 * @param capacity
+	 *            The number of commands the queue can hold before it grows
+	 */
+	public RenderQueue(int capacity)
+	{
+		allocate(Math.max(capacity, 16));
+	}
+
+	/**
+	 * Allocates the command and sort arrays
+	 */
+	private void allocate(int capacity)
+	{
+		data = data == null ? new float[capacity * COMMAND_SIZE] : Arrays.copyOf(data, capacity * COMMAND_SIZE);
+		textures = textures == null ? new Texture[capacity] : Arrays.copyOf(textures, capacity);
+		interpolations = interpolations == null ? new boolean[capacity] : Arrays.copyOf(interpolations, capacity);
+		blendModes = blendModes == null ? new BlendMode[capacity] : Arrays.copyOf(blendModes, capacity);
+		keys = keys == null ? new long[capacity] : Arrays.copyOf(keys, capacity);
+		order = new int[capacity];
+		orderBuffer = new int[capacity];
+		sortedKeys = new long[capacity];
+		keyBuffer = new long[capacity];
+	}
+
+	/**
+	 * Adds a quad to the queue
+	 * 
+	 * @param layer
+	 *            The layer of the quad (lower layers are drawn first)
+	 * @param blendMode
+	 *            The blend mode of the quad
+	 * @param tex
+	 *            The texture of the quad or null for a colored quad
+	 * @param interpolation
+	 *            Should the renderer use interpolation when scaling the texture
+	 * @param x
+	 *            Upper-left X coordinate
+	 * @param y
+	 *            Upper-left Y coordinate
+	 * @param width
+	 *            Width of the quad
+	 * @param height
+	 *            Height of the quad
+	 * @param u0
+	 *            Left texture coordinate
+	 * @param v0
+	 *            Top texture coordinate
+	 * @param u1
+	 *            Right texture coordinate
+	 * @param v1
+	 *            Bottom texture coordinate
+	 * @param r
+	 *            Red (0-1)
+	 * @param g
+	 *            Green (0-1)
+	 * @param b
+	 *            Blue (0-1)
+	 * @param a
+	 *            Alpha (0-1)
+	 * @param degrees
+	 *            The number of degrees (clockwise) to rotate the quad
+	 */
+	public void add(int layer, BlendMode blendMode, Texture tex, boolean interpolation, float x, float y, float width,
+			float height, float u0, float v0, float u1, float v1, float r, float g, float b, float a, float degrees)
+	{
+		if (count == textures.length)
+		{
+			allocate(count * 2);
+		}
+
+		int i = count * COMMAND_SIZE;
+		data[i] = x;
+		data[i + 1] = y;
+		data[i + 2] = width;
+		data[i + 3] = height;
+		data[i + 4] = u0;
+		data[i + 5] = v0;
+		data[i + 6] = u1;
+		data[i + 7] = v1;
+		data[i + 8] = r;
+		data[i + 9] = g;
+		data[i + 10] = b;
+		data[i + 11] = a;
+		data[i + 12] = degrees;
+		textures[count] = tex;
+		interpolations[count] = interpolation;
+		blendModes[count] = blendMode;
+		keys[count] = createKey(layer, blendMode, tex, interpolation);
+		count++;
+	}
+
+	/**
+	 * Packs the state of a command into a key that sorts by layer first and
+	 * then groups commands that can share a batch
+	 */
+	private static long createKey(int layer, BlendMode blendMode, Texture tex, boolean interpolation)
+	{
+		long key = (long) (Math.min(Math.max(layer, MIN_LAYER), MAX_LAYER)) << LAYER_SHIFT;
+		key |= (long) (blendMode.ordinal() & 0xF) << BLEND_SHIFT;
+		if (tex != null)
+		{
+			if (!interpolation)
+			{
+				key |= 1L << NEAREST_SHIFT;
+			}
+			key |= ((long) tex.getTextureID() & 0xFFFFFFFFL) << TEXTURE_SHIFT;
+		}
+		return key;
+	}
+
+	/**
+	 * Sorts the queued commands, sends them to a RenderBackend and empties the
+	 * queue. Commands with equal keys keep the order they were added in.
+	 * 
+	 * @param batch
+	 *            The backend that draws the commands
+	 */
+	public void submit(RenderBackend batch)
+	{
+		if (count == 0)
+		{
+			return;
+		}
+		sort();
+
+		BlendMode batchBlendMode = batch.getBlendMode();
+		for (int n = 0; n < count; n++)
+		{
+			int command = order[n];
+			int i = command * COMMAND_SIZE;
+			batch.setBlendMode(blendModes[command]);
+			batch.drawQuad(textures[command], interpolations[command], data[i], data[i + 1], data[i + 2], data[i + 3],
+					data[i + 4], data[i + 5], data[i + 6], data[i + 7], data[i + 8], data[i + 9], data[i + 10],
+					data[i + 11], data[i + 12]);
+		}
+		batch.setBlendMode(batchBlendMode);
+
+		clear();
+	}
+
+	/**
+	 * Sorts the command order by key with a least significant digit radix sort
+	 * (one pass per byte). Passes where every key has the same byte are
+	 * skipped, so a frame that only uses a few layers and textures usually
+	 * needs two or three passes.
+	 */
+	private void sort()
+	{
+		int[] sourceOrder = order;
+		int[] targetOrder = orderBuffer;
+		long[] sourceKeys = sortedKeys;
+		long[] targetKeys = keyBuffer;
+
+		for (int i = 0; i < count; i++)
+		{
+			sourceOrder[i] = i;
+			sourceKeys[i] = keys[i];
+		}
+
+		for (int shift = 0; shift < 64; shift += 8)
+		{
+			Arrays.fill(buckets, 0);
+			for (int i = 0; i < count; i++)
+			{
+				buckets[(int) (sourceKeys[i] >>> shift) & 0xFF]++;
+			}
+			if (buckets[(int) (sourceKeys[0] >>> shift) & 0xFF] == count)
+			{
+				continue;
+			}
+
+			int offset = 0;
+			for (int b = 0; b < 256; b++)
+			{
+				int bucketSize = buckets[b];
+				buckets[b] = offset;
+				offset += bucketSize;
+			}
+
+			for (int i = 0; i < count; i++)
+			{
+				int b = (int) (sourceKeys[i] >>> shift) & 0xFF;
+				int destination = buckets[b]++;
+				targetOrder[destination] = sourceOrder[i];
+				targetKeys[destination] = sourceKeys[i];
+			}
+
+			int[] swapOrder = sourceOrder;
+			sourceOrder = targetOrder;
+			targetOrder = swapOrder;
+			long[] swapKeys = sourceKeys;
+			sourceKeys = targetKeys;
+			targetKeys = swapKeys;
+		}
+
+		order = sourceOrder;
+		orderBuffer = targetOrder;
+		sortedKeys = sourceKeys;
+		keyBuffer = targetKeys;
+	}
+
+	/**
+	 * Removes every command from the queue without drawing them
+	 */
+	public void clear()
+	{
+		// Drop texture references so released textures can be collected
+		Arrays.fill(textures, 0, count, null);
+		count = 0;
+	}
+
+	public int getCount()
+	{
+		return count;
+	}
+
+}
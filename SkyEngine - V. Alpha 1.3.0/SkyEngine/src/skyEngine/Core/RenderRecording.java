@@ -0,0 +1,495 @@
+package skyEngine.Core;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import skyEngine.RenderingUtilities.BlendMode;
+
+public class RenderRecording
+{
+
+	// Commands
+	static final int QUAD = 1;
+	static final int TEXTURE = 2;
+	static final int BLEND_MODE = 3;
+	static final int FLUSH = 4;
+	static final int CLEAR = 5;
+	static final int TEXTURE_CLAMPING = 6;
+	static final int END_FRAME = 7;
+
+	// Quad layout (x, y, width, height, u0, v0, u1, v1, degrees)
+	private static final int QUAD_FLOATS = 9;
+
+	private byte[] data;
+
+	// Decoded commands
+	private ArrayList<String> textureNames = new ArrayList<String>();
+	private int quadCount = 0;
+	private int[] quadTextures = new int[256];
+	private boolean[] quadInterpolations = new boolean[256];
+	private boolean[] quadClampings = new boolean[256];
+	private int[] quadColors = new int[256];
+	private float[] quadData = new float[256 * QUAD_FLOATS];
+	private int[] quadBlendModes = new int[256];
+	private int[] quadFrames = new int[256];
+
+	// Counters of every frame, as a SpriteBatch with a GLStateCache would
+	// produce them
+	private int frameCount = 0;
+	private int[] frameQuads = new int[16];
+	private int[] frameDrawCalls = new int[16];
+	private int[] frameTextureBinds = new int[16];
+	private int[] frameBlendChanges = new int[16];
+	private int[] frameClears = new int[16];
+
+	// Batch state while decoding
+	private int batchQuads = 0;
+	private int batchTexture = -1;
+	private boolean batchInterpolation = true;
+	private int batchBlendMode = BlendMode.Alpha.ordinal();
+	private boolean textureClamping = false;
+	private int boundTexture = -1;
+	private int appliedBlendMode = -1;
+
+	/**
+	 * Decodes a recording made by a RecordingRenderBackend
+	 * 
+	 * @param data
+	 *            The recorded bytes
+	 */
+	public RenderRecording(byte[] data)
+	{
+		this.data = data;
+		try
+		{
+			decode();
+		} catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Reads a recording from a file
+	 * 
+	 * @param path
+	 *            The file written by write()
+	 * @return The recording, or null if it could not be read
+	 */
+	public static RenderRecording read(String path)
+	{
+		InputStream input = null;
+		try
+		{
+			input = new FileInputStream(path);
+			DataInputStream dataInput = new DataInputStream(input);
+			byte[] data = new byte[dataInput.readInt()];
+			dataInput.readFully(data);
+			return new RenderRecording(data);
+		} catch (IOException e)
+		{
+			e.printStackTrace();
+			return null;
+		} finally
+		{
+			close(input);
+		}
+	}
+
+	/**
+	 * Writes the recording to a file
+	 * 
+	 * @param path
+	 *            The file to write
+	 */
+	public void write(String path)
+	{
+		DataOutputStream output = null;
+		try
+		{
+			output = new DataOutputStream(new FileOutputStream(path));
+			output.writeInt(data.length);
+			output.write(data);
+		} catch (IOException e)
+		{
+			e.printStackTrace();
+		} finally
+		{
+			close(output);
+		}
+	}
+
+	/**
+	 * Closes a stream and reports errors
+	 */
+	private static void close(Closeable stream)
+	{
+		if (stream == null)
+		{
+			return;
+		}
+		try
+		{
+			stream.close();
+		} catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Decodes every command and counts the draw calls and state changes they
+	 * would cause
+	 */
+	private void decode() throws IOException
+	{
+		DataInputStream input = new DataInputStream(new ByteArrayInputStream(data));
+		startFrame();
+		while (true)
+		{
+			int command;
+			try
+			{
+				command = input.readUnsignedByte();
+			} catch (EOFException e)
+			{
+				break;
+			}
+
+			switch (command)
+			{
+			case QUAD:
+				decodeQuad(input);
+				break;
+			case TEXTURE:
+				int index = input.readInt();
+				String name = input.readUTF();
+				input.readShort();
+				input.readShort();
+				while (textureNames.size() <= index)
+				{
+					textureNames.add(null);
+				}
+				textureNames.set(index, name);
+				break;
+			case BLEND_MODE:
+				int blendMode = input.readUnsignedByte();
+				if (blendMode != batchBlendMode)
+				{
+					endBatch();
+					batchBlendMode = blendMode;
+				}
+				break;
+			case FLUSH:
+				endBatch();
+				break;
+			case CLEAR:
+				endBatch();
+				frameClears[frameCount]++;
+				break;
+			case TEXTURE_CLAMPING:
+				endBatch();
+				textureClamping = input.readUnsignedByte() != 0;
+				break;
+			case END_FRAME:
+				endBatch();
+				frameCount++;
+				startFrame();
+				break;
+			default:
+				throw new IOException("Unknown render command " + command);
+			}
+		}
+		endBatch();
+	}
+
+	/**
+	 * Decodes a single quad
+	 */
+	private void decodeQuad(DataInputStream input) throws IOException
+	{
+		if (quadCount == quadTextures.length)
+		{
+			int capacity = quadCount * 2;
+			quadTextures = Arrays.copyOf(quadTextures, capacity);
+			quadInterpolations = Arrays.copyOf(quadInterpolations, capacity);
+			quadClampings = Arrays.copyOf(quadClampings, capacity);
+			quadColors = Arrays.copyOf(quadColors, capacity);
+			quadData = Arrays.copyOf(quadData, capacity * QUAD_FLOATS);
+			quadBlendModes = Arrays.copyOf(quadBlendModes, capacity);
+			quadFrames = Arrays.copyOf(quadFrames, capacity);
+		}
+
+		int texture = input.readInt();
+		boolean interpolation = input.readBoolean();
+		int i = quadCount * QUAD_FLOATS;
+		for (int n = 0; n < 8; n++)
+		{
+			quadData[i + n] = input.readFloat();
+		}
+		quadColors[quadCount] = input.readInt();
+		quadData[i + 8] = input.readFloat();
+		quadTextures[quadCount] = texture;
+		quadInterpolations[quadCount] = interpolation;
+		quadClampings[quadCount] = textureClamping;
+		quadBlendModes[quadCount] = batchBlendMode;
+		quadFrames[quadCount] = frameCount;
+		quadCount++;
+
+		if (batchQuads > 0 && (texture != batchTexture || (texture != -1 && interpolation != batchInterpolation)))
+		{
+			endBatch();
+		}
+		batchTexture = texture;
+		batchInterpolation = interpolation;
+		batchQuads++;
+		frameQuads[frameCount]++;
+	}
+
+	/**
+	 * Counts the draw call of the current batch and the state it changes
+	 */
+	private void endBatch()
+	{
+		if (batchQuads == 0)
+		{
+			return;
+		}
+		frameDrawCalls[frameCount]++;
+		if (batchBlendMode != appliedBlendMode)
+		{
+			appliedBlendMode = batchBlendMode;
+			frameBlendChanges[frameCount]++;
+		}
+		if (batchTexture != -1 && batchTexture != boundTexture)
+		{
+			boundTexture = batchTexture;
+			frameTextureBinds[frameCount]++;
+		}
+		batchQuads = 0;
+	}
+
+	/**
+	 * Makes room for the counters of the next frame
+	 */
+	private void startFrame()
+	{
+		if (frameCount == frameQuads.length)
+		{
+			int capacity = frameCount * 2;
+			frameQuads = Arrays.copyOf(frameQuads, capacity);
+			frameDrawCalls = Arrays.copyOf(frameDrawCalls, capacity);
+			frameTextureBinds = Arrays.copyOf(frameTextureBinds, capacity);
+			frameBlendChanges = Arrays.copyOf(frameBlendChanges, capacity);
+			frameClears = Arrays.copyOf(frameClears, capacity);
+		}
+	}
+
+	/**
+	 * Compares this recording with another one, such as a recording of a
+	 * golden frame. Positions and texture coordinates may differ by a
+	 * tolerance; everything else, including the texture clamping of every
+	 * quad and the clears of every frame, must match exactly. Textures are
+	 * compared by name.
+	 * 
+	 * @param other
+	 *            The recording to compare with
+	 * @param tolerance
+	 *            The largest allowed difference of a coordinate
+	 * @return A description of the first difference, or null if the
+	 *         recordings match
+	 */
+	public String findDifference(RenderRecording other, float tolerance)
+	{
+		if (frameCount != other.frameCount)
+		{
+			return "Frame count differs: " + frameCount + " != " + other.frameCount;
+		}
+		for (int f = 0; f <= frameCount; f++)
+		{
+			if (frameClears[f] != other.frameClears[f])
+			{
+				return "Frame " + f + " clear count differs: " + frameClears[f] + " != " + other.frameClears[f];
+			}
+		}
+		for (int q = 0; q < Math.min(quadCount, other.quadCount); q++)
+		{
+			String quad = "Quad " + q + " (frame " + quadFrames[q] + ")";
+			if (quadFrames[q] != other.quadFrames[q])
+			{
+				return quad + " is in frame " + other.quadFrames[q] + " of the other recording";
+			}
+			String texture = getTextureName(quadTextures[q]);
+			String otherTexture = other.getTextureName(other.quadTextures[q]);
+			if (texture == null ? otherTexture != null : !texture.equals(otherTexture))
+			{
+				return quad + " texture differs: " + texture + " != " + otherTexture;
+			}
+			if (quadInterpolations[q] != other.quadInterpolations[q])
+			{
+				return quad + " interpolation differs";
+			}
+			if (quadClampings[q] != other.quadClampings[q])
+			{
+				return quad + " texture clamping differs";
+			}
+			if (quadBlendModes[q] != other.quadBlendModes[q])
+			{
+				return quad + " blend mode differs: " + BlendMode.values()[quadBlendModes[q]] + " != "
+						+ BlendMode.values()[other.quadBlendModes[q]];
+			}
+			if (quadColors[q] != other.quadColors[q])
+			{
+				return quad + " color differs: " + String.format("%08X != %08X", quadColors[q], other.quadColors[q]);
+			}
+			for (int n = 0; n < QUAD_FLOATS; n++)
+			{
+				float value = quadData[q * QUAD_FLOATS + n];
+				float otherValue = other.quadData[q * QUAD_FLOATS + n];
+				if (Math.abs(value - otherValue) > tolerance)
+				{
+					return quad + " value " + n + " differs: " + value + " != " + otherValue;
+				}
+			}
+		}
+		if (quadCount != other.quadCount)
+		{
+			return "Quad count differs: " + quadCount + " != " + other.quadCount;
+		}
+		return null;
+	}
+
+	/**
+	 * Creates a readable report of the draw calls and state changes per frame
+	 * 
+	 * @return The report
+	 */
+	public String getReport()
+	{
+		StringBuilder report = new StringBuilder();
+		report.append(String.format("%-10s %10s %10s %10s %10s%n", "", "quads", "draws", "binds", "blends"));
+		report.append(String.format("%-10s %10d %10d %10d %10d%n", "total", getTotalQuads(), getTotalDrawCalls(),
+				getTotalTextureBinds(), getTotalBlendChanges()));
+		if (frameCount > 0)
+		{
+			report.append(String.format("%-10s %10.1f %10.1f %10.1f %10.1f%n", "per frame",
+					(double) getTotalQuads() / frameCount, (double) getTotalDrawCalls() / frameCount,
+					(double) getTotalTextureBinds() / frameCount, (double) getTotalBlendChanges() / frameCount));
+			report.append(String.format("%-10s %10d %10d %10d %10d%n", "max", max(frameQuads), max(frameDrawCalls),
+					max(frameTextureBinds), max(frameBlendChanges)));
+		}
+		report.append("frames: " + frameCount + ", textures: " + textureNames.size() + ", bytes: " + data.length
+				+ String.format("%n"));
+		return report.toString();
+	}
+
+	/**
+	 * Gets the largest counter of all complete frames
+	 */
+	private int max(int[] counters)
+	{
+		int max = 0;
+		for (int f = 0; f < frameCount; f++)
+		{
+			max = Math.max(max, counters[f]);
+		}
+		return max;
+	}
+
+	/**
+	 * Adds up a counter over every frame, including an unfinished last frame
+	 */
+	private long total(int[] counters)
+	{
+		long total = 0;
+		for (int f = 0; f <= frameCount; f++)
+		{
+			total += counters[f];
+		}
+		return total;
+	}
+
+	public String getTextureName(int texture)
+	{
+		if (texture < 0 || texture >= textureNames.size())
+		{
+			return null;
+		}
+		return textureNames.get(texture);
+	}
+
+	public int getFrameCount()
+	{
+		return frameCount;
+	}
+
+	public int getQuadCount()
+	{
+		return quadCount;
+	}
+
+	public int getTextureCount()
+	{
+		return textureNames.size();
+	}
+
+	public int getQuads(int frame)
+	{
+		return frameQuads[frame];
+	}
+
+	public int getDrawCalls(int frame)
+	{
+		return frameDrawCalls[frame];
+	}
+
+	public int getTextureBinds(int frame)
+	{
+		return frameTextureBinds[frame];
+	}
+
+	public int getBlendChanges(int frame)
+	{
+		return frameBlendChanges[frame];
+	}
+
+	public int getClears(int frame)
+	{
+		return frameClears[frame];
+	}
+
+	public long getTotalQuads()
+	{
+		return total(frameQuads);
+	}
+
+	public long getTotalDrawCalls()
+	{
+		return total(frameDrawCalls);
+	}
+
+	public long getTotalTextureBinds()
+	{
+		return total(frameTextureBinds);
+	}
+
+	public long getTotalBlendChanges()
+	{
+		return total(frameBlendChanges);
+	}
+
+	public byte[] getData()
+	{
+		return data;
+	}
+
+}
@@ -1,49 +1,55 @@
 package skyEngine.Core;
 
-import static org.lwjgl.opengl.GL11.GL_BLEND;
-import static org.lwjgl.opengl.GL11.GL_COLOR_BUFFER_BIT;
-import static org.lwjgl.opengl.GL11.GL_DEPTH_BUFFER_BIT;
-import static org.lwjgl.opengl.GL11.GL_LINEAR;
-import static org.lwjgl.opengl.GL11.GL_NEAREST;
-import static org.lwjgl.opengl.GL11.GL_ONE_MINUS_SRC_ALPHA;
-import static org.lwjgl.opengl.GL11.GL_QUADS;
-import static org.lwjgl.opengl.GL11.GL_REPEAT;
-import static org.lwjgl.opengl.GL11.GL_SRC_ALPHA;
-import static org.lwjgl.opengl.GL11.GL_TEXTURE_2D;
-import static org.lwjgl.opengl.GL11.GL_TEXTURE_MAG_FILTER;
-import static org.lwjgl.opengl.GL11.GL_TEXTURE_MIN_FILTER;
-import static org.lwjgl.opengl.GL11.GL_TEXTURE_WRAP_S;
-import static org.lwjgl.opengl.GL11.GL_TEXTURE_WRAP_T;
-import static org.lwjgl.opengl.GL11.glBegin;
-import static org.lwjgl.opengl.GL11.glBlendFunc;
-import static org.lwjgl.opengl.GL11.glClear;
-import static org.lwjgl.opengl.GL11.glColor4f;
-import static org.lwjgl.opengl.GL11.glDisable;
-import static org.lwjgl.opengl.GL11.glEnable;
-import static org.lwjgl.opengl.GL11.glEnd;
-import static org.lwjgl.opengl.GL11.glPopMatrix;
-import static org.lwjgl.opengl.GL11.glPushMatrix;
-import static org.lwjgl.opengl.GL11.glRotatef;
-import static org.lwjgl.opengl.GL11.glTexCoord2f;
-import static org.lwjgl.opengl.GL11.glTexParameteri;
-import static org.lwjgl.opengl.GL11.glTranslatef;
-import static org.lwjgl.opengl.GL11.glVertex2f;
-import static org.lwjgl.opengl.GL12.GL_CLAMP_TO_EDGE;
-
-import org.newdawn.slick.Color;
+import java.io.BufferedInputStream;
+
+import org.newdawn.slick.opengl.ImageData;
+import org.newdawn.slick.opengl.ImageDataFactory;
+import org.newdawn.slick.opengl.LoadableImageData;
 import org.newdawn.slick.opengl.Texture;
-import org.newdawn.slick.opengl.TextureLoader;
 import org.newdawn.slick.util.ResourceLoader;
 
+import skyEngine.RenderingUtilities.BlendMode;
+
 public class Renderer
 {
 
+	private RenderBackend backend;
+	private RenderQueue queue = new RenderQueue();
+	private TextureCache textureCache;
+
+	// Deferred rendering state
+	private boolean deferred = false;
+	private int layer = 0;
+	private BlendMode blendMode = BlendMode.Alpha;
+
+	/**
+	 * Creates a Renderer that draws with OpenGL through a SpriteBatch
+	 */
+	public Renderer()
+	{
+		this(new SpriteBatch());
+	}
+
+	/**
+	 * Creates a Renderer that draws through a specified backend, such as a
+	 * NullRenderBackend when the game runs without a window
+	 * 
+	 * @param backend
+	 *            The backend that draws the quads and creates textures
+	 */
+	public Renderer(RenderBackend backend)
+	{
+		this.backend = backend;
+		textureCache = new TextureCache(backend);
+	}
+
 	/**
 	 * Clears the screen of color and depth data
 	 */
 	public void clearScreen()
 	{
-		glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
+		flush();
+		backend.clear();
 	}
 
 	/**
@@ -68,18 +74,7 @@ public class Renderer
 	 */
 	public void drawColorQuad(float x, float y, float width, float height, float r, float g, float b, float a)
 	{
-		glDisable(GL_TEXTURE_2D);
-		glEnable(GL_BLEND);
-		glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
-		glColor4f(r / 255, g / 255, b / 255, a / 255);
-		glBegin(GL_QUADS);
-		glColor4f(r / 255, g / 255, b / 255, a / 255);
-		glVertex2f(x, y);
-		glVertex2f(x + width, y);
-		glVertex2f(x + width, y + height);
-		glVertex2f(x, y + height);
-		glEnd();
-		glDisable(GL_BLEND);
+		drawColor(x, y, width, height, r, g, b, a, 0);
 	}
 
 	/**
@@ -107,26 +102,14 @@ public class Renderer
 	public void drawColorQuad(float x, float y, float width, float height, float r, float g, float b, float a,
 			float degrees)
 	{
-		glDisable(GL_TEXTURE_2D);
-		glEnable(GL_BLEND);
-		glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
-		glPushMatrix();
-		glTranslatef(x + width / 2, y + height / 2, 0f);
-		glRotatef(degrees, 0, 0, 1f);
-		glTranslatef(-(x + width / 2), -(y + height / 2), 0f);
-		glBegin(GL_QUADS);
-		glColor4f(r / 255, g / 255, b / 255, a / 255);
-		glVertex2f(x, y);
-		glVertex2f(x + width, y);
-		glVertex2f(x + width, y + height);
-		glVertex2f(x, y + height);
-		glEnd();
-		glPopMatrix();
-		glDisable(GL_BLEND);
+		drawColor(x, y, width, height, r, g, b, a, degrees);
 	}
 
 	/**
-	 * This method loads textures into a game environment
+	 * This method loads textures into a game environment. Textures are cached
+	 * by path, so loading the same path twice returns the same texture. Call
+	 * releaseTexture() once for every call to this method when the texture is
+	 * no longer needed.
 	 * 
 	 * @param path
 	 *            The path to the texture resource
@@ -135,10 +118,37 @@ public class Renderer
 	 * @return The texture that is given in the path
 	 */
 	public Texture loadTexture(String path, String format)
+	{
+		return textureCache.acquire(path, format);
+	}
+
+	/**
+	 * Gives back a texture that was returned by loadTexture(). When nothing is
+	 * using a texture anymore, the texture cache may free it.
+	 * 
+	 * @param tex
+	 *            The texture to release
+	 */
+	public void releaseTexture(Texture tex)
+	{
+		textureCache.release(tex);
+	}
+
+	/**
+	 * Decodes an image into memory without creating an OpenGL texture. Unlike
+	 * loadTexture(), this can be called from any thread.
+	 * 
+	 * @param path
+	 *            The path to the image resource
+	 * @return The decoded image or null if it could not be loaded
+	 */
+	public static ImageData decodeImage(String path)
 	{
 		try
 		{
-			return TextureLoader.getTexture(format, ResourceLoader.getResourceAsStream(path));
+			LoadableImageData data = ImageDataFactory.getImageDataFor(path);
+			data.loadImage(new BufferedInputStream(ResourceLoader.getResourceAsStream(path)), false, null);
+			return data;
 		} catch (Exception e)
 		{
 			e.printStackTrace();
@@ -159,23 +169,7 @@ public class Renderer
 	 */
 	public void drawTextureQuad(float x, float y, Texture tex)
 	{
-		glEnable(GL_BLEND);
-		glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
-		glEnable(GL_TEXTURE_2D);
-		Color.white.bind();
-		tex.bind();
-		glBegin(GL_QUADS);
-		glTexCoord2f(0, 0);
-		glVertex2f(x, y);
-		glTexCoord2f(1, 0);
-		glVertex2f(x + tex.getTextureWidth(), y);
-		glTexCoord2f(1, 1);
-		glVertex2f(x + tex.getTextureWidth(), y + tex.getTextureHeight());
-		glTexCoord2f(0, 1);
-		glVertex2f(x, y + tex.getTextureHeight());
-		glEnd();
-		glDisable(GL_TEXTURE_2D);
-		glDisable(GL_BLEND);
+		drawTexture(tex, true, x, y, tex.getTextureWidth(), tex.getTextureHeight(), 0);
 	}
 
 	/**
@@ -193,28 +187,7 @@ public class Renderer
 	 */
 	public void drawTextureQuad(float x, float y, Texture tex, float degrees)
 	{
-		glEnable(GL_BLEND);
-		glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
-		glEnable(GL_TEXTURE_2D);
-		Color.white.bind();
-		tex.bind();
-		glPushMatrix();
-		glTranslatef(x + tex.getTextureWidth() / 2, y + tex.getTextureHeight() / 2, 0f);
-		glRotatef(degrees, 0, 0, 1f);
-		glTranslatef(-(x + tex.getTextureWidth() / 2), -(y + tex.getTextureHeight() / 2), 0f);
-		glBegin(GL_QUADS);
-		glTexCoord2f(0, 0);
-		glVertex2f(x, y);
-		glTexCoord2f(1, 0);
-		glVertex2f(x + tex.getTextureWidth(), y);
-		glTexCoord2f(1, 1);
-		glVertex2f(x + tex.getTextureWidth(), y + tex.getTextureHeight());
-		glTexCoord2f(0, 1);
-		glVertex2f(x, y + tex.getTextureHeight());
-		glEnd();
-		glPopMatrix();
-		glDisable(GL_TEXTURE_2D);
-		glDisable(GL_BLEND);
+		drawTexture(tex, true, x, y, tex.getTextureWidth(), tex.getTextureHeight(), degrees);
 	}
 
 	/**
@@ -236,30 +209,7 @@ public class Renderer
 	 */
 	public void drawTextureQuad(float x, float y, float width, float height, Texture tex, boolean interpolation)
 	{
-		glEnable(GL_BLEND);
-		glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
-		glEnable(GL_TEXTURE_2D);
-		Color.white.bind();
-		tex.bind();
-		if (!interpolation)
-		{
-			glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
-			glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
-		}
-		glBegin(GL_QUADS);
-		glTexCoord2f(0, 0);
-		glVertex2f(x, y);
-		glTexCoord2f(1, 0);
-		glVertex2f(x + width, y);
-		glTexCoord2f(1, 1);
-		glVertex2f(x + width, y + height);
-		glTexCoord2f(0, 1);
-		glVertex2f(x, y + height);
-		glEnd();
-		glDisable(GL_TEXTURE_2D);
-		glDisable(GL_BLEND);
-		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
-		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR);
+		drawTexture(tex, interpolation, x, y, width, height, 0);
 	}
 
 	/**
@@ -284,35 +234,7 @@ public class Renderer
 	public void drawTextureQuad(float x, float y, float width, float height, Texture tex, boolean interpolation,
 			float degrees)
 	{
-		glEnable(GL_BLEND);
-		glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
-		glEnable(GL_TEXTURE_2D);
-		Color.white.bind();
-		tex.bind();
-		if (!interpolation)
-		{
-			glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
-			glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
-		}
-		glPushMatrix();
-		glTranslatef(x + width / 2, y + height / 2, 0f);
-		glRotatef(degrees, 0, 0, 1f);
-		glTranslatef(-(x + width / 2), -(y + height / 2), 0f);
-		glBegin(GL_QUADS);
-		glTexCoord2f(0, 0);
-		glVertex2f(x, y);
-		glTexCoord2f(1, 0);
-		glVertex2f(x + width, y);
-		glTexCoord2f(1, 1);
-		glVertex2f(x + width, y + height);
-		glTexCoord2f(0, 1);
-		glVertex2f(x, y + height);
-		glEnd();
-		glPopMatrix();
-		glDisable(GL_TEXTURE_2D);
-		glDisable(GL_BLEND);
-		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
-		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR);
+		drawTexture(tex, interpolation, x, y, width, height, degrees);
 	}
 
 	/**
@@ -337,30 +259,7 @@ public class Renderer
 	 */
 	public void drawScaledTextureQuad(float x, float y, float scaleX, float scaleY, Texture tex, boolean interpolation)
 	{
-		glEnable(GL_BLEND);
-		glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
-		glEnable(GL_TEXTURE_2D);
-		Color.white.bind();
-		tex.bind();
-		if (!interpolation)
-		{
-			glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
-			glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
-		}
-		glBegin(GL_QUADS);
-		glTexCoord2f(0, 0);
-		glVertex2f(x, y);
-		glTexCoord2f(1, 0);
-		glVertex2f(x + tex.getTextureWidth() * scaleX, y);
-		glTexCoord2f(1, 1);
-		glVertex2f(x + tex.getTextureWidth() * scaleX, y + tex.getTextureHeight() * scaleY);
-		glTexCoord2f(0, 1);
-		glVertex2f(x, y + tex.getTextureHeight() * scaleY);
-		glEnd();
-		glDisable(GL_TEXTURE_2D);
-		glDisable(GL_BLEND);
-		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
-		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR);
+		drawTexture(tex, interpolation, x, y, tex.getTextureWidth() * scaleX, tex.getTextureHeight() * scaleY, 0);
 	}
 
 	/**
@@ -386,35 +285,7 @@ public class Renderer
 	public void drawScaledTextureQuad(float x, float y, float scaleX, float scaleY, Texture tex, boolean interpolation,
 			float degrees)
 	{
-		glEnable(GL_BLEND);
-		glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
-		glEnable(GL_TEXTURE_2D);
-		Color.white.bind();
-		tex.bind();
-		if (!interpolation)
-		{
-			glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
-			glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
-		}
-		glPushMatrix();
-		glTranslatef(x + tex.getTextureWidth() * scaleX / 2, y + tex.getTextureHeight() * scaleY / 2, 0f);
-		glRotatef(degrees, 0, 0, 1f);
-		glTranslatef(-(x + tex.getTextureWidth() * scaleX / 2), -(y + tex.getTextureHeight() * scaleY / 2), 0f);
-		glBegin(GL_QUADS);
-		glTexCoord2f(0, 0);
-		glVertex2f(x, y);
-		glTexCoord2f(1, 0);
-		glVertex2f(x + tex.getTextureWidth() * scaleX, y);
-		glTexCoord2f(1, 1);
-		glVertex2f(x + tex.getTextureWidth() * scaleX, y + tex.getTextureHeight() * scaleY);
-		glTexCoord2f(0, 1);
-		glVertex2f(x, y + tex.getTextureHeight() * scaleY);
-		glEnd();
-		glPopMatrix();
-		glDisable(GL_TEXTURE_2D);
-		glDisable(GL_BLEND);
-		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
-		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR);
+		drawTexture(tex, interpolation, x, y, tex.getTextureWidth() * scaleX, tex.getTextureHeight() * scaleY, degrees);
 	}
 
 	/**
@@ -423,8 +294,8 @@ public class Renderer
 	 */
 	public void clampTextures()
 	{
-		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_S, GL_CLAMP_TO_EDGE);
-		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_T, GL_CLAMP_TO_EDGE);
+		flush();
+		backend.setTextureClamping(true);
 	}
 
 	/**
@@ -433,8 +304,137 @@ public class Renderer
 	 */
 	public void unclampTextures()
 	{
-		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_S, GL_REPEAT);
-		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_T, GL_REPEAT);
+		flush();
+		backend.setTextureClamping(false);
+	}
+
+	/**
+	 * Sends a colored quad to the render queue or the backend
+	 */
+	private void drawColor(float x, float y, float width, float height, float r, float g, float b, float a,
+			float degrees)
+	{
+		if (deferred)
+		{
+			queue.add(layer, blendMode, null, true, x, y, width, height, 0, 0, 0, 0, r / 255, g / 255, b / 255, a / 255,
+					degrees);
+		} else
+		{
+			backend.drawQuad(null, true, x, y, width, height, 0, 0, 0, 0, r / 255, g / 255, b / 255, a / 255, degrees);
+		}
+	}
+
+	/**
+	 * Sends a textured quad to the render queue or the backend
+	 */
+	private void drawTexture(Texture tex, boolean interpolation, float x, float y, float width, float height,
+			float degrees)
+	{
+		if (deferred)
+		{
+			queue.add(layer, blendMode, tex, interpolation, x, y, width, height, 0, 0, 1, 1, 1, 1, 1, 1, degrees);
+		} else
+		{
+			backend.drawQuad(tex, interpolation, x, y, width, height, 0, 0, 1, 1, 1, 1, 1, 1, degrees);
+		}
+	}
+
+	/**
+	 * Sets how quads drawn after this call are blended with what is already on
+	 * the screen. The default is BlendMode.Alpha.
+	 * 
+	 * @param blendMode
+	 *            The desired blend mode
+	 */
+	public void setBlendMode(BlendMode blendMode)
+	{
+		this.blendMode = blendMode;
+		backend.setBlendMode(blendMode);
+	}
+
+	/**
+	 * Turns deferred rendering on or off. While it is on, quads are not drawn
+	 * in the order they are issued. They are queued and drawn when the frame
+	 * ends (or flush() is called), sorted by layer. Within a layer they are
+	 * grouped by blend mode and texture, so quads of the same layer should not
+	 * rely on overlapping each other in a particular order. Text drawn with
+	 * SkyFont is never deferred; call flush() first if it must appear above the
+	 * queued quads.
+	 * 
+	 * @param deferred
+	 *            True to queue and sort quads, false to draw them in order
+	 */
+	public void setDeferred(boolean deferred)
+	{
+		if (this.deferred && !deferred)
+		{
+			queue.submit(backend);
+		}
+		this.deferred = deferred;
+	}
+
+	/**
+	 * Sets the layer of quads drawn after this call. Layers only matter while
+	 * deferred rendering is on; lower layers are drawn first.
+	 * 
+	 * @param layer
+	 *            The layer (0-65535)
+	 */
+	public void setLayer(int layer)
+	{
+		this.layer = Math.min(Math.max(layer, RenderQueue.MIN_LAYER), RenderQueue.MAX_LAYER);
+	}
+
+	/**
+	 * Draws every quad that is waiting in the render queue and the backend.
+	 * This is called by the GameContainer at the end of every frame, but it
+	 * can also be called before drawing with OpenGL directly.
+	 */
+	public void flush()
+	{
+		queue.submit(backend);
+		backend.flush();
+	}
+
+	/**
+	 * Flushes the last quads of a frame, frees the textures the cache evicted
+	 * during the frame and tells the backend that the frame is done
+	 */
+	public void endFrame()
+	{
+		flush();
+		textureCache.releaseEvicted();
+		backend.endFrame();
+	}
+
+	public BlendMode getBlendMode()
+	{
+		return blendMode;
+	}
+
+	public boolean isDeferred()
+	{
+		return deferred;
+	}
+
+	public int getLayer()
+	{
+		return layer;
+	}
+
+	public RenderBackend getBackend()
+	{
+		return backend;
+	}
+
+	public RenderQueue getRenderQueue()
+	{
+		return queue;
+	}
+
+	public TextureCache getTextureCache()
+	{
+		return textureCache;
 	}
 
 }
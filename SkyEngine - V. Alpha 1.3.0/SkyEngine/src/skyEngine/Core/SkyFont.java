@@ -1,11 +1,6 @@
 package skyEngine.Core;
 
 import static org.lwjgl.opengl.GL11.GL_BLEND;
-import static org.lwjgl.opengl.GL11.GL_ONE_MINUS_SRC_ALPHA;
-import static org.lwjgl.opengl.GL11.GL_SRC_ALPHA;
-import static org.lwjgl.opengl.GL11.glBlendFunc;
-import static org.lwjgl.opengl.GL11.glDisable;
-import static org.lwjgl.opengl.GL11.glEnable;
 
 import java.awt.Font;
 import java.io.InputStream;
@@ -14,6 +9,9 @@ import org.newdawn.slick.Color;
 import org.newdawn.slick.TrueTypeFont;
 import org.newdawn.slick.util.ResourceLoader;
 
+import skyEngine.RenderingUtilities.BlendMode;
+import skyEngine.RenderingUtilities.GLStateCache;
+
 public class SkyFont
 {
 
@@ -151,11 +149,12 @@ public class SkyFont
 	 */
 	public void drawText(float x, float y, String text)
 	{
+		SpriteBatch.flushActive();
 		Color.white.bind();
-		glEnable(GL_BLEND);
-		glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
+		GLStateCache.enable(GL_BLEND);
+		GLStateCache.setBlendMode(BlendMode.Alpha);
 		useFont.drawString(x, y, text, compositeColor);
-		glDisable(GL_BLEND);
+		GLStateCache.invalidateTextureBinding();
 	}
 
 	/**
@@ -0,0 +1,792 @@
+package skyEngine.Core;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import javax.imageio.ImageIO;
+
+import org.newdawn.slick.opengl.ImageData;
+import org.newdawn.slick.opengl.Texture;
+
+import skyEngine.RenderingUtilities.BlendMode;
+
+public class SoftwareRenderBackend implements RenderBackend
+{
+
+	// Tiles are rasterized in parallel; each tile draws every command that
+	// touches it in order, so no two threads ever write the same pixel
+	private static final int TILE_SIZE = 64;
+	private static final int TILES_PER_TASK = 4;
+
+	// Command layout: origin of the quad (x, y), vectors that turn a pixel
+	// offset into quad coordinates (s and t), texture coordinates and color
+	private static final int COMMAND_SIZE = 14;
+
+	// Blend modes by ordinal
+	private static final int ALPHA = 0;
+	private static final int ADDITIVE = 1;
+
+	// Converted texels of a texture are dropped once it has not been drawn
+	// for this many frames
+	private static final int TEXEL_CACHE_FRAMES = 120;
+
+	// Framebuffer
+	private final int width;
+	private final int height;
+	private final int[] pixels;
+	private int clearColor = 0xFF000000;
+	private boolean clearPending = false;
+
+	// Tiles
+	private final int tilesX;
+	private final int tilesY;
+	private int[][] tileCommands;
+	private int[] tileCommandCounts;
+
+	// Pending commands
+	private int commandCount = 0;
+	private float[] commandData = new float[1024 * COMMAND_SIZE];
+	private int[] commandBounds = new int[1024 * 4];
+	private int[] commandFlags = new int[1024];
+	private int[][] commandTexels = new int[1024][];
+	private int[] commandTextureSizes = new int[1024 * 2];
+
+	// State
+	private BlendMode blendMode = BlendMode.Alpha;
+	private boolean clampTextures = false;
+	private IdentityHashMap<Texture, CachedTexels> texelCache = new IdentityHashMap<Texture, CachedTexels>();
+	private long frame = 0;
+	private ForkJoinPool pool;
+
+	/**
+	 * Creates a SoftwareRenderBackend with a framebuffer the size of the design
+	 * resolution of the GameContainer
+	 */
+	public SoftwareRenderBackend()
+	{
+		this(GameContainer.getDesignWidth() > 0 ? GameContainer.getDesignWidth() : 1920,
+				GameContainer.getDesignHeight() > 0 ? GameContainer.getDesignHeight() : 1080);
+	}
+
+	/**
+	 * Creates a SoftwareRenderBackend that rasterizes quads on the CPU into a
+	 * framebuffer of a specified size, using every core of the common
+	 * fork/join pool
+	 * 
+	 * @param width
+	 *            Width of the framebuffer in pixels
+	 * @param height
+	 *            Height of the framebuffer in pixels
+	 */
+	public SoftwareRenderBackend(int width, int height)
+	{
+		this(width, height, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a SoftwareRenderBackend that rasterizes quads on the CPU into a
+	 * framebuffer of a specified size
+	 * 
+	 * @param width
+	 *            Width of the framebuffer in pixels
+	 * @param height
+	 *            Height of the framebuffer in pixels
+	 * @param pool
+	 *            The pool that rasterizes the tiles
+	 */
+	public SoftwareRenderBackend(int width, int height, ForkJoinPool pool)
+	{
+		this.width = Math.max(width, 1);
+		this.height = Math.max(height, 1);
+		this.pool = pool;
+		pixels = new int[this.width * this.height];
+		tilesX = (this.width + TILE_SIZE - 1) / TILE_SIZE;
+		tilesY = (this.height + TILE_SIZE - 1) / TILE_SIZE;
+		tileCommands = new int[tilesX * tilesY][64];
+		tileCommandCounts = new int[tilesX * tilesY];
+		Arrays.fill(pixels, clearColor);
+	}
+
+	/**
+	 * Queues a quad. Quads are rasterized when the backend is flushed.
+	 */
+	public void drawQuad(Texture tex, boolean interpolation, float x, float y, float width, float height, float u0,
+			float v0, float u1, float v1, float r, float g, float b, float a, float degrees)
+	{
+		if (width == 0 || height == 0)
+		{
+			return;
+		}
+		if (tex instanceof TextureRegion)
+		{
+			TextureRegion region = (TextureRegion) tex;
+			tex = region.getPage();
+			u0 = region.mapU(u0);
+			v0 = region.mapV(v0);
+			u1 = region.mapU(u1);
+			v1 = region.mapV(v1);
+		}
+		if (commandCount == commandFlags.length)
+		{
+			growCommands();
+		}
+
+		// Corners 0 (upper left), 1 (upper right) and 3 (lower left), rotated
+		// around the center the same way as by the SpriteBatch
+		float x0 = x;
+		float y0 = y;
+		float x1 = x + width;
+		float y1 = y;
+		float x3 = x;
+		float y3 = y + height;
+		if (degrees != 0)
+		{
+			double radians = Math.toRadians(degrees);
+			float cos = (float) Math.cos(radians);
+			float sin = (float) Math.sin(radians);
+			float halfWidth = width / 2;
+			float halfHeight = height / 2;
+			float centerX = x + halfWidth;
+			float centerY = y + halfHeight;
+			x0 = centerX - halfWidth * cos + halfHeight * sin;
+			y0 = centerY - halfWidth * sin - halfHeight * cos;
+			x1 = centerX + halfWidth * cos + halfHeight * sin;
+			y1 = centerY + halfWidth * sin - halfHeight * cos;
+			x3 = centerX - halfWidth * cos - halfHeight * sin;
+			y3 = centerY - halfWidth * sin + halfHeight * cos;
+		}
+		float x2 = x1 + x3 - x0;
+		float y2 = y1 + y3 - y0;
+
+		// The edges of the quad are perpendicular, so a pixel offset projected
+		// onto each edge (divided by its squared length) gives s and t (0-1)
+		float edgeX1 = x1 - x0;
+		float edgeY1 = y1 - y0;
+		float edgeX2 = x3 - x0;
+		float edgeY2 = y3 - y0;
+		float length1 = edgeX1 * edgeX1 + edgeY1 * edgeY1;
+		float length2 = edgeX2 * edgeX2 + edgeY2 * edgeY2;
+
+		int i = commandCount * COMMAND_SIZE;
+		commandData[i] = x0;
+		commandData[i + 1] = y0;
+		commandData[i + 2] = edgeX1 / length1;
+		commandData[i + 3] = edgeY1 / length1;
+		commandData[i + 4] = edgeX2 / length2;
+		commandData[i + 5] = edgeY2 / length2;
+		commandData[i + 6] = u0;
+		commandData[i + 7] = v0;
+		commandData[i + 8] = u1 - u0;
+		commandData[i + 9] = v1 - v0;
+		commandData[i + 10] = Math.min(Math.max(r, 0), 1) * 256;
+		commandData[i + 11] = Math.min(Math.max(g, 0), 1) * 256;
+		commandData[i + 12] = Math.min(Math.max(b, 0), 1) * 256;
+		commandData[i + 13] = Math.min(Math.max(a, 0), 1) * 256;
+
+		// Pixels whose centers can be inside the quad
+		int c = commandCount * 4;
+		commandBounds[c] = Math.max((int) Math.floor(min(x0, x1, x2, x3) - 0.5f), 0);
+		commandBounds[c + 1] = Math.max((int) Math.floor(min(y0, y1, y2, y3) - 0.5f), 0);
+		commandBounds[c + 2] = Math.min((int) Math.ceil(max(x0, x1, x2, x3) - 0.5f), this.width - 1);
+		commandBounds[c + 3] = Math.min((int) Math.ceil(max(y0, y1, y2, y3) - 0.5f), this.height - 1);
+		if (commandBounds[c] > commandBounds[c + 2] || commandBounds[c + 1] > commandBounds[c + 3])
+		{
+			return;
+		}
+
+		int[] texels = tex == null ? null : getTexels(tex);
+		commandTexels[commandCount] = texels;
+		if (texels != null)
+		{
+			commandTextureSizes[commandCount * 2] = tex.getTextureWidth();
+			commandTextureSizes[commandCount * 2 + 1] = tex.getTextureHeight();
+		}
+		commandFlags[commandCount] = blendMode.ordinal() | (interpolation ? 0x10 : 0) | (clampTextures ? 0x20 : 0);
+		commandCount++;
+	}
+
+	private static float min(float a, float b, float c, float d)
+	{
+		return Math.min(Math.min(a, b), Math.min(c, d));
+	}
+
+	private static float max(float a, float b, float c, float d)
+	{
+		return Math.max(Math.max(a, b), Math.max(c, d));
+	}
+
+	/**
+	 * Doubles the room for pending commands
+	 */
+	private void growCommands()
+	{
+		int capacity = commandFlags.length * 2;
+		commandData = Arrays.copyOf(commandData, capacity * COMMAND_SIZE);
+		commandBounds = Arrays.copyOf(commandBounds, capacity * 4);
+		commandFlags = Arrays.copyOf(commandFlags, capacity);
+		commandTexels = Arrays.copyOf(commandTexels, capacity);
+		commandTextureSizes = Arrays.copyOf(commandTextureSizes, capacity * 2);
+	}
+
+	/**
+	 * Gets the pixels of a texture as ARGB integers, converting them the first
+	 * time the texture is drawn
+	 */
+	private int[] getTexels(Texture tex)
+	{
+		CachedTexels cached = texelCache.get(tex);
+		if (cached != null)
+		{
+			cached.lastFrame = frame;
+			return cached.texels;
+		}
+
+		int[] texels;
+		int textureWidth = tex.getTextureWidth();
+		int textureHeight = tex.getTextureHeight();
+		texels = new int[textureWidth * textureHeight];
+		ByteBuffer data = null;
+		int depth = 32;
+		if (tex instanceof HeadlessTexture && ((HeadlessTexture) tex).getImageData() != null)
+		{
+			ImageData image = ((HeadlessTexture) tex).getImageData();
+			data = image.getImageBufferData().duplicate();
+			depth = image.getDepth();
+		} else
+		{
+			byte[] bytes = tex.getTextureData();
+			if (bytes != null)
+			{
+				data = ByteBuffer.wrap(bytes);
+				depth = bytes.length >= texels.length * 4 ? 32 : 24;
+			}
+		}
+
+		if (data == null)
+		{
+			// Nothing to sample, so the quad is drawn in its color
+			Arrays.fill(texels, 0xFFFFFFFF);
+		} else
+		{
+			int channels = depth / 8;
+			data.rewind();
+			for (int p = 0; p < texels.length && data.remaining() >= channels; p++)
+			{
+				int r = data.get() & 0xFF;
+				int g = data.get() & 0xFF;
+				int b = data.get() & 0xFF;
+				int a = channels == 4 ? data.get() & 0xFF : 0xFF;
+				texels[p] = (a << 24) | (r << 16) | (g << 8) | b;
+			}
+		}
+		texelCache.put(tex, new CachedTexels(texels, frame));
+		return texels;
+	}
+
+	public void setBlendMode(BlendMode blendMode)
+	{
+		this.blendMode = blendMode;
+	}
+
+	public BlendMode getBlendMode()
+	{
+		return blendMode;
+	}
+
+	/**
+	 * Rasterizes every pending quad. The tiles of the framebuffer are split
+	 * between the threads of the fork/join pool.
+	 */
+	public void flush()
+	{
+		if (commandCount == 0 && !clearPending)
+		{
+			return;
+		}
+
+		Arrays.fill(tileCommandCounts, 0);
+		for (int command = 0; command < commandCount; command++)
+		{
+			int c = command * 4;
+			int firstTileX = commandBounds[c] / TILE_SIZE;
+			int firstTileY = commandBounds[c + 1] / TILE_SIZE;
+			int lastTileX = commandBounds[c + 2] / TILE_SIZE;
+			int lastTileY = commandBounds[c + 3] / TILE_SIZE;
+			for (int tileY = firstTileY; tileY <= lastTileY; tileY++)
+			{
+				for (int tileX = firstTileX; tileX <= lastTileX; tileX++)
+				{
+					int tile = tileY * tilesX + tileX;
+					if (tileCommandCounts[tile] == tileCommands[tile].length)
+					{
+						tileCommands[tile] = Arrays.copyOf(tileCommands[tile], tileCommandCounts[tile] * 2);
+					}
+					tileCommands[tile][tileCommandCounts[tile]++] = command;
+				}
+			}
+		}
+
+		pool.invoke(new TileTask(0, tilesX * tilesY));
+
+		clearPending = false;
+		Arrays.fill(commandTexels, 0, commandCount, null);
+		commandCount = 0;
+	}
+
+	/**
+	 * Draws the pending commands of a range of tiles, splitting the range
+	 * until it is small enough
+	 */
+	private class TileTask extends RecursiveAction
+	{
+
+		private static final long serialVersionUID = 1L;
+
+		private int firstTile;
+		private int endTile;
+
+		public TileTask(int firstTile, int endTile)
+		{
+			this.firstTile = firstTile;
+			this.endTile = endTile;
+		}
+
+		protected void compute()
+		{
+			if (endTile - firstTile <= TILES_PER_TASK)
+			{
+				for (int tile = firstTile; tile < endTile; tile++)
+				{
+					rasterizeTile(tile);
+				}
+			} else
+			{
+				int middle = (firstTile + endTile) >>> 1;
+				invokeAll(new TileTask(firstTile, middle), new TileTask(middle, endTile));
+			}
+		}
+
+	}
+
+	/**
+	 * Clears a tile if needed and draws its commands in order
+	 */
+	private void rasterizeTile(int tile)
+	{
+		int tileLeft = (tile % tilesX) * TILE_SIZE;
+		int tileTop = (tile / tilesX) * TILE_SIZE;
+		int tileRight = Math.min(tileLeft + TILE_SIZE, width) - 1;
+		int tileBottom = Math.min(tileTop + TILE_SIZE, height) - 1;
+
+		if (clearPending)
+		{
+			for (int y = tileTop; y <= tileBottom; y++)
+			{
+				Arrays.fill(pixels, y * width + tileLeft, y * width + tileRight + 1, clearColor);
+			}
+		}
+
+		int[] commands = tileCommands[tile];
+		for (int n = 0; n < tileCommandCounts[tile]; n++)
+		{
+			int command = commands[n];
+			int c = command * 4;
+			rasterize(command, Math.max(commandBounds[c], tileLeft), Math.max(commandBounds[c + 1], tileTop),
+					Math.min(commandBounds[c + 2], tileRight), Math.min(commandBounds[c + 3], tileBottom));
+		}
+	}
+
+	/**
+	 * Draws the part of a command that lies inside a rectangle of pixels
+	 */
+	private void rasterize(int command, int left, int top, int right, int bottom)
+	{
+		int i = command * COMMAND_SIZE;
+		float originX = commandData[i];
+		float originY = commandData[i + 1];
+		float sx = commandData[i + 2];
+		float sy = commandData[i + 3];
+		float tx = commandData[i + 4];
+		float ty = commandData[i + 5];
+		int red = (int) commandData[i + 10];
+		int green = (int) commandData[i + 11];
+		int blue = (int) commandData[i + 12];
+		int alpha = (int) commandData[i + 13];
+		boolean white = red == 256 && green == 256 && blue == 256 && alpha == 256;
+
+		int flags = commandFlags[command];
+		int blend = flags & 0xF;
+		boolean linear = (flags & 0x10) != 0;
+		boolean clamp = (flags & 0x20) != 0;
+		int[] texels = commandTexels[command];
+		int textureWidth = commandTextureSizes[command * 2];
+		int textureHeight = commandTextureSizes[command * 2 + 1];
+		int solid = modulate(0xFFFFFFFF, red, green, blue, alpha);
+
+		// Texture position (in texels) at s = t = 0 and its change per pixel
+		float startU = commandData[i + 6] * textureWidth;
+		float startV = commandData[i + 7] * textureHeight;
+		float spanU = commandData[i + 8] * textureWidth;
+		float spanV = commandData[i + 9] * textureHeight;
+		float stepU = sx * spanU;
+		float stepV = tx * spanV;
+		if (linear)
+		{
+			// Texel centers are at half coordinates
+			startU -= 0.5f;
+			startV -= 0.5f;
+		}
+
+		for (int y = top; y <= bottom; y++)
+		{
+			float offsetX = left + 0.5f - originX;
+			float offsetY = y + 0.5f - originY;
+			float rowS = offsetX * sx + offsetY * sy;
+			float rowT = offsetX * tx + offsetY * ty;
+
+			// Pixels of the row with 0 <= s < 1 and 0 <= t < 1
+			float first = 0;
+			float end = right - left + 1;
+			if (sx != 0)
+			{
+				float a = -rowS / sx;
+				float b = (1 - rowS) / sx;
+				first = Math.max(first, Math.min(a, b));
+				end = Math.min(end, Math.max(a, b));
+			} else if (rowS < 0 || rowS >= 1)
+			{
+				continue;
+			}
+			if (tx != 0)
+			{
+				float a = -rowT / tx;
+				float b = (1 - rowT) / tx;
+				first = Math.max(first, Math.min(a, b));
+				end = Math.min(end, Math.max(a, b));
+			} else if (rowT < 0 || rowT >= 1)
+			{
+				continue;
+			}
+			int firstPixel = (int) Math.ceil(first);
+			int endPixel = (int) Math.ceil(end);
+			if (firstPixel >= endPixel)
+			{
+				continue;
+			}
+
+			int index = y * width + left + firstPixel;
+			int endIndex = y * width + left + endPixel;
+			if (texels == null)
+			{
+				for (; index < endIndex; index++)
+				{
+					pixels[index] = blend(solid, pixels[index], blend);
+				}
+				continue;
+			}
+
+			float s = rowS + firstPixel * sx;
+			float t = rowT + firstPixel * tx;
+			float u = startU + s * spanU;
+			float v = startV + t * spanV;
+			if (linear)
+			{
+				for (; index < endIndex; index++, u += stepU, v += stepV)
+				{
+					int texel = sampleLinear(texels, textureWidth, textureHeight, u, v, clamp);
+					int source = white ? texel : modulate(texel, red, green, blue, alpha);
+					pixels[index] = blend(source, pixels[index], blend);
+				}
+			} else
+			{
+				for (; index < endIndex; index++, u += stepU, v += stepV)
+				{
+					int texel = sampleNearest(texels, textureWidth, textureHeight, u, v, clamp);
+					int source = white ? texel : modulate(texel, red, green, blue, alpha);
+					pixels[index] = blend(source, pixels[index], blend);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Wraps or clamps a texel coordinate
+	 */
+	private static int wrap(int coordinate, int size, boolean clamp)
+	{
+		if (clamp)
+		{
+			return coordinate < 0 ? 0 : (coordinate >= size ? size - 1 : coordinate);
+		} else if ((size & (size - 1)) == 0)
+		{
+			return coordinate & (size - 1);
+		}
+		coordinate %= size;
+		return coordinate < 0 ? coordinate + size : coordinate;
+	}
+
+	/**
+	 * Rounds a texel position down
+	 */
+	private static int floor(float value)
+	{
+		int integer = (int) value;
+		return value < integer ? integer - 1 : integer;
+	}
+
+	/**
+	 * Gets the texel closest to a texture position
+	 */
+	private static int sampleNearest(int[] texels, int textureWidth, int textureHeight, float u, float v,
+			boolean clamp)
+	{
+		int x = wrap(floor(u), textureWidth, clamp);
+		int y = wrap(floor(v), textureHeight, clamp);
+		return texels[y * textureWidth + x];
+	}
+
+	/**
+	 * Blends the four texels around a texture position by their distance. The
+	 * position must already be moved by half a texel.
+	 */
+	private static int sampleLinear(int[] texels, int textureWidth, int textureHeight, float u, float v,
+			boolean clamp)
+	{
+		int left = floor(u);
+		int top = floor(v);
+		int weightX = (int) ((u - left) * 256);
+		int weightY = (int) ((v - top) * 256);
+
+		int x0 = left;
+		int x1 = left + 1;
+		int y0 = top * textureWidth;
+		int y1 = y0 + textureWidth;
+		if (left < 0 || top < 0 || x1 >= textureWidth || top + 1 >= textureHeight)
+		{
+			// Only the edges of the texture need to wrap or clamp
+			x0 = wrap(left, textureWidth, clamp);
+			x1 = wrap(left + 1, textureWidth, clamp);
+			y0 = wrap(top, textureHeight, clamp) * textureWidth;
+			y1 = wrap(top + 1, textureHeight, clamp) * textureWidth;
+		}
+		int upper = lerp(texels[y0 + x0], texels[y0 + x1], weightX);
+		int lower = lerp(texels[y1 + x0], texels[y1 + x1], weightX);
+		return lerp(upper, lower, weightY);
+	}
+
+	/**
+	 * Mixes two ARGB colors, two channels at a time
+	 * 
+	 * @param weight
+	 *            How much of the second color to use (0-256)
+	 */
+	private static int lerp(int first, int second, int weight)
+	{
+		int inverse = 256 - weight;
+		int redBlue = (((first & 0xFF00FF) * inverse + (second & 0xFF00FF) * weight) >>> 8) & 0xFF00FF;
+		int alphaGreen = ((((first >>> 8) & 0xFF00FF) * inverse + ((second >>> 8) & 0xFF00FF) * weight) >>> 8)
+				& 0xFF00FF;
+		return redBlue | (alphaGreen << 8);
+	}
+
+	/**
+	 * Multiplies a color by the color of a quad (0-256 per channel)
+	 */
+	private static int modulate(int color, int red, int green, int blue, int alpha)
+	{
+		int a = (((color >>> 24) & 0xFF) * alpha) >>> 8;
+		int r = (((color >>> 16) & 0xFF) * red) >>> 8;
+		int g = (((color >>> 8) & 0xFF) * green) >>> 8;
+		int b = ((color & 0xFF) * blue) >>> 8;
+		return (a << 24) | (r << 16) | (g << 8) | b;
+	}
+
+	/**
+	 * Blends a source color onto a destination color like OpenGL does for a
+	 * blend mode
+	 */
+	private static int blend(int source, int destination, int blend)
+	{
+		int sourceAlpha = source >>> 24;
+		if (blend == ALPHA)
+		{
+			// Source * alpha + destination * (1 - alpha)
+			if (sourceAlpha == 0xFF)
+			{
+				return source;
+			} else if (sourceAlpha == 0)
+			{
+				return destination;
+			}
+			return lerp(destination, source, sourceAlpha + (sourceAlpha >>> 7));
+		}
+
+		int result = 0;
+		for (int shift = 0; shift < 32; shift += 8)
+		{
+			int s = (source >>> shift) & 0xFF;
+			int d = (destination >>> shift) & 0xFF;
+			int channel;
+			if (blend == ADDITIVE)
+			{
+				// Source * alpha + destination
+				channel = d + ((s * sourceAlpha + 128) * 257 >>> 16);
+			} else
+			{
+				// Source * destination + destination * (1 - alpha)
+				channel = ((s * d + 128) * 257 >>> 16) + ((d * (255 - sourceAlpha) + 128) * 257 >>> 16);
+			}
+			result |= Math.min(channel, 255) << shift;
+		}
+		return result;
+	}
+
+	/**
+	 * Rasterizes what is pending and then clears the framebuffer. The clear is
+	 * done by the tile threads as part of the next flush.
+	 */
+	public void clear()
+	{
+		flush();
+		clearPending = true;
+	}
+
+	public void setTextureClamping(boolean clamp)
+	{
+		clampTextures = clamp;
+	}
+
+	/**
+	 * Makes sure every quad of the frame is in the framebuffer and drops the
+	 * texels of textures that have not been drawn for a while, so textures
+	 * that are never released do not keep their copies forever
+	 */
+	public void endFrame()
+	{
+		flush();
+		frame++;
+		Iterator<CachedTexels> iterator = texelCache.values().iterator();
+		while (iterator.hasNext())
+		{
+			if (frame - iterator.next().lastFrame > TEXEL_CACHE_FRAMES)
+			{
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Decodes the image into a HeadlessTexture that can be sampled on the CPU
+	 */
+	public Texture loadTexture(String path, String format) throws IOException
+	{
+		ImageData image = Renderer.decodeImage(path);
+		if (image == null)
+		{
+			throw new IOException("Unable to decode " + path);
+		}
+		return new HeadlessTexture(path, image);
+	}
+
+	public Texture createTexture(ImageData image) throws IOException
+	{
+		return new HeadlessTexture(null, image);
+	}
+
+	public void releaseTexture(Texture tex)
+	{
+		texelCache.remove(tex);
+		tex.release();
+	}
+
+	/**
+	 * Gets the framebuffer. Pending quads are drawn first.
+	 * 
+	 * @return The pixels as ARGB integers, row by row from the top
+	 */
+	public int[] getPixels()
+	{
+		flush();
+		return pixels;
+	}
+
+	/**
+	 * Copies the framebuffer into an image
+	 * 
+	 * @return The image
+	 */
+	public BufferedImage toImage()
+	{
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		image.setRGB(0, 0, width, height, getPixels(), 0, width);
+		return image;
+	}
+
+	/**
+	 * Writes the framebuffer to a PNG file
+	 * 
+	 * @param path
+	 *            The file to write
+	 */
+	public void writePng(String path)
+	{
+		try
+		{
+			ImageIO.write(toImage(), "png", new File(path));
+		} catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+	}
+
+	public int getClearColor()
+	{
+		return clearColor;
+	}
+
+	/**
+	 * Sets the color the framebuffer is cleared to
+	 * 
+	 * @param clearColor
+	 *            The color as an ARGB integer
+	 */
+	public void setClearColor(int clearColor)
+	{
+		this.clearColor = clearColor;
+	}
+
+	public int getWidth()
+	{
+		return width;
+	}
+
+	public int getHeight()
+	{
+		return height;
+	}
+
+	/**
+	 * The texels of a texture and the last frame it was drawn in
+	 */
+	private static class CachedTexels
+	{
+
+		private int[] texels;
+		private long lastFrame;
+
+		public CachedTexels(int[] texels, long lastFrame)
+		{
+			this.texels = texels;
+			this.lastFrame = lastFrame;
+		}
+
+	}
+
+}
@@ -0,0 +1,515 @@
+package skyEngine.Core;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.FloatControl;
+import javax.sound.sampled.SourceDataLine;
+
+public class SoundStream
+{
+
+	// Frames decoded or written to the line at a time
+	private static final int CHUNK_FRAMES = 1024;
+
+	// How long the threads wait when there is nothing to do
+	private static final long BUSY_WAIT = 2000000;
+	private static final long IDLE_WAIT = 50000000;
+
+	private String location;
+	private AudioFormat format;
+	private int frameSize;
+	private int chunkSize;
+	private long frameLength;
+	private SourceDataLine line;
+	private FloatControl gain;
+
+	// Decoded audio waiting for the line. Only the decoding thread moves the
+	// write position and only the feeding thread moves the read position.
+	private byte[] ring;
+	private volatile long writePosition = 0;
+	private volatile long readPosition = 0;
+
+	// Where the audio of the current start begins in the ring; anything
+	// before it was decoded for an earlier start and is skipped
+	private volatile long discardPosition = 0;
+	private volatile int readyGeneration = 0;
+	private volatile boolean ended = false;
+
+	// Decoder state (only used by the decoding thread)
+	private AudioInputStream input;
+	private long decodedFrame = 0;
+
+	// Commands from the game
+	private volatile int generation = 0;
+	private volatile boolean playing = false;
+	private volatile boolean isStreamPaused = false;
+	private volatile boolean looping = false;
+	private volatile boolean closed = false;
+	private volatile long loopStart = 0;
+	private volatile long loopEnd = -1;
+
+	private Thread decoder;
+	private Thread feeder;
+
+	/**
+	 * The constructor for the SoundStream class. It opens a 16-bit WAV file
+	 * for streaming: the file is decoded a chunk at a time on a background
+	 * thread while it plays, so only about half a second of audio is held in
+	 * memory however long the track is. Use it for music and other long
+	 * sounds, and SoundClip for short effects.
+	 * 
+	 * @param location
+	 *            The path to the WAV file
+	 */
+	public SoundStream(String location)
+	{
+		this.location = location;
+		try
+		{
+			input = openStream();
+			format = input.getFormat();
+			frameSize = format.getFrameSize();
+			chunkSize = CHUNK_FRAMES * frameSize;
+			frameLength = input.getFrameLength();
+
+			// Half a second of audio in the ring, a quarter in the line
+			int sampleRate = (int) format.getSampleRate();
+			ring = new byte[Math.max(sampleRate / 2, CHUNK_FRAMES * 4) * frameSize];
+			line = AudioSystem.getSourceDataLine(format);
+			line.open(format, Math.max(sampleRate / 4, CHUNK_FRAMES * 2) * frameSize);
+
+			gain = (FloatControl) line.getControl(FloatControl.Type.MASTER_GAIN);
+		} catch (Exception e)
+		{
+			e.printStackTrace();
+			line = null;
+			return;
+		}
+
+		decoder = new Thread(new Runnable()
+		{
+			public void run()
+			{
+				decodeLoop();
+			}
+		}, "SkyEngine Sound Decoder");
+		decoder.setDaemon(true);
+		decoder.start();
+
+		feeder = new Thread(new Runnable()
+		{
+			public void run()
+			{
+				feedLoop();
+			}
+		}, "SkyEngine Sound Feeder");
+		feeder.setDaemon(true);
+		feeder.setPriority(Thread.MAX_PRIORITY);
+		feeder.start();
+	}
+
+	/**
+	 * The overloaded constructor for the SoundStream class. It opens a 16-bit
+	 * WAV file for streaming and sets the default volume of the stream
+	 * 
+	 * @param location
+	 *            The path to the WAV file
+	 * @param volume
+	 *            The volume the stream is to be played at (-80.0 - 6.0206)
+	 */
+	public SoundStream(String location, float volume)
+	{
+		this(location);
+		if (gain != null)
+		{
+			gain.setValue(volume);
+		}
+	}
+
+	/**
+	 * Opens the WAV file and converts it to 16-bit signed samples, the same way
+	 * SoundClip decodes it
+	 */
+	private AudioInputStream openStream() throws Exception
+	{
+		InputStream audioSource = getClass().getResourceAsStream(location);
+		InputStream bufferedInput = new BufferedInputStream(audioSource);
+		AudioInputStream audioInput = AudioSystem.getAudioInputStream(bufferedInput);
+		AudioFormat initialFormat = audioInput.getFormat();
+		AudioFormat decodedFormat = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, initialFormat.getSampleRate(), 16,
+				initialFormat.getChannels(), initialFormat.getChannels() * 2, initialFormat.getSampleRate(), false);
+		return AudioSystem.getAudioInputStream(decodedFormat, audioInput);
+	}
+
+	/**
+	 * Moves the decoder to a frame of the track. Streams can not seek
+	 * backwards, so the file is opened again if the frame has already been
+	 * decoded.
+	 */
+	private void seek(long frame) throws Exception
+	{
+		if (frame < decodedFrame)
+		{
+			input.close();
+			input = openStream();
+			decodedFrame = 0;
+		}
+		long bytes = (frame - decodedFrame) * frameSize;
+		while (bytes > 0)
+		{
+			long skipped = input.skip(bytes);
+			if (skipped <= 0)
+			{
+				break;
+			}
+			bytes -= skipped;
+		}
+		decodedFrame = frame - bytes / frameSize;
+	}
+
+	/**
+	 * Decodes chunks into the ring while there is room for them. When the
+	 * track (or the loop) ends, the decoder goes back to the loop start if the
+	 * stream is looping.
+	 */
+	private void decodeLoop()
+	{
+		int decodedGeneration = 0;
+		// Whether any audio was decoded since the last seek to the loop start
+		boolean progressed = true;
+		while (!closed)
+		{
+			try
+			{
+				int currentGeneration = generation;
+				if (currentGeneration != decodedGeneration)
+				{
+					seek(0);
+					decodedGeneration = currentGeneration;
+					progressed = true;
+					ended = false;
+					discardPosition = writePosition;
+					readyGeneration = currentGeneration;
+				}
+
+				if (!playing || ended)
+				{
+					LockSupport.parkNanos(playing ? BUSY_WAIT : IDLE_WAIT);
+					continue;
+				}
+				long free = ring.length - (writePosition - readPosition);
+				if (free < chunkSize)
+				{
+					LockSupport.parkNanos(BUSY_WAIT);
+					continue;
+				}
+
+				// Read up to the end of the ring, the chunk or the loop
+				int offset = (int) (writePosition % ring.length);
+				long length = Math.min(chunkSize, ring.length - offset);
+				long end = loopEnd;
+				if (looping && end >= 0)
+				{
+					length = Math.min(length, (end - decodedFrame) * frameSize);
+				}
+				int read = length > 0 ? input.read(ring, offset, (int) length) : -1;
+
+				if (read > 0)
+				{
+					read -= read % frameSize;
+					decodedFrame += read / frameSize;
+					writePosition += read;
+					progressed = true;
+				} else if (looping && progressed)
+				{
+					seek(loopStart);
+					progressed = false;
+				} else
+				{
+					ended = true;
+				}
+			} catch (Exception e)
+			{
+				e.printStackTrace();
+				ended = true;
+			}
+		}
+
+		try
+		{
+			input.close();
+		} catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Writes decoded audio to the line, never more than the line can take
+	 * without blocking, so commands from the game take effect quickly
+	 */
+	private void feedLoop()
+	{
+		while (!closed)
+		{
+			int feedGeneration = generation;
+			if (!playing || isStreamPaused || readyGeneration != feedGeneration)
+			{
+				LockSupport.parkNanos(playing ? BUSY_WAIT : IDLE_WAIT);
+				continue;
+			}
+			if (readPosition < discardPosition)
+			{
+				readPosition = discardPosition;
+			}
+
+			long available = writePosition - readPosition;
+			if (available == 0)
+			{
+				if (ended && line.available() >= line.getBufferSize())
+				{
+					// The track has finished and the line has played all of it
+					finish(feedGeneration);
+				} else
+				{
+					LockSupport.parkNanos(BUSY_WAIT);
+				}
+				continue;
+			}
+
+			int offset = (int) (readPosition % ring.length);
+			int length = (int) Math.min(Math.min(available, ring.length - offset), chunkSize);
+			length = Math.min(length, line.available());
+			length -= length % frameSize;
+			if (length == 0)
+			{
+				LockSupport.parkNanos(BUSY_WAIT);
+				continue;
+			}
+			line.write(ring, offset, length);
+			readPosition += length;
+		}
+	}
+
+	/**
+	 * Ends playback from the feeding thread, unless the stream was started
+	 * again since the audio that finished was decoded
+	 */
+	private synchronized void finish(int finishedGeneration)
+	{
+		if (generation == finishedGeneration)
+		{
+			playing = false;
+		}
+	}
+
+	/**
+	 * Wakes the threads so a command takes effect without waiting for them
+	 */
+	private void wake()
+	{
+		LockSupport.unpark(decoder);
+		LockSupport.unpark(feeder);
+	}
+
+	/**
+	 * Plays the stream from the beginning
+	 */
+	public synchronized void startStream()
+	{
+		if (line == null)
+		{
+			return;
+		}
+		stopStream();
+		generation++;
+		isStreamPaused = false;
+		playing = true;
+		line.start();
+		wake();
+	}
+
+	/**
+	 * Stops the stream
+	 */
+	public void stopStream()
+	{
+		if (line == null)
+		{
+			return;
+		}
+		playing = false;
+		looping = false;
+		isStreamPaused = false;
+		line.stop();
+		line.flush();
+	}
+
+	/**
+	 * This method works alongside unpauseStream() to stop a stream and keep
+	 * its position. Audio that is already decoded stays buffered.
+	 */
+	public void pauseStream()
+	{
+		if (line == null || isStreamPaused || !playing)
+		{
+			return;
+		}
+		isStreamPaused = true;
+		line.stop();
+	}
+
+	/**
+	 * This method works alongside pauseStream() to start a stream from the
+	 * exact frame that it was paused at.
+	 */
+	public void unpauseStream()
+	{
+		if (line == null || !isStreamPaused)
+		{
+			return;
+		}
+		isStreamPaused = false;
+		line.start();
+		wake();
+	}
+
+	/**
+	 * Toggles whether or not the stream is paused by calling pauseStream() and
+	 * unpauseStream()
+	 */
+	public void togglePause()
+	{
+		if (!isStreamPaused)
+		{
+			pauseStream();
+		} else
+		{
+			unpauseStream();
+		}
+	}
+
+	/**
+	 * An alternative to startStream() that loops the stream indefinitely
+	 * between its loop points. A stream that is already playing keeps playing
+	 * and loops when it reaches the loop end.
+	 */
+	public synchronized void loopStream()
+	{
+		if (line == null)
+		{
+			return;
+		}
+		if (!playing)
+		{
+			startStream();
+		}
+		looping = true;
+		wake();
+	}
+
+	/**
+	 * Sets the part of the track that loopStream() repeats. Loop points that
+	 * would make an empty loop are ignored.
+	 * 
+	 * @param start
+	 *            The first frame of the loop
+	 * @param end
+	 *            The frame the loop ends before, or -1 for the end of the
+	 *            track
+	 */
+	public void setLoopPoints(long start, long end)
+	{
+		start = Math.max(0, start);
+		long trackEnd = frameLength == AudioSystem.NOT_SPECIFIED ? Long.MAX_VALUE : frameLength;
+		if ((end >= 0 && end <= start) || start >= trackEnd || end < -1)
+		{
+			System.out.println("Invalid loop points " + start + " - " + end + " for " + location);
+			return;
+		}
+		loopStart = start;
+		loopEnd = end;
+	}
+
+	/**
+	 * Stops the stream, ends its threads and closes the file. The stream can
+	 * not be played again afterwards.
+	 */
+	public void closeStream()
+	{
+		if (line == null)
+		{
+			return;
+		}
+		stopStream();
+		closed = true;
+		wake();
+		try
+		{
+			decoder.join();
+			feeder.join();
+		} catch (InterruptedException e)
+		{
+			e.printStackTrace();
+		}
+		line.close();
+	}
+
+	/**
+	 * Adjusts the gain of a stream
+	 * 
+	 * @param volume
+	 *            The desired volume of a stream (-80.0 - 6.0206)
+	 */
+	public void setVolume(float volume)
+	{
+		gain.setValue(volume);
+	}
+
+	public float getVolume()
+	{
+		return gain.getValue();
+	}
+
+	public boolean isStreamPaused()
+	{
+		return isStreamPaused;
+	}
+
+	public boolean isPlaying()
+	{
+		return playing;
+	}
+
+	public boolean isLooping()
+	{
+		return looping;
+	}
+
+	public long getLoopStart()
+	{
+		return loopStart;
+	}
+
+	public long getLoopEnd()
+	{
+		return loopEnd;
+	}
+
+	/**
+	 * Gets the number of bytes of decoded audio the stream holds
+	 * 
+	 * @return The size of the ring buffer in bytes
+	 */
+	public int getBufferSize()
+	{
+		return ring == null ? 0 : ring.length;
+	}
+
+}
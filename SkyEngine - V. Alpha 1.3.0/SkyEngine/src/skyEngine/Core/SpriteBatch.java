@@ -0,0 +1,463 @@
+package skyEngine.Core;
+
+import static org.lwjgl.opengl.GL11.GL_BLEND;
+import static org.lwjgl.opengl.GL11.GL_COLOR_ARRAY;
+import static org.lwjgl.opengl.GL11.GL_COLOR_BUFFER_BIT;
+import static org.lwjgl.opengl.GL11.GL_DEPTH_BUFFER_BIT;
+import static org.lwjgl.opengl.GL11.GL_LINEAR;
+import static org.lwjgl.opengl.GL11.GL_NEAREST;
+import static org.lwjgl.opengl.GL11.GL_QUADS;
+import static org.lwjgl.opengl.GL11.GL_REPEAT;
+import static org.lwjgl.opengl.GL11.GL_TEXTURE_2D;
+import static org.lwjgl.opengl.GL11.GL_TEXTURE_COORD_ARRAY;
+import static org.lwjgl.opengl.GL11.GL_TEXTURE_WRAP_S;
+import static org.lwjgl.opengl.GL11.GL_TEXTURE_WRAP_T;
+import static org.lwjgl.opengl.GL11.GL_VERTEX_ARRAY;
+import static org.lwjgl.opengl.GL11.glClear;
+import static org.lwjgl.opengl.GL11.glColorPointer;
+import static org.lwjgl.opengl.GL11.glDrawArrays;
+import static org.lwjgl.opengl.GL11.glTexCoordPointer;
+import static org.lwjgl.opengl.GL11.glTexParameteri;
+import static org.lwjgl.opengl.GL11.glVertexPointer;
+import static org.lwjgl.opengl.GL12.GL_CLAMP_TO_EDGE;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+
+import org.lwjgl.BufferUtils;
+import org.newdawn.slick.opengl.ImageData;
+import org.newdawn.slick.opengl.InternalTextureLoader;
+import org.newdawn.slick.opengl.Texture;
+import org.newdawn.slick.opengl.TextureLoader;
+import org.newdawn.slick.util.ResourceLoader;
+
+import skyEngine.RenderingUtilities.BlendMode;
+import skyEngine.RenderingUtilities.GLStateCache;
+
+public class SpriteBatch implements RenderBackend
+{
+
+	// Vertex layout (x, y, u, v, r, g, b, a)
+	private static final int VERTEX_SIZE = 8;
+	private static final int VERTEX_STRIDE = VERTEX_SIZE * 4;
+	private static final int QUAD_SIZE = VERTEX_SIZE * 4;
+
+	// The batch that most recently received a quad
+	private static SpriteBatch activeBatch;
+
+	// Vertex data
+	private final int maxQuads;
+	private final float[] vertices;
+	private final FloatBuffer vertexBuffer;
+	private int quadCount = 0;
+
+	// Current batch state
+	private Texture currentTexture = null;
+	private boolean currentInterpolation = true;
+	private BlendMode currentBlendMode = BlendMode.Alpha;
+	private BlendMode blendMode = BlendMode.Alpha;
+
+	// Statistics
+	private int flushCount = 0;
+	private int quadsSubmitted = 0;
+
+	/**
+	 * Creates a SpriteBatch that can hold 4096 quads before it is forced to
+	 * flush
+	 */
+	public SpriteBatch()
+	{
+		this(4096);
+	}
+
+	/**
+	 * Creates a SpriteBatch that can hold a specified number of quads before it
+	 * is forced to flush
+	 * 
+	 * @param maxQuads
+	 *            The number of quads the vertex buffer can hold
+	 */
+	public SpriteBatch(int maxQuads)
+	{
+		if (maxQuads < 1)
+		{
+			maxQuads = 1;
+		}
+		this.maxQuads = maxQuads;
+		vertices = new float[maxQuads * QUAD_SIZE];
+		vertexBuffer = BufferUtils.createFloatBuffer(maxQuads * QUAD_SIZE);
+	}
+
+	/**
+	 * Adds a colored quad to the batch
+	 * 
+	 * @param x
+	 *            Upper left X coordinate
+	 * @param y
+	 *            Upper left Y coordinate
+	 * @param width
+	 *            Width of the quad
+	 * @param height
+	 *            Height of the quad
+	 * @param r
+	 *            Red (0-255)
+	 * @param g
+	 *            Green (0-255)
+	 * @param b
+	 *            Blue (0-255)
+	 * @param a
+	 *            Alpha [Transparency] (0-255)
+	 * @param degrees
+	 *            The number of degrees (clockwise) to rotate the quad
+	 */
+	public void drawColorQuad(float x, float y, float width, float height, float r, float g, float b, float a,
+			float degrees)
+	{
+		drawQuad(null, true, x, y, width, height, 0, 0, 0, 0, r / 255, g / 255, b / 255, a / 255, degrees);
+	}
+
+	/**
+	 * Adds a textured quad to the batch. If the texture is a TextureRegion, the
+	 * texture coordinates are relative to the region.
+	 * 
+	 * @param tex
+	 *            The texture to be displayed with the quad
+	 * @param interpolation
+	 *            Should the renderer use interpolation when scaling the texture
+	 * @param x
+	 *            Upper-left X coordinate
+	 * @param y
+	 *            Upper-left Y coordinate
+	 * @param width
+	 *            The width of the quad to be rendered
+	 * @param height
+	 *            The height of the quad to be rendered
+	 * @param u0
+	 *            Left texture coordinate
+	 * @param v0
+	 *            Top texture coordinate
+	 * @param u1
+	 *            Right texture coordinate
+	 * @param v1
+	 *            Bottom texture coordinate
+	 * @param degrees
+	 *            The number of degrees (clockwise) to rotate the texture
+	 */
+	public void drawTextureQuad(Texture tex, boolean interpolation, float x, float y, float width, float height,
+			float u0, float v0, float u1, float v1, float degrees)
+	{
+		drawQuad(tex, interpolation, x, y, width, height, u0, v0, u1, v1, 1f, 1f, 1f, 1f, degrees);
+	}
+
+	/**
+	 * Writes the four vertices of a quad into the vertex array, flushing first
+	 * if the quad needs different state than the quads already in the batch
+	 * 
+	 * @param tex
+	 *            The texture of the quad or null for a colored quad
+	 * @param interpolation
+	 *            Should the renderer use interpolation when scaling the texture
+	 * @param x
+	 *            Upper-left X coordinate
+	 * @param y
+	 *            Upper-left Y coordinate
+	 * @param width
+	 *            Width of the quad
+	 * @param height
+	 *            Height of the quad
+	 * @param u0
+	 *            Left texture coordinate
+	 * @param v0
+	 *            Top texture coordinate
+	 * @param u1
+	 *            Right texture coordinate
+	 * @param v1
+	 *            Bottom texture coordinate
+	 * @param r
+	 *            Red (0-1)
+	 * @param g
+	 *            Green (0-1)
+	 * @param b
+	 *            Blue (0-1)
+	 * @param a
+	 *            Alpha (0-1)
+	 * @param degrees
+	 *            The number of degrees (clockwise) to rotate the quad
+	 */
+	public void drawQuad(Texture tex, boolean interpolation, float x, float y, float width, float height, float u0,
+			float v0, float u1, float v1, float r, float g, float b, float a, float degrees)
+	{
+		if (tex instanceof TextureRegion)
+		{
+			// Regions of the same page share a batch
+			TextureRegion region = (TextureRegion) tex;
+			tex = region.getPage();
+			u0 = region.mapU(u0);
+			v0 = region.mapV(v0);
+			u1 = region.mapU(u1);
+			v1 = region.mapV(v1);
+		}
+		if (quadCount > 0 && (tex != currentTexture || blendMode != currentBlendMode
+				|| (tex != null && interpolation != currentInterpolation)))
+		{
+			flush();
+		}
+		if (quadCount == maxQuads)
+		{
+			flush();
+		}
+		if (activeBatch != this && activeBatch != null)
+		{
+			activeBatch.flush();
+		}
+		activeBatch = this;
+		currentTexture = tex;
+		currentInterpolation = interpolation;
+		currentBlendMode = blendMode;
+
+		float x0 = x;
+		float y0 = y;
+		float x1 = x + width;
+		float y1 = y;
+		float x2 = x + width;
+		float y2 = y + height;
+		float x3 = x;
+		float y3 = y + height;
+
+		if (degrees != 0)
+		{
+			// Rotate the corners around the center of the quad on the CPU so
+			// that rotated quads can share a batch with unrotated ones
+			double radians = Math.toRadians(degrees);
+			float cos = (float) Math.cos(radians);
+			float sin = (float) Math.sin(radians);
+			float halfWidth = width / 2;
+			float halfHeight = height / 2;
+			float centerX = x + halfWidth;
+			float centerY = y + halfHeight;
+
+			x0 = centerX - halfWidth * cos + halfHeight * sin;
+			y0 = centerY - halfWidth * sin - halfHeight * cos;
+			x1 = centerX + halfWidth * cos + halfHeight * sin;
+			y1 = centerY + halfWidth * sin - halfHeight * cos;
+			x2 = centerX + halfWidth * cos - halfHeight * sin;
+			y2 = centerY + halfWidth * sin + halfHeight * cos;
+			x3 = centerX - halfWidth * cos - halfHeight * sin;
+			y3 = centerY - halfWidth * sin + halfHeight * cos;
+		}
+
+		int i = quadCount * QUAD_SIZE;
+		i = putVertex(i, x0, y0, u0, v0, r, g, b, a);
+		i = putVertex(i, x1, y1, u1, v0, r, g, b, a);
+		i = putVertex(i, x2, y2, u1, v1, r, g, b, a);
+		putVertex(i, x3, y3, u0, v1, r, g, b, a);
+		quadCount++;
+	}
+
+	/**
+	 * Writes a single vertex into the vertex array
+	 * 
+	 * @return The index after the written vertex
+	 */
+	private int putVertex(int i, float x, float y, float u, float v, float r, float g, float b, float a)
+	{
+		vertices[i] = x;
+		vertices[i + 1] = y;
+		vertices[i + 2] = u;
+		vertices[i + 3] = v;
+		vertices[i + 4] = r;
+		vertices[i + 5] = g;
+		vertices[i + 6] = b;
+		vertices[i + 7] = a;
+		return i + VERTEX_SIZE;
+	}
+
+	/**
+	 * Sends every quad in the batch to OpenGL with a single draw call and
+	 * empties the batch
+	 */
+	public void flush()
+	{
+		if (activeBatch == this)
+		{
+			activeBatch = null;
+		}
+		if (quadCount == 0)
+		{
+			return;
+		}
+
+		vertexBuffer.clear();
+		vertexBuffer.put(vertices, 0, quadCount * QUAD_SIZE);
+
+		// Only state that differs from the previous flush reaches OpenGL
+		GLStateCache.enable(GL_BLEND);
+		GLStateCache.setBlendMode(currentBlendMode);
+		GLStateCache.enableClientState(GL_VERTEX_ARRAY);
+		GLStateCache.enableClientState(GL_COLOR_ARRAY);
+		if (currentTexture != null)
+		{
+			GLStateCache.enable(GL_TEXTURE_2D);
+			GLStateCache.bindTexture(currentTexture);
+			GLStateCache.setTextureFilter(currentTexture, currentInterpolation ? GL_LINEAR : GL_NEAREST);
+			GLStateCache.enableClientState(GL_TEXTURE_COORD_ARRAY);
+		} else
+		{
+			GLStateCache.disable(GL_TEXTURE_2D);
+			GLStateCache.disableClientState(GL_TEXTURE_COORD_ARRAY);
+		}
+
+		vertexBuffer.position(0);
+		glVertexPointer(2, VERTEX_STRIDE, vertexBuffer);
+		vertexBuffer.position(4);
+		glColorPointer(4, VERTEX_STRIDE, vertexBuffer);
+		if (currentTexture != null)
+		{
+			vertexBuffer.position(2);
+			glTexCoordPointer(2, VERTEX_STRIDE, vertexBuffer);
+		}
+
+		glDrawArrays(GL_QUADS, 0, quadCount * 4);
+
+		quadsSubmitted += quadCount;
+		flushCount++;
+		quadCount = 0;
+	}
+
+	/**
+	 * Flushes whichever batch has quads waiting to be drawn. Code that draws
+	 * with OpenGL directly (such as SkyFont) calls this first so that it is
+	 * drawn on top of everything that was batched before it.
+	 */
+	public static void flushActive()
+	{
+		if (activeBatch != null)
+		{
+			activeBatch.flush();
+		}
+	}
+
+	/**
+	 * Sets the blend mode used by quads that are drawn after this call
+	 * 
+	 * @param blendMode
+	 *            The desired blend mode
+	 */
+	public void setBlendMode(BlendMode blendMode)
+	{
+		this.blendMode = blendMode;
+	}
+
+	/**
+	 * Flushes the batch and clears the screen of color and depth data
+	 */
+	public void clear()
+	{
+		flush();
+		glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
+	}
+
+	/**
+	 * Flushes the batch and sets the wrap mode of the bound texture
+	 * 
+	 * @param clamp
+	 *            True to clamp the texture to the edge of the quad, false to
+	 *            repeat it
+	 */
+	public void setTextureClamping(boolean clamp)
+	{
+		flush();
+		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_S, clamp ? GL_CLAMP_TO_EDGE : GL_REPEAT);
+		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_T, clamp ? GL_CLAMP_TO_EDGE : GL_REPEAT);
+	}
+
+	/**
+	 * Lets the GLStateCache count the state changes of the frame
+	 */
+	public void endFrame()
+	{
+		GLStateCache.endFrame();
+	}
+
+	/**
+	 * Loads a texture from a resource into OpenGL
+	 * 
+	 * @param path
+	 *            The path to the texture resource
+	 * @param format
+	 *            The format of the image (such as PNG or GIF)
+	 * @return The loaded texture
+	 * @throws IOException
+	 *             If the image could not be read
+	 */
+	public Texture loadTexture(String path, String format) throws IOException
+	{
+		Texture tex = TextureLoader.getTexture(format, ResourceLoader.getResourceAsStream(path));
+		// Slick binds the new texture directly
+		GLStateCache.invalidateTextureBinding();
+		return tex;
+	}
+
+	/**
+	 * Uploads a decoded image to OpenGL
+	 * 
+	 * @param image
+	 *            The decoded image
+	 * @return The uploaded texture
+	 * @throws IOException
+	 *             If the texture could not be created
+	 */
+	public Texture createTexture(ImageData image) throws IOException
+	{
+		Texture tex = InternalTextureLoader.get().getTexture(image, GL_LINEAR);
+		GLStateCache.invalidateTextureBinding();
+		return tex;
+	}
+
+	/**
+	 * Deletes a texture from OpenGL
+	 * 
+	 * @param tex
+	 *            The texture to delete
+	 */
+	public void releaseTexture(Texture tex)
+	{
+		GLStateCache.forgetTexture(tex);
+		tex.release();
+	}
+
+	/**
+	 * Resets the flush and quad counters, typically once per frame
+	 */
+	public void resetStatistics()
+	{
+		flushCount = 0;
+		quadsSubmitted = 0;
+	}
+
+	public BlendMode getBlendMode()
+	{
+		return blendMode;
+	}
+
+	public int getMaxQuads()
+	{
+		return maxQuads;
+	}
+
+	public int getQuadCount()
+	{
+		return quadCount;
+	}
+
+	public int getFlushCount()
+	{
+		return flushCount;
+	}
+
+	public int getQuadsSubmitted()
+	{
+		return quadsSubmitted;
+	}
+
+}
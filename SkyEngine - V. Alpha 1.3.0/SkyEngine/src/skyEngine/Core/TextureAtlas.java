@@ -0,0 +1,323 @@
+package skyEngine.Core;
+
+import static org.lwjgl.opengl.GL11.GL_LINEAR;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+
+import org.lwjgl.BufferUtils;
+import org.newdawn.slick.opengl.ImageData;
+import org.newdawn.slick.opengl.InternalTextureLoader;
+import org.newdawn.slick.opengl.Texture;
+
+import skyEngine.RenderingUtilities.GLStateCache;
+import skyEngine.RenderingUtilities.SkylinePacker;
+
+public class TextureAtlas
+{
+
+	// Pixels of edge color repeated around every image so that linear
+	// filtering does not pick up the neighboring image
+	private static final int PADDING = 1;
+
+	private int pageWidth;
+	private int pageHeight;
+
+	// Images that have been added but not packed yet
+	private ArrayList<String> pendingNames = new ArrayList<String>();
+	private ArrayList<String> pendingPaths = new ArrayList<String>();
+
+	// Packed pages and regions
+	private ArrayList<Texture> pages = new ArrayList<Texture>();
+	private HashMap<String, TextureRegion> regions = new HashMap<String, TextureRegion>();
+
+	/**
+	 * Creates a TextureAtlas with 2048x2048 pages
+	 */
+	public TextureAtlas()
+	{
+		this(2048, 2048);
+	}
+
+	/**
+	 * Creates a TextureAtlas with pages of a specified size. The size is
+	 * rounded up to a power of two.
+	 * 
+	 * @param pageWidth
+	 *            Width of each page in pixels
+	 * @param pageHeight
+	 *            Height of each page in pixels
+	 */
+	public TextureAtlas(int pageWidth, int pageHeight)
+	{
+		this.pageWidth = InternalTextureLoader.get2Fold(pageWidth);
+		this.pageHeight = InternalTextureLoader.get2Fold(pageHeight);
+	}
+
+	/**
+	 * Adds an image to the atlas. The image is not loaded until pack() is
+	 * called. The path of the image is used as the name of its region.
+	 * 
+	 * @param path
+	 *            The path to the image resource
+	 */
+	public void addImage(String path)
+	{
+		addImage(path, path);
+	}
+
+	/**
+	 * Adds an image to the atlas. The image is not loaded until pack() is
+	 * called.
+	 * 
+	 * @param name
+	 *            The name used to get the region of the image
+	 * @param path
+	 *            The path to the image resource
+	 */
+	public void addImage(String name, String path)
+	{
+		pendingNames.add(name);
+		pendingPaths.add(path);
+	}
+
+	/**
+	 * Loads every image that was added since the last call, packs them onto as
+	 * few pages as possible and uploads the pages to OpenGL. Images that fail
+	 * to load are skipped.
+	 */
+	public void pack()
+	{
+		int count = pendingPaths.size();
+		final ImageData[] images = new ImageData[count];
+		Integer[] order = new Integer[count];
+		for (int i = 0; i < count; i++)
+		{
+			images[i] = Renderer.decodeImage(pendingPaths.get(i));
+			order[i] = i;
+		}
+
+		// Packing tall images first keeps the skyline flat
+		Arrays.sort(order, new Comparator<Integer>()
+		{
+			public int compare(Integer a, Integer b)
+			{
+				return height(images[b]) - height(images[a]);
+			}
+		});
+
+		SkylinePacker packer = null;
+		ByteBuffer pagePixels = null;
+		ArrayList<String> pageNames = new ArrayList<String>();
+		ArrayList<int[]> pageRects = new ArrayList<int[]>();
+
+		for (int i = 0; i < count; i++)
+		{
+			ImageData image = images[order[i]];
+			if (image == null)
+			{
+				continue;
+			}
+			int paddedWidth = image.getWidth() + PADDING * 2;
+			int paddedHeight = image.getHeight() + PADDING * 2;
+
+			if (packer == null || !packer.insert(paddedWidth, paddedHeight))
+			{
+				if (packer != null)
+				{
+					uploadPage(packer, pagePixels, pageNames, pageRects);
+				}
+
+				// Images too large for a normal page get a page of their own
+				packer = new SkylinePacker(Math.max(pageWidth, InternalTextureLoader.get2Fold(paddedWidth)),
+						Math.max(pageHeight, InternalTextureLoader.get2Fold(paddedHeight)));
+				pagePixels = BufferUtils.createByteBuffer(packer.getWidth() * packer.getHeight() * 4);
+				packer.insert(paddedWidth, paddedHeight);
+			}
+
+			copyImage(image, pagePixels, packer.getWidth(), packer.getPackedX(), packer.getPackedY());
+			pageNames.add(pendingNames.get(order[i]));
+			pageRects.add(new int[] { packer.getPackedX() + PADDING, packer.getPackedY() + PADDING,
+					image.getWidth(), image.getHeight() });
+		}
+
+		if (packer != null)
+		{
+			uploadPage(packer, pagePixels, pageNames, pageRects);
+		}
+
+		pendingNames.clear();
+		pendingPaths.clear();
+	}
+
+	/**
+	 * Gets the height of an image that might not have loaded
+	 */
+	private static int height(ImageData image)
+	{
+		if (image == null)
+		{
+			return 0;
+		}
+		return image.getHeight();
+	}
+
+	/**
+	 * Copies an image into the pixels of a page as RGBA and repeats its edge
+	 * pixels into the padding around it
+	 */
+	private void copyImage(ImageData image, ByteBuffer page, int pageStride, int packedX, int packedY)
+	{
+		ByteBuffer source = image.getImageBufferData();
+		int bytesPerPixel = image.getDepth() / 8;
+		int sourceStride = image.getTexWidth() * bytesPerPixel;
+		int width = image.getWidth();
+		int height = image.getHeight();
+
+		for (int row = -PADDING; row < height + PADDING; row++)
+		{
+			int sourceRow = Math.min(Math.max(row, 0), height - 1);
+			int destination = ((packedY + PADDING + row) * pageStride + packedX) * 4;
+			for (int column = -PADDING; column < width + PADDING; column++)
+			{
+				int sourceColumn = Math.min(Math.max(column, 0), width - 1);
+				int s = sourceRow * sourceStride + sourceColumn * bytesPerPixel;
+				page.put(destination, source.get(s));
+				page.put(destination + 1, source.get(s + 1));
+				page.put(destination + 2, source.get(s + 2));
+				page.put(destination + 3, bytesPerPixel == 4 ? source.get(s + 3) : (byte) 255);
+				destination += 4;
+			}
+		}
+	}
+
+	/**
+	 * Uploads a finished page and creates the regions that were packed on it
+	 */
+	private void uploadPage(SkylinePacker packer, ByteBuffer pixels, ArrayList<String> names,
+			ArrayList<int[]> rects)
+	{
+		try
+		{
+			Texture page = InternalTextureLoader.get().getTexture(new AtlasPageData(packer, pixels), GL_LINEAR);
+			GLStateCache.invalidateTextureBinding();
+			pages.add(page);
+			for (int i = 0; i < names.size(); i++)
+			{
+				int[] rect = rects.get(i);
+				regions.put(names.get(i), new TextureRegion(page, names.get(i), rect[0], rect[1], rect[2], rect[3]));
+			}
+		} catch (Exception e)
+		{
+			e.printStackTrace();
+		}
+		names.clear();
+		rects.clear();
+	}
+
+	/**
+	 * Gets the region of an image that has been packed
+	 * 
+	 * @param name
+	 *            The name (or path) the image was added with
+	 * @return The region of the image or null if it is not in the atlas
+	 */
+	public TextureRegion getRegion(String name)
+	{
+		return regions.get(name);
+	}
+
+	/**
+	 * Releases the OpenGL textures of every page. Regions of the atlas must not
+	 * be drawn afterwards.
+	 */
+	public void release()
+	{
+		for (Texture page : pages)
+		{
+			GLStateCache.forgetTexture(page);
+			page.release();
+		}
+		pages.clear();
+		regions.clear();
+		GLStateCache.invalidateTextureBinding();
+	}
+
+	public int getPageCount()
+	{
+		return pages.size();
+	}
+
+	public Texture getPage(int index)
+	{
+		return pages.get(index);
+	}
+
+	public int getRegionCount()
+	{
+		return regions.size();
+	}
+
+	public int getPageWidth()
+	{
+		return pageWidth;
+	}
+
+	public int getPageHeight()
+	{
+		return pageHeight;
+	}
+
+	/**
+	 * The pixels of a packed page in the form Slick uploads to OpenGL
+	 */
+	private static class AtlasPageData implements ImageData
+	{
+
+		private int width;
+		private int height;
+		private ByteBuffer pixels;
+
+		public AtlasPageData(SkylinePacker packer, ByteBuffer pixels)
+		{
+			width = packer.getWidth();
+			height = packer.getHeight();
+			this.pixels = pixels;
+		}
+
+		public int getDepth()
+		{
+			return 32;
+		}
+
+		public int getWidth()
+		{
+			return width;
+		}
+
+		public int getHeight()
+		{
+			return height;
+		}
+
+		public int getTexWidth()
+		{
+			return width;
+		}
+
+		public int getTexHeight()
+		{
+			return height;
+		}
+
+		public ByteBuffer getImageBufferData()
+		{
+			return pixels;
+		}
+
+	}
+
+}
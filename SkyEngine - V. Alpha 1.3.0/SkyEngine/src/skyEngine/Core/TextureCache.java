@@ -0,0 +1,282 @@
+package skyEngine.Core;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import org.newdawn.slick.opengl.Texture;
+
+public class TextureCache
+{
+
+	// Creates and frees the cached textures
+	private RenderBackend backend;
+
+	// Entries in least recently used order
+	private LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true);
+	private IdentityHashMap<Texture, CacheEntry> entriesByTexture = new IdentityHashMap<Texture, CacheEntry>();
+
+	// Evicted textures that may still be waiting in the render queue; they
+	// are freed when the frame ends
+	private ArrayList<Texture> evicted = new ArrayList<Texture>();
+
+	// Memory budget for textures that are no longer referenced
+	private long budget = 256L * 1024 * 1024;
+	private long bytesResident = 0;
+
+	// Statistics
+	private long hits = 0;
+	private long misses = 0;
+	private long evictions = 0;
+
+	/**
+	 * Creates a TextureCache that loads its textures through a backend
+	 * 
+	 * @param backend
+	 *            The backend that creates and frees textures
+	 */
+	public TextureCache(RenderBackend backend)
+	{
+		this.backend = backend;
+	}
+
+	/**
+	 * Gets a texture from the cache, loading it if it is not cached. Every
+	 * call adds a reference to the texture that must be given back with
+	 * release(). A path is cached with one format, so asking for a cached
+	 * path with another format fails.
+	 * 
+	 * @param path
+	 *            The path to the texture resource
+	 * @param format
+	 *            The format of the image (such as PNG or GIF)
+	 * @return The texture or null if it could not be loaded
+	 */
+	public Texture acquire(String path, String format)
+	{
+		CacheEntry entry = entries.get(path);
+		if (entry != null)
+		{
+			if (!entry.format.equalsIgnoreCase(format))
+			{
+				System.out.println(path + " is already cached as " + entry.format + ", not " + format);
+				return null;
+			}
+			hits++;
+			entry.references++;
+			return entry.texture;
+		}
+
+		misses++;
+		Texture tex;
+		try
+		{
+			tex = backend.loadTexture(path, format);
+		} catch (Exception e)
+		{
+			e.printStackTrace();
+			return null;
+		}
+
+		entry = new CacheEntry(tex, format);
+		entry.references = 1;
+		entries.put(path, entry);
+		entriesByTexture.put(tex, entry);
+		bytesResident += entry.bytes;
+		evict(budget);
+		return tex;
+	}
+
+	/**
+	 * Gives back a reference to a cached texture. Once a texture has no
+	 * references it stays cached until it has to be evicted to stay within the
+	 * memory budget.
+	 * 
+	 * @param path
+	 *            The path the texture was acquired with
+	 */
+	public void release(String path)
+	{
+		release(entries.get(path));
+	}
+
+	/**
+	 * Gives back a reference to a cached texture. Once a texture has no
+	 * references it stays cached until it has to be evicted to stay within the
+	 * memory budget.
+	 * 
+	 * @param tex
+	 *            A texture returned by acquire()
+	 */
+	public void release(Texture tex)
+	{
+		release(entriesByTexture.get(tex));
+	}
+
+	/**
+	 * Removes a reference from an entry and evicts if the cache is over budget
+	 */
+	private void release(CacheEntry entry)
+	{
+		if (entry == null || entry.references == 0)
+		{
+			return;
+		}
+		entry.references--;
+		if (entry.references == 0)
+		{
+			evict(budget);
+		}
+	}
+
+	/**
+	 * Evicts unreferenced textures, least recently used first, until the
+	 * resident memory is within a limit. Referenced textures are never
+	 * evicted. The textures are freed by releaseEvicted() at the end of the
+	 * frame, since quads drawn with them may still be queued.
+	 * 
+	 * @param limit
+	 *            The number of bytes to shrink to
+	 */
+	private void evict(long limit)
+	{
+		Iterator<CacheEntry> iterator = entries.values().iterator();
+		while (bytesResident > limit && iterator.hasNext())
+		{
+			CacheEntry entry = iterator.next();
+			if (entry.references == 0)
+			{
+				iterator.remove();
+				entriesByTexture.remove(entry.texture);
+				bytesResident -= entry.bytes;
+				evictions++;
+				evicted.add(entry.texture);
+			}
+		}
+	}
+
+	/**
+	 * Frees the textures that were evicted since the last call. The Renderer
+	 * calls this at the end of every frame, after the render queue is drawn.
+	 */
+	void releaseEvicted()
+	{
+		for (int i = 0; i < evicted.size(); i++)
+		{
+			backend.releaseTexture(evicted.get(i));
+		}
+		evicted.clear();
+	}
+
+	/**
+	 * Evicts every texture that has no references. They are freed when the
+	 * frame ends.
+	 */
+	public void evictUnused()
+	{
+		evict(0);
+	}
+
+	/**
+	 * Resets the hit, miss and eviction counters
+	 */
+	public void resetStatistics()
+	{
+		hits = 0;
+		misses = 0;
+		evictions = 0;
+	}
+
+	/**
+	 * Gets the number of references held on a cached texture
+	 * 
+	 * @param path
+	 *            The path the texture was acquired with
+	 * @return The number of references, or 0 if the texture is not cached
+	 */
+	public int getReferenceCount(String path)
+	{
+		CacheEntry entry = entries.get(path);
+		if (entry == null)
+		{
+			return 0;
+		}
+		return entry.references;
+	}
+
+	public boolean isCached(String path)
+	{
+		return entries.containsKey(path);
+	}
+
+	public int getTextureCount()
+	{
+		return entries.size();
+	}
+
+	public long getBudget()
+	{
+		return budget;
+	}
+
+	/**
+	 * Sets how much texture memory may stay resident. Unreferenced textures are
+	 * evicted when the cache grows beyond it.
+	 * 
+	 * @param budget
+	 *            The budget in bytes
+	 */
+	public void setBudget(long budget)
+	{
+		this.budget = budget;
+		evict(budget);
+	}
+
+	/**
+	 * Gets an estimate of the video memory used by cached textures
+	 * 
+	 * @return The estimated number of bytes
+	 */
+	public long getBytesResident()
+	{
+		return bytesResident;
+	}
+
+	public long getHits()
+	{
+		return hits;
+	}
+
+	public long getMisses()
+	{
+		return misses;
+	}
+
+	public long getEvictions()
+	{
+		return evictions;
+	}
+
+	/**
+	 * A cached texture and its reference count
+	 */
+	private static class CacheEntry
+	{
+
+		private Texture texture;
+		private String format;
+		private int references = 0;
+		private long bytes;
+
+		public CacheEntry(Texture texture, String format)
+		{
+			this.texture = texture;
+			this.format = format;
+			// Textures are stored as power of two RGBA images
+			bytes = (long) texture.getTextureWidth() * texture.getTextureHeight() * 4;
+		}
+
+	}
+
+}
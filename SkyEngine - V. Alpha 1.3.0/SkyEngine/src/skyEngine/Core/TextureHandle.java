@@ -0,0 +1,104 @@
+package skyEngine.Core;
+
+import org.newdawn.slick.opengl.ImageData;
+import org.newdawn.slick.opengl.Texture;
+
+public class TextureHandle
+{
+
+	private String path;
+	private Texture placeholder;
+
+	// Written by the decoding thread, read by the render thread
+	private volatile ImageData decodedImage = null;
+	private volatile Texture texture = null;
+	private volatile boolean failed = false;
+
+	/**
+	 * Creates a handle for a texture that is still being loaded
+	 * 
+	 * @param path
+	 *            The path to the texture resource
+	 * @param placeholder
+	 *            The texture to use until loading finishes (can be null)
+	 */
+	public TextureHandle(String path, Texture placeholder)
+	{
+		this.path = path;
+		this.placeholder = placeholder;
+	}
+
+	/**
+	 * Gets the loaded texture, or the placeholder if the texture has not been
+	 * uploaded yet (or failed to load)
+	 * 
+	 * @return The texture, the placeholder or null
+	 */
+	public Texture getTexture()
+	{
+		Texture loaded = texture;
+		if (loaded != null)
+		{
+			return loaded;
+		}
+		return placeholder;
+	}
+
+	/**
+	 * Gets whether the texture has been uploaded and can be drawn
+	 * 
+	 * @return True if the texture is loaded
+	 */
+	public boolean isLoaded()
+	{
+		return texture != null;
+	}
+
+	/**
+	 * Gets whether loading has finished, successfully or not
+	 * 
+	 * @return True if the texture is loaded or failed to load
+	 */
+	public boolean isDone()
+	{
+		return texture != null || failed;
+	}
+
+	public boolean isFailed()
+	{
+		return failed;
+	}
+
+	public String getPath()
+	{
+		return path;
+	}
+
+	public Texture getPlaceholder()
+	{
+		return placeholder;
+	}
+
+	ImageData getDecodedImage()
+	{
+		return decodedImage;
+	}
+
+	void setDecodedImage(ImageData decodedImage)
+	{
+		this.decodedImage = decodedImage;
+	}
+
+	void setTexture(Texture texture)
+	{
+		this.texture = texture;
+		decodedImage = null;
+	}
+
+	void setFailed()
+	{
+		failed = true;
+		decodedImage = null;
+	}
+
+}
@@ -0,0 +1,192 @@
+package skyEngine.Core;
+
+import org.newdawn.slick.opengl.Texture;
+
+public class TextureRegion implements Texture
+{
+
+	private Texture page;
+	private String name;
+
+	// Position of the region on its page in pixels
+	private int x;
+	private int y;
+	private int width;
+	private int height;
+
+	// Texture coordinates of the region on its page
+	private float u0;
+	private float v0;
+	private float u1;
+	private float v1;
+
+	/**
+	 * Creates a region that covers part of a larger texture. A TextureRegion
+	 * can be used anywhere a Texture can; the Renderer draws only the covered
+	 * part of the page.
+	 * 
+	 * @param page
+	 *            The texture that contains the region
+	 * @param name
+	 *            The name of the region
+	 * @param x
+	 *            Left edge of the region on the page in pixels
+	 * @param y
+	 *            Top edge of the region on the page in pixels
+	 * @param width
+	 *            Width of the region in pixels
+	 * @param height
+	 *            Height of the region in pixels
+	 */
+	public TextureRegion(Texture page, String name, int x, int y, int width, int height)
+	{
+		this.page = page;
+		this.name = name;
+		this.x = x;
+		this.y = y;
+		this.width = width;
+		this.height = height;
+		u0 = (float) x / page.getTextureWidth();
+		v0 = (float) y / page.getTextureHeight();
+		u1 = (float) (x + width) / page.getTextureWidth();
+		v1 = (float) (y + height) / page.getTextureHeight();
+	}
+
+	/**
+	 * Converts a horizontal texture coordinate of the region (0-1) into a
+	 * texture coordinate of the page
+	 * 
+	 * @param u
+	 *            Texture coordinate inside the region
+	 * @return Texture coordinate inside the page
+	 */
+	public float mapU(float u)
+	{
+		return u0 + (u1 - u0) * u;
+	}
+
+	/**
+	 * Converts a vertical texture coordinate of the region (0-1) into a texture
+	 * coordinate of the page
+	 * 
+	 * @param v
+	 *            Texture coordinate inside the region
+	 * @return Texture coordinate inside the page
+	 */
+	public float mapV(float v)
+	{
+		return v0 + (v1 - v0) * v;
+	}
+
+	/**
+	 * Binds the page that contains the region
+	 */
+	public void bind()
+	{
+		page.bind();
+	}
+
+	/**
+	 * The page is owned by its TextureAtlas, so releasing a single region does
+	 * nothing. Use TextureAtlas.release() instead.
+	 */
+	public void release()
+	{
+	}
+
+	public boolean hasAlpha()
+	{
+		return page.hasAlpha();
+	}
+
+	public String getTextureRef()
+	{
+		return name;
+	}
+
+	public int getImageHeight()
+	{
+		return height;
+	}
+
+	public int getImageWidth()
+	{
+		return width;
+	}
+
+	public float getHeight()
+	{
+		return 1f;
+	}
+
+	public float getWidth()
+	{
+		return 1f;
+	}
+
+	public int getTextureHeight()
+	{
+		return height;
+	}
+
+	public int getTextureWidth()
+	{
+		return width;
+	}
+
+	public int getTextureID()
+	{
+		return page.getTextureID();
+	}
+
+	public byte[] getTextureData()
+	{
+		return page.getTextureData();
+	}
+
+	public void setTextureFilter(int textureFilter)
+	{
+		page.setTextureFilter(textureFilter);
+	}
+
+	public Texture getPage()
+	{
+		return page;
+	}
+
+	public String getName()
+	{
+		return name;
+	}
+
+	public int getX()
+	{
+		return x;
+	}
+
+	public int getY()
+	{
+		return y;
+	}
+
+	public float getU0()
+	{
+		return u0;
+	}
+
+	public float getV0()
+	{
+		return v0;
+	}
+
+	public float getU1()
+	{
+		return u1;
+	}
+
+	public float getV1()
+	{
+		return v1;
+	}
+
+}
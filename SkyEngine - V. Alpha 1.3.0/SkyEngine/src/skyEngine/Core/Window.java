@@ -14,6 +14,7 @@ import org.lwjgl.opengl.Display;
 import org.lwjgl.opengl.DisplayMode;
 
 import skyEngine.RenderingUtilities.AntiAliasing;
+import skyEngine.RenderingUtilities.GLStateCache;
 import skyEngine.RenderingUtilities.VSync;
 
 public class Window
@@ -36,6 +37,10 @@ public class Window
 	private static int viewportX;
 	private static int viewportY;
 
+	// Window to design coordinate transform, replaced whenever the viewport
+	// changes
+	private static volatile ViewTransform viewTransform = null;
+
 	// Setting Variables
 	private static boolean fullscreen;
 
@@ -207,16 +212,108 @@ public class Window
 		viewportX = (windowWidth / 2) - (renderedWidth / 2);
 		viewportY = (windowHeight / 2) - (renderedHeight / 2);
 		glViewport(viewportX, viewportY, renderedWidth, renderedHeight);
+		viewTransform = new ViewTransform((double) designWidth / renderedWidth,
+				(double) designHeight / renderedHeight, viewportX, viewportY + renderedHeight);
+	}
+
+	/**
+	 * Converts an X-coordinate in the window to design coordinates, using the
+	 * transform computed when the viewport was last set
+	 * 
+	 * @param windowX
+	 *            X-coordinate in window pixels
+	 * @return X-coordinate in design coordinates
+	 */
+	public static int toDesignX(int windowX)
+	{
+		ViewTransform transform = viewTransform;
+		if (transform == null)
+		{
+			return windowX;
+		}
+		return (int) ((windowX - transform.left) * transform.scaleX);
+	}
+
+	/**
+	 * Converts a Y-coordinate in the window to design coordinates, using the
+	 * transform computed when the viewport was last set
+	 * 
+	 * @param windowY
+	 *            Y-coordinate in window pixels, counted up from the bottom
+	 *            like LWJGL does
+	 * @return Y-coordinate in design coordinates, counted down from the top
+	 */
+	public static int toDesignY(int windowY)
+	{
+		ViewTransform transform = viewTransform;
+		if (transform == null)
+		{
+			return windowY;
+		}
+		return (int) ((transform.top - windowY) * transform.scaleY);
+	}
+
+	/**
+	 * Converts an X-coordinate in design coordinates to window pixels
+	 * 
+	 * @param designX
+	 *            X-coordinate in design coordinates
+	 * @return X-coordinate in window pixels
+	 */
+	public static int toWindowX(int designX)
+	{
+		ViewTransform transform = viewTransform;
+		if (transform == null)
+		{
+			return designX;
+		}
+		return (int) (designX / transform.scaleX + transform.left);
+	}
+
+	/**
+	 * Converts a Y-coordinate in design coordinates to window pixels
+	 * 
+	 * @param designY
+	 *            Y-coordinate in design coordinates, counted down from the top
+	 * @return Y-coordinate in window pixels, counted up from the bottom
+	 */
+	public static int toWindowY(int designY)
+	{
+		ViewTransform transform = viewTransform;
+		if (transform == null)
+		{
+			return designY;
+		}
+		return (int) (transform.top - designY / transform.scaleY);
 	}
 
 	/**
 	 * This method is used to update the window every frame and makes sure it
-	 * doesn't crash
+	 * doesn't crash. Frame pacing is done by the GameContainer.
 	 */
 	public void update()
 	{
 		Display.update();
-		Display.sync(Display.getDesktopDisplayMode().getFrequency());
+	}
+
+	/**
+	 * Presents the frame without reading the operating system's window and
+	 * input messages. This can wait for the vertical sync, so it should be
+	 * used with processMessages() when another thread reads Input.
+	 */
+	public void swapBuffers()
+	{
+		Display.update(false);
+	}
+
+	/**
+	 * Reads the operating system's window messages and polls the keyboard,
+	 * mouse and controllers. Together with swapBuffers() this does the same
+	 * as update().
+	 */
+	public void processMessages()
+	{
+		Display.processMessages();
 	}
 
 	/**
@@ -545,6 +642,8 @@ public class Window
 	 */
 	public static void setViewParameters()
 	{
+		GLStateCache.invalidate();
+		GLStateCache.invalidateTextures();
 		adjustRenderArea();
 		adjustViewport();
 		glMatrixMode(GL_PROJECTION);
@@ -558,4 +657,29 @@ public class Window
 		return fullscreen;
 	}
 
+	/**
+	 * The scale and offset between window pixels and design coordinates. It
+	 * is immutable so the update thread never sees half of a new transform.
+	 */
+	private static class ViewTransform
+	{
+
+		// Design units per window pixel
+		private final double scaleX;
+		private final double scaleY;
+
+		// Window pixels of the left and top edge of the viewport
+		private final int left;
+		private final int top;
+
+		public ViewTransform(double scaleX, double scaleY, int left, int top)
+		{
+			this.scaleX = scaleX;
+			this.scaleY = scaleY;
+			this.left = left;
+			this.top = top;
+		}
+
+	}
+
 }
@@ -57,6 +57,7 @@ public class DynamicInventory
 			{
 				inventory.remove(i);
 				i--;
+				length--;
 			}
 		}
 	}
@@ -78,6 +79,7 @@ public class DynamicInventory
 			{
 				inventory.remove(i);
 				i--;
+				length--;
 			}
 		}
 	}
@@ -99,6 +101,7 @@ public class DynamicInventory
 			{
 				inventory.remove(i);
 				i--;
+				length--;
 			}
 		}
 	}
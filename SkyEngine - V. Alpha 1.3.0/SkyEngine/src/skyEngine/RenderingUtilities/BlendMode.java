@@ -0,0 +1,33 @@
+package skyEngine.RenderingUtilities;
+
+import static org.lwjgl.opengl.GL11.GL_DST_COLOR;
+import static org.lwjgl.opengl.GL11.GL_ONE;
+import static org.lwjgl.opengl.GL11.GL_ONE_MINUS_SRC_ALPHA;
+import static org.lwjgl.opengl.GL11.GL_SRC_ALPHA;
+
+public enum BlendMode
+{
+	Alpha(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA),
+	Additive(GL_SRC_ALPHA, GL_ONE),
+	Multiply(GL_DST_COLOR, GL_ONE_MINUS_SRC_ALPHA);
+
+	private final int sourceFactor;
+	private final int destinationFactor;
+
+	private BlendMode(int sourceFactor, int destinationFactor)
+	{
+		this.sourceFactor = sourceFactor;
+		this.destinationFactor = destinationFactor;
+	}
+
+	public int getSourceFactor()
+	{
+		return sourceFactor;
+	}
+
+	public int getDestinationFactor()
+	{
+		return destinationFactor;
+	}
+
+}
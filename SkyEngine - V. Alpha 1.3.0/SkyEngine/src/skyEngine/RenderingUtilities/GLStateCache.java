@@ -0,0 +1,335 @@
+package skyEngine.RenderingUtilities;
+
+import static org.lwjgl.opengl.GL11.GL_BLEND;
+import static org.lwjgl.opengl.GL11.GL_COLOR_ARRAY;
+import static org.lwjgl.opengl.GL11.GL_TEXTURE_2D;
+import static org.lwjgl.opengl.GL11.GL_TEXTURE_COORD_ARRAY;
+import static org.lwjgl.opengl.GL11.GL_TEXTURE_MAG_FILTER;
+import static org.lwjgl.opengl.GL11.GL_TEXTURE_MIN_FILTER;
+import static org.lwjgl.opengl.GL11.GL_VERTEX_ARRAY;
+import static org.lwjgl.opengl.GL11.glBlendFunc;
+import static org.lwjgl.opengl.GL11.glDisable;
+import static org.lwjgl.opengl.GL11.glDisableClientState;
+import static org.lwjgl.opengl.GL11.glEnable;
+import static org.lwjgl.opengl.GL11.glEnableClientState;
+import static org.lwjgl.opengl.GL11.glTexParameteri;
+
+import java.util.Arrays;
+
+import org.newdawn.slick.opengl.Texture;
+import org.newdawn.slick.opengl.TextureImpl;
+
+public class GLStateCache
+{
+
+	// Shadow state values
+	private static final byte UNKNOWN = 0;
+	private static final byte ENABLED = 1;
+	private static final byte DISABLED = 2;
+
+	// OpenGL hands out small texture IDs, so filters are only remembered for
+	// IDs below this; larger IDs (such as those of a HeadlessTexture) always
+	// set their filter instead of growing the table
+	private static final int MAX_CACHED_TEXTURE_ID = 65536;
+
+	// Capabilities and client states that are tracked
+	private static final int[] trackedCaps = { GL_BLEND, GL_TEXTURE_2D };
+	private static final int[] trackedClientStates = { GL_VERTEX_ARRAY, GL_COLOR_ARRAY, GL_TEXTURE_COORD_ARRAY };
+	private static byte[] capStates = new byte[trackedCaps.length];
+	private static byte[] clientStates = new byte[trackedClientStates.length];
+
+	// Blending and texture state
+	private static BlendMode blendMode = null;
+	private static int boundTextureID = -1;
+	private static int[] textureFilters = new int[64];
+
+	// Statistics
+	private static int callsElided = 0;
+	private static int callsIssued = 0;
+	private static int lastFrameCallsElided = 0;
+	private static int lastFrameCallsIssued = 0;
+
+	/**
+	 * Enables an OpenGL capability if it is not already enabled
+	 * 
+	 * @param cap
+	 *            The capability (such as GL_BLEND)
+	 */
+	public static void enable(int cap)
+	{
+		int index = indexOf(trackedCaps, cap);
+		if (index >= 0 && capStates[index] == ENABLED)
+		{
+			callsElided++;
+			return;
+		}
+		glEnable(cap);
+		callsIssued++;
+		if (index >= 0)
+		{
+			capStates[index] = ENABLED;
+		}
+	}
+
+	/**
+	 * Disables an OpenGL capability if it is not already disabled
+	 * 
+	 * @param cap
+	 *            The capability (such as GL_BLEND)
+	 */
+	public static void disable(int cap)
+	{
+		int index = indexOf(trackedCaps, cap);
+		if (index >= 0 && capStates[index] == DISABLED)
+		{
+			callsElided++;
+			return;
+		}
+		glDisable(cap);
+		callsIssued++;
+		if (index >= 0)
+		{
+			capStates[index] = DISABLED;
+		}
+	}
+
+	/**
+	 * Enables an OpenGL client state (vertex array) if it is not already
+	 * enabled
+	 * 
+	 * @param state
+	 *            The client state (such as GL_VERTEX_ARRAY)
+	 */
+	public static void enableClientState(int state)
+	{
+		int index = indexOf(trackedClientStates, state);
+		if (index >= 0 && clientStates[index] == ENABLED)
+		{
+			callsElided++;
+			return;
+		}
+		glEnableClientState(state);
+		callsIssued++;
+		if (index >= 0)
+		{
+			clientStates[index] = ENABLED;
+		}
+	}
+
+	/**
+	 * Disables an OpenGL client state (vertex array) if it is not already
+	 * disabled
+	 * 
+	 * @param state
+	 *            The client state (such as GL_VERTEX_ARRAY)
+	 */
+	public static void disableClientState(int state)
+	{
+		int index = indexOf(trackedClientStates, state);
+		if (index >= 0 && clientStates[index] == DISABLED)
+		{
+			callsElided++;
+			return;
+		}
+		glDisableClientState(state);
+		callsIssued++;
+		if (index >= 0)
+		{
+			clientStates[index] = DISABLED;
+		}
+	}
+
+	/**
+	 * Sets the blend function if it differs from the current one
+	 * 
+	 * @param mode
+	 *            The desired blend mode
+	 */
+	public static void setBlendMode(BlendMode mode)
+	{
+		if (mode == blendMode)
+		{
+			callsElided++;
+			return;
+		}
+		glBlendFunc(mode.getSourceFactor(), mode.getDestinationFactor());
+		callsIssued++;
+		blendMode = mode;
+	}
+
+	/**
+	 * Binds a texture if it is not the texture that is already bound. Binding
+	 * goes through Slick so that its own record of the last bound texture stays
+	 * correct.
+	 * 
+	 * @param tex
+	 *            The texture to bind
+	 */
+	public static void bindTexture(Texture tex)
+	{
+		if (tex.getTextureID() == boundTextureID)
+		{
+			callsElided++;
+			return;
+		}
+		tex.bind();
+		callsIssued++;
+		boundTextureID = tex.getTextureID();
+
+		// Slick enables GL_TEXTURE_2D whenever it binds
+		capStates[indexOf(trackedCaps, GL_TEXTURE_2D)] = ENABLED;
+	}
+
+	/**
+	 * Sets the minification and magnification filter of the bound texture if
+	 * that texture is not already using the filter. The texture must have been
+	 * bound with bindTexture().
+	 * 
+	 * @param tex
+	 *            The bound texture
+	 * @param filter
+	 *            The filter to use (GL_LINEAR or GL_NEAREST)
+	 */
+	public static void setTextureFilter(Texture tex, int filter)
+	{
+		int id = tex.getTextureID();
+		if (id < 0)
+		{
+			return;
+		}
+		if (id >= MAX_CACHED_TEXTURE_ID)
+		{
+			glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, filter);
+			glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, filter);
+			callsIssued += 2;
+			return;
+		}
+		if (id >= textureFilters.length)
+		{
+			textureFilters = Arrays.copyOf(textureFilters, Math.min(Math.max(id + 1, textureFilters.length * 2),
+					MAX_CACHED_TEXTURE_ID));
+		}
+		if (textureFilters[id] == filter)
+		{
+			callsElided += 2;
+			return;
+		}
+		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, filter);
+		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, filter);
+		callsIssued += 2;
+		textureFilters[id] = filter;
+	}
+
+	/**
+	 * Forgets everything the cache knows about the OpenGL state. This must be
+	 * called after anything changes OpenGL state without going through the
+	 * cache (such as drawing a TrueTypeFont or recreating the Display).
+	 */
+	public static void invalidate()
+	{
+		Arrays.fill(capStates, UNKNOWN);
+		Arrays.fill(clientStates, UNKNOWN);
+		blendMode = null;
+		boundTextureID = -1;
+	}
+
+	/**
+	 * Forgets which texture is bound. This must be called after a texture is
+	 * bound without going through the cache (TrueTypeFont binds its own and
+	 * Slick binds textures directly while uploading them).
+	 */
+	public static void invalidateTextureBinding()
+	{
+		boundTextureID = -1;
+		capStates[indexOf(trackedCaps, GL_TEXTURE_2D)] = UNKNOWN;
+		TextureImpl.unbind();
+	}
+
+	/**
+	 * Forgets the filter setting of a texture that is about to be released so
+	 * that a new texture reusing its ID does not inherit it
+	 * 
+	 * @param tex
+	 *            The texture being released
+	 */
+	public static void forgetTexture(Texture tex)
+	{
+		int id = tex.getTextureID();
+		if (id >= 0 && id < textureFilters.length)
+		{
+			textureFilters[id] = 0;
+		}
+		if (id == boundTextureID)
+		{
+			boundTextureID = -1;
+		}
+	}
+
+	/**
+	 * Forgets the filter settings of every texture. This must be called when
+	 * the OpenGL context is recreated, because texture IDs get reused.
+	 */
+	public static void invalidateTextures()
+	{
+		Arrays.fill(textureFilters, 0);
+		boundTextureID = -1;
+	}
+
+	/**
+	 * Stores the counters of the frame that just finished and resets them for
+	 * the next frame
+	 */
+	public static void endFrame()
+	{
+		lastFrameCallsElided = callsElided;
+		lastFrameCallsIssued = callsIssued;
+		callsElided = 0;
+		callsIssued = 0;
+	}
+
+	/**
+	 * Finds the index of a value in a small array
+	 */
+	private static int indexOf(int[] array, int value)
+	{
+		for (int i = 0; i < array.length; i++)
+		{
+			if (array[i] == value)
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	public static BlendMode getBlendMode()
+	{
+		return blendMode;
+	}
+
+	public static int getBoundTextureID()
+	{
+		return boundTextureID;
+	}
+
+	/**
+	 * Gets the number of redundant OpenGL calls that were skipped last frame
+	 * 
+	 * @return The number of calls that were skipped
+	 */
+	public static int getRedundantCallsElided()
+	{
+		return lastFrameCallsElided;
+	}
+
+	/**
+	 * Gets the number of state changing OpenGL calls that were made last frame
+	 * 
+	 * @return The number of calls that were made
+	 */
+	public static int getStateCallsIssued()
+	{
+		return lastFrameCallsIssued;
+	}
+
+}
@@ -0,0 +1,210 @@
+package skyEngine.RenderingUtilities;
+
+import java.util.Arrays;
+
+public class SkylinePacker
+{
+
+	private int width;
+	private int height;
+
+	// Skyline segments, ordered from left to right
+	private int[] segmentX;
+	private int[] segmentY;
+	private int[] segmentWidth;
+	private int segmentCount;
+
+	// Result of the last successful insert
+	private int packedX;
+	private int packedY;
+
+	/**
+	 * Creates a packer for an empty rectangular area
+	 * 
+	 * @param width
+	 *            Width of the area in pixels
+	 * @param height
+	 *            Height of the area in pixels
+	 */
+	public SkylinePacker(int width, int height)
+	{
+		this.width = width;
+		this.height = height;
+		segmentX = new int[16];
+		segmentY = new int[16];
+		segmentWidth = new int[16];
+		clear();
+	}
+
+	/**
+	 * Empties the area so that packing can start over
+	 */
+	public void clear()
+	{
+		segmentX[0] = 0;
+		segmentY[0] = 0;
+		segmentWidth[0] = width;
+		segmentCount = 1;
+	}
+
+	/**
+	 * Tries to place a rectangle as low as possible (and then as far left as
+	 * possible) on the skyline. If it succeeds, the position can be read with
+	 * getPackedX() and getPackedY().
+	 * 
+	 * @param rectWidth
+	 *            Width of the rectangle
+	 * @param rectHeight
+	 *            Height of the rectangle
+	 * @return True if the rectangle fit
+	 */
+	public boolean insert(int rectWidth, int rectHeight)
+	{
+		int bestIndex = -1;
+		int bestY = Integer.MAX_VALUE;
+		int bestWidth = Integer.MAX_VALUE;
+
+		for (int i = 0; i < segmentCount; i++)
+		{
+			int y = fit(i, rectWidth, rectHeight);
+			if (y >= 0 && (y < bestY || (y == bestY && segmentWidth[i] < bestWidth)))
+			{
+				bestIndex = i;
+				bestY = y;
+				bestWidth = segmentWidth[i];
+			}
+		}
+
+		if (bestIndex < 0)
+		{
+			return false;
+		}
+
+		packedX = segmentX[bestIndex];
+		packedY = bestY;
+		addSegment(bestIndex, packedX, packedY + rectHeight, rectWidth);
+		return true;
+	}
+
+	/**
+	 * Finds the height a rectangle would rest at if its left edge were placed
+	 * at the start of a segment
+	 * 
+	 * @return The y-coordinate of the rectangle or -1 if it does not fit
+	 */
+	private int fit(int index, int rectWidth, int rectHeight)
+	{
+		int x = segmentX[index];
+		if (x + rectWidth > width)
+		{
+			return -1;
+		}
+
+		int y = 0;
+		int widthLeft = rectWidth;
+		int i = index;
+		while (widthLeft > 0)
+		{
+			if (segmentY[i] > y)
+			{
+				y = segmentY[i];
+			}
+			if (y + rectHeight > height)
+			{
+				return -1;
+			}
+			widthLeft -= segmentWidth[i];
+			i++;
+		}
+		return y;
+	}
+
+	/**
+	 * Inserts a new segment on top of a placed rectangle and trims the segments
+	 * that it covers
+	 */
+	private void addSegment(int index, int x, int y, int segWidth)
+	{
+		if (segmentCount == segmentX.length)
+		{
+			segmentX = Arrays.copyOf(segmentX, segmentCount * 2);
+			segmentY = Arrays.copyOf(segmentY, segmentCount * 2);
+			segmentWidth = Arrays.copyOf(segmentWidth, segmentCount * 2);
+		}
+
+		System.arraycopy(segmentX, index, segmentX, index + 1, segmentCount - index);
+		System.arraycopy(segmentY, index, segmentY, index + 1, segmentCount - index);
+		System.arraycopy(segmentWidth, index, segmentWidth, index + 1, segmentCount - index);
+		segmentX[index] = x;
+		segmentY[index] = y;
+		segmentWidth[index] = segWidth;
+		segmentCount++;
+
+		// Shrink or remove the segments that are now underneath the new one
+		int i = index + 1;
+		while (i < segmentCount)
+		{
+			int right = segmentX[i - 1] + segmentWidth[i - 1];
+			if (segmentX[i] >= right)
+			{
+				break;
+			}
+			int overlap = right - segmentX[i];
+			if (overlap >= segmentWidth[i])
+			{
+				removeSegment(i);
+			} else
+			{
+				segmentX[i] += overlap;
+				segmentWidth[i] -= overlap;
+				break;
+			}
+		}
+
+		// Merge neighbors that ended up at the same height
+		i = 0;
+		while (i < segmentCount - 1)
+		{
+			if (segmentY[i] == segmentY[i + 1])
+			{
+				segmentWidth[i] += segmentWidth[i + 1];
+				removeSegment(i + 1);
+			} else
+			{
+				i++;
+			}
+		}
+	}
+
+	/**
+	 * Removes a segment from the skyline
+	 */
+	private void removeSegment(int index)
+	{
+		System.arraycopy(segmentX, index + 1, segmentX, index, segmentCount - index - 1);
+		System.arraycopy(segmentY, index + 1, segmentY, index, segmentCount - index - 1);
+		System.arraycopy(segmentWidth, index + 1, segmentWidth, index, segmentCount - index - 1);
+		segmentCount--;
+	}
+
+	public int getPackedX()
+	{
+		return packedX;
+	}
+
+	public int getPackedY()
+	{
+		return packedY;
+	}
+
+	public int getWidth()
+	{
+		return width;
+	}
+
+	public int getHeight()
+	{
+		return height;
+	}
+
+}